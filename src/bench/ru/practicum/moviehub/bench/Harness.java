@@ -0,0 +1,141 @@
+package ru.practicum.moviehub.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Минимальная замена JMH: прогрев, несколько итераций фиксированной длины, N потоков,
+// пропускная способность и объём выделенной памяти на операцию
+final class Harness {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    // Результаты операций складываются сюда, чтобы JIT не выбросил их как мёртвый код
+    private static volatile int sink;
+
+    private final int warmupIterations;
+    private final int iterations;
+    private final long iterationMillis;
+    private final List<Result> results = new ArrayList<>();
+
+    Harness(int warmupIterations, int iterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.iterationMillis = iterationMillis;
+    }
+
+    @FunctionalInterface
+    interface Operation {
+        Object run(int thread) throws Exception;
+    }
+
+    Result run(String name, int threads, Operation operation) throws InterruptedException {
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(threads, operation);
+        }
+        double[] throughput = new double[iterations];
+        double allocated = 0;
+        for (int i = 0; i < iterations; i++) {
+            Sample sample = iteration(threads, operation);
+            throughput[i] = sample.operations * 1000.0 / iterationMillis;
+            allocated += (double) sample.bytes / Math.max(1, sample.operations);
+        }
+        Result result = new Result(name, threads, throughput, allocated / iterations);
+        results.add(result);
+        System.out.println(result);
+        return result;
+    }
+
+    List<Result> getResults() {
+        return results;
+    }
+
+    private Sample iteration(int threads, Operation operation) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] operations = new long[threads];
+        long[] bytes = new long[threads];
+        Throwable[] failure = new Throwable[1];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+                    long count = 0;
+                    int local = 0;
+                    while (running.get()) {
+                        Object value = operation.run(index);
+                        local += value == null ? 0 : 1;
+                        count++;
+                    }
+                    bytes[index] = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+                    operations[index] = count;
+                    sink += local;
+                } catch (Throwable e) {
+                    failure[0] = e;
+                    running.set(false);
+                }
+            }, "bench-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        Thread.sleep(iterationMillis);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure[0] != null) {
+            throw new IllegalStateException("Бенчмарк завершился с ошибкой", failure[0]);
+        }
+        Sample sample = new Sample();
+        for (int t = 0; t < threads; t++) {
+            sample.operations += operations[t];
+            sample.bytes += bytes[t];
+        }
+        return sample;
+    }
+
+    private static class Sample {
+        private long operations;
+        private long bytes;
+    }
+
+    static class Result {
+        private final String name;
+        private final int threads;
+        private final double mean;
+        private final double error;
+        private final double bytesPerOperation;
+
+        private Result(String name, int threads, double[] throughput, double bytesPerOperation) {
+            this.name = name;
+            this.threads = threads;
+            this.bytesPerOperation = bytesPerOperation;
+            double sum = 0;
+            for (double value : throughput) {
+                sum += value;
+            }
+            mean = sum / throughput.length;
+            double squares = 0;
+            for (double value : throughput) {
+                squares += (value - mean) * (value - mean);
+            }
+            error = throughput.length > 1 ? Math.sqrt(squares / (throughput.length - 1)) : 0;
+        }
+
+        String toCsv() {
+            return String.format(java.util.Locale.ROOT, "%s,%d,%.1f,%.1f,%.1f",
+                    name, threads, mean, error, bytesPerOperation);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.ROOT, "%-55s threads=%-3d %14.1f ± %10.1f ops/s %12.1f B/op",
+                    name, threads, mean, error, bytesPerOperation);
+        }
+    }
+}
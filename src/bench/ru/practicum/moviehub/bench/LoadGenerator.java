@@ -0,0 +1,340 @@
+package ru.practicum.moviehub.bench;
+
+import ru.practicum.moviehub.AppArguments;
+import ru.practicum.moviehub.http.MoviesServer;
+import ru.practicum.moviehub.http.ServerConfig;
+import ru.practicum.moviehub.metrics.LatencyHistogram;
+import ru.practicum.moviehub.store.MoviesCatalog;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Нагрузка на MoviesServer на localhost по настоящим HTTP-соединениям, смесь запросов задаёт --mix.
+// open — запросы уходят по расписанию с частотой --rate независимо от ответов, задержка считается
+// от запланированного момента отправки: так ожидание занятого соединения попадает в результат,
+// а не выпадает из него (coordinated omission). closed — каждое соединение шлёт следующий запрос
+// сразу после ответа; поправка тогда добавляет пропущенные из-за долгого ответа замеры с шагом
+// медианной задержки, как recordValueWithExpectedInterval в HdrHistogram.
+// Запуск: java -cp <main>:<bench>:lib/* ru.practicum.moviehub.bench.LoadGenerator
+//   [--model=open|closed] [--rate=2000] [--connections=16] [--duration-ms=10000] [--warmup-ms=2000]
+//   [--mix=get:70,year:20,post:5,delete:5] [--backend=heap|mapped|sharded-N] [--size=10000]
+//   [--port=18080] [--csv=load.csv] и параметры сервера: --engine, --executor, --threads, --max-concurrent и т. д.
+public class LoadGenerator {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 1.0};
+    private static final String MOVIE_BODY = "{\"title\":\"Load movie\",\"year\":";
+
+    private final String model;
+    private final int rate;
+    private final int connections;
+    private final LoadMix mix;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String base;
+    private final int[] ids;
+    // фильмы, добавленные нагрузкой: DELETE удаляет их, а не заполнение
+    private final Queue<Integer> created = new ConcurrentLinkedQueue<>();
+    private final LatencyHistogram corrected = new LatencyHistogram();
+    private final LatencyHistogram uncorrected = new LatencyHistogram();
+    private final LongAdder[] requests = new LongAdder[LoadMix.Kind.values().length];
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong lastDone = new AtomicLong();
+    private long measureFrom;
+    private long end;
+
+    private LoadGenerator(String model, int rate, int connections, LoadMix mix, int port, int[] ids) {
+        this.model = model;
+        this.rate = rate;
+        this.connections = connections;
+        this.mix = mix;
+        this.base = "http://localhost:" + port + "/movies";
+        this.ids = ids;
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = new LongAdder();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        AppArguments arguments = AppArguments.parse(args);
+        String model = arguments.get("model", "open");
+        int rate = arguments.getInt("rate", 2000);
+        int connections = arguments.getInt("connections", 16);
+        int durationMillis = arguments.getInt("duration-ms", 10_000);
+        int warmupMillis = arguments.getInt("warmup-ms", 2_000);
+        LoadMix mix = LoadMix.parse(arguments.get("mix", "get:70,year:20,post:5,delete:5"));
+        String backend = arguments.get("backend", "heap");
+        int size = arguments.getInt("size", 10_000);
+        int port = arguments.getInt("port", 18080);
+        String csv = arguments.get("csv", null);
+        ServerConfig config = ServerConfig.fromArgs(arguments);
+        arguments.ensureAllUsed();
+        if (!model.equals("open") && !model.equals("closed")) {
+            throw new IllegalArgumentException("Модель нагрузки должна быть open или closed");
+        }
+        if (rate <= 0 || connections <= 0 || durationMillis <= 0 || warmupMillis < 0) {
+            throw new IllegalArgumentException("--rate, --connections и --duration-ms должны быть положительными");
+        }
+
+        Path directory = backend.equals("mapped") ? Files.createTempDirectory("load-mapped") : null;
+        MoviesCatalog store = StoreBenchmarks.open(backend, directory);
+        MoviesServer server = null;
+        try {
+            int[] ids = StoreBenchmarks.fill(store, size);
+            server = new MoviesServer(store, port, config);
+            server.start();
+            LoadGenerator generator = new LoadGenerator(model, rate, connections, mix, port, ids);
+            generator.run(warmupMillis, durationMillis);
+            String label = String.format(Locale.ROOT, "load.%s%s connections=%d mix=%s backend=%s engine=%s executor=%s",
+                    model, model.equals("open") ? " rate=" + rate : "", connections, mix, backend,
+                    config.getEngine().name().toLowerCase(Locale.ROOT),
+                    config.getExecutorMode().name().toLowerCase(Locale.ROOT));
+            generator.report(label);
+            if (csv != null) {
+                generator.appendCsv(Path.of(csv), backend, config);
+            }
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+            store.close();
+            if (directory != null) {
+                StoreBenchmarks.deleteRecursively(directory);
+            }
+        }
+    }
+
+    private void run(int warmupMillis, int durationMillis) throws InterruptedException {
+        long start = System.nanoTime();
+        measureFrom = start + warmupMillis * 1_000_000L;
+        end = measureFrom + durationMillis * 1_000_000L;
+        List<Samples> samples = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        Throwable[] failure = new Throwable[1];
+        for (int c = 0; c < connections; c++) {
+            int index = c;
+            Samples own = new Samples();
+            samples.add(own);
+            Thread worker = new Thread(() -> {
+                try {
+                    if (model.equals("open")) {
+                        runOpen(start, index);
+                    } else {
+                        runClosed(own);
+                    }
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+            }, "load-" + c);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure[0] != null) {
+            throw new IllegalStateException("Генератор нагрузки завершился с ошибкой", failure[0]);
+        }
+        if (model.equals("closed")) {
+            correct(samples, uncorrected.percentile(0.5));
+        }
+    }
+
+    // Соединение c отвечает за запросы c, c + connections, c + 2 * connections... общего расписания.
+    // Опоздавший запрос уходит сразу, но его задержка считается от запланированного момента
+    private void runOpen(long start, int index) {
+        double interval = 1e9 / rate;
+        for (long n = index; ; n += connections) {
+            long intended = start + (long) (n * interval);
+            if (intended >= end) {
+                return;
+            }
+            long delay;
+            while ((delay = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            long sent = System.nanoTime();
+            LoadMix.Kind kind = execute();
+            long done = System.nanoTime();
+            if (intended >= measureFrom) {
+                requests[kind.ordinal()].increment();
+                corrected.record(done - intended);
+                uncorrected.record(done - sent);
+                lastDone.accumulateAndGet(done, Math::max);
+            }
+        }
+    }
+
+    private void runClosed(Samples own) {
+        long sent;
+        while ((sent = System.nanoTime()) < end) {
+            LoadMix.Kind kind = execute();
+            long done = System.nanoTime();
+            if (sent >= measureFrom) {
+                requests[kind.ordinal()].increment();
+                uncorrected.record(done - sent);
+                own.add(done - sent);
+                lastDone.accumulateAndGet(done, Math::max);
+            }
+        }
+    }
+
+    // Пока соединение ждало долгий ответ, при нормальной работе оно успело бы отправить ещё
+    // latency / expected запросов; их задержки убывают на expected, пока не станут меньше него
+    private void correct(List<Samples> samples, long expected) {
+        for (Samples own : samples) {
+            for (int i = 0; i < own.count; i++) {
+                long latency = own.values[i];
+                corrected.record(latency);
+                if (expected <= 0) {
+                    continue;
+                }
+                for (long missed = latency - expected; missed >= expected; missed -= expected) {
+                    corrected.record(missed);
+                }
+            }
+        }
+    }
+
+    private LoadMix.Kind execute() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LoadMix.Kind kind = mix.pick(random.nextDouble());
+        try {
+            HttpRequest request;
+            switch (kind) {
+                case GET -> request = get(base + "/" + ids[random.nextInt(ids.length)]);
+                case YEAR -> request = get(base + "?year=" + StoreBenchmarks.randomYear());
+                case POST -> request = HttpRequest.newBuilder(URI.create(base))
+                        .timeout(Duration.ofSeconds(30))
+                        .header("Content-Type", "application/json; charset=UTF-8")
+                        .POST(HttpRequest.BodyPublishers.ofString(MOVIE_BODY + StoreBenchmarks.randomYear() + "}"))
+                        .build();
+                default -> {
+                    Integer id = created.poll();
+                    request = HttpRequest.newBuilder(URI.create(base + "/"
+                                    + (id != null ? id : ids[random.nextInt(ids.length)])))
+                            .timeout(Duration.ofSeconds(30))
+                            .DELETE()
+                            .build();
+                }
+            }
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            if (kind == LoadMix.Kind.POST && status == 201) {
+                created.add(parseId(response.body()));
+            }
+        } catch (IOException e) {
+            failures.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.increment();
+        }
+        return kind;
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private static int parseId(String body) {
+        int start = body.lastIndexOf("\"id\":") + 5;
+        int end = start;
+        while (end < body.length() && Character.isDigit(body.charAt(end))) {
+            end++;
+        }
+        return Integer.parseInt(body.substring(start, end));
+    }
+
+    private long measured() {
+        return Arrays.stream(requests).mapToLong(LongAdder::sum).sum();
+    }
+
+    // Запросы, запланированные в окне замера, могут закончиться позже его конца: время считается до последнего
+    private double throughput() {
+        return measured() * 1e9 / (Math.max(end, lastDone.get()) - measureFrom);
+    }
+
+    private void report(String label) {
+        System.out.println(label);
+        StringBuilder kinds = new StringBuilder();
+        for (LoadMix.Kind kind : LoadMix.Kind.values()) {
+            long count = requests[kind.ordinal()].sum();
+            if (count > 0) {
+                kinds.append(kinds.isEmpty() ? "" : ", ").append(kind.name().toLowerCase(Locale.ROOT))
+                        .append(' ').append(count);
+            }
+        }
+        System.out.printf(Locale.ROOT, "  запросов %d (%s), %.1f req/s, сетевых ошибок %d%n",
+                measured(), kinds, throughput(), failures.sum());
+        StringBuilder codes = new StringBuilder();
+        new TreeMap<>(statuses).forEach((status, count) ->
+                codes.append(codes.isEmpty() ? "" : ", ").append(status).append('=').append(count.sum()));
+        System.out.println("  статусы за всё время, включая прогрев: " + codes);
+        System.out.printf(Locale.ROOT, "  %-22s %9s %9s %9s %9s %9s%n", "задержка, мс", "p50", "p90", "p99", "p99.9", "max");
+        printQuantiles("с поправкой", corrected);
+        printQuantiles("без поправки", uncorrected);
+    }
+
+    private static void printQuantiles(String name, LatencyHistogram histogram) {
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "  %-22s", name));
+        for (double quantile : QUANTILES) {
+            line.append(String.format(Locale.ROOT, " %9.3f", histogram.percentile(quantile) / 1e6));
+        }
+        System.out.println(line);
+    }
+
+    // Строки разных запусков дописываются в один файл, чтобы сравнивать конфигурации
+    private void appendCsv(Path file, String backend, ServerConfig config) throws IOException {
+        boolean exists = Files.exists(file);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            if (!exists) {
+                out.println("model,rate,connections,mix,backend,engine,executor,requests,failures,requests_per_second,"
+                        + "p50_ms,p90_ms,p99_ms,p999_ms,max_ms,uncorrected_p99_ms");
+            }
+            StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%s,%d,%d,\"%s\",%s,%s,%s,%d,%d,%.1f",
+                    model, model.equals("open") ? rate : 0, connections, mix, backend,
+                    config.getEngine().name().toLowerCase(Locale.ROOT), config.getExecutorMode().name().toLowerCase(Locale.ROOT), measured(), failures.sum(),
+                    throughput()));
+            for (double quantile : QUANTILES) {
+                line.append(String.format(Locale.ROOT, ",%.3f", corrected.percentile(quantile) / 1e6));
+            }
+            line.append(String.format(Locale.ROOT, ",%.3f", uncorrected.percentile(0.99) / 1e6));
+            out.println(line);
+        }
+    }
+
+    // Задержки одного соединения в модели closed, для поправки после прогона
+    private static class Samples {
+        private long[] values = new long[1024];
+        private int count;
+
+        private void add(long value) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = value;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.moviehub.bench;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// Доли запросов нагрузки в виде "get:70,year:20,post:5,delete:5"; веса не обязаны давать в сумме 100
+final class LoadMix {
+    enum Kind {
+        GET,
+        YEAR,
+        POST,
+        DELETE
+    }
+
+    private final int[] weights = new int[Kind.values().length];
+    private final int total;
+
+    private LoadMix(String spec) {
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Неверный формат --mix: " + spec);
+            }
+            Kind kind;
+            int weight;
+            try {
+                kind = Kind.valueOf(pair[0].trim().toUpperCase(Locale.ROOT));
+                weight = Integer.parseInt(pair[1].trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Неверный формат --mix: " + spec, e);
+            }
+            if (weight < 0) {
+                throw new IllegalArgumentException("Вес в --mix не может быть отрицательным: " + part);
+            }
+            weights[kind.ordinal()] += weight;
+        }
+        total = Arrays.stream(weights).sum();
+        if (total == 0) {
+            throw new IllegalArgumentException("В --mix нет ни одного запроса с положительным весом");
+        }
+    }
+
+    static LoadMix parse(String spec) {
+        return new LoadMix(spec);
+    }
+
+    // random — равномерно из [0, 1)
+    Kind pick(double random) {
+        int point = (int) (random * total);
+        for (Kind kind : Kind.values()) {
+            point -= weights[kind.ordinal()];
+            if (point < 0) {
+                return kind;
+            }
+        }
+        return Kind.values()[Kind.values().length - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (Kind kind : Kind.values()) {
+            if (weights[kind.ordinal()] > 0) {
+                if (!result.isEmpty()) {
+                    result.append(',');
+                }
+                result.append(kind.name().toLowerCase(Locale.ROOT)).append(':').append(weights[kind.ordinal()]);
+            }
+        }
+        return result.toString();
+    }
+}
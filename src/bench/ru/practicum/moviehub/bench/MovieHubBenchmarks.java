@@ -0,0 +1,67 @@
+package ru.practicum.moviehub.bench;
+
+import ru.practicum.moviehub.AppArguments;
+import ru.practicum.moviehub.http.ServerConfig;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+// Запуск: java -Xmx8g -cp <main>:<bench>:lib/* ru.practicum.moviehub.bench.MovieHubBenchmarks
+//   [--suite=store,serialization,routing,server] [--sizes=10000,1000000,10000000] [--backends=heap,mapped,sharded-4]
+//   [--threads=N] [--warmup=2] [--iterations=5] [--time-ms=1000] [--port=18080] [--server-size=10000]
+//   [--engine=jdk|nio] [--executor=fixed|virtual|dispatcher] [--csv=results.csv]
+public class MovieHubBenchmarks {
+    public static void main(String[] args) throws Exception {
+        AppArguments arguments = AppArguments.parse(args);
+        List<String> suites = list(arguments.get("suite", "store,serialization,routing,server"));
+        List<String> sizes = list(arguments.get("sizes", "10000,1000000,10000000"));
+        List<String> backends = list(arguments.get("backends", "heap,mapped"));
+        int threads = arguments.getInt("threads", Runtime.getRuntime().availableProcessors());
+        Harness harness = new Harness(arguments.getInt("warmup", 2), arguments.getInt("iterations", 5),
+                arguments.getInt("time-ms", 1000));
+        int port = arguments.getInt("port", 18080);
+        int serverSize = arguments.getInt("server-size", 10_000);
+        String csv = arguments.get("csv", null);
+        ServerConfig serverConfig = ServerConfig.fromArgs(arguments);
+        arguments.ensureAllUsed();
+
+        if (suites.contains("store")) {
+            for (String backend : backends) {
+                for (String size : sizes) {
+                    StoreBenchmarks.run(harness, backend, Integer.parseInt(size), threads);
+                }
+            }
+        }
+        if (suites.contains("serialization")) {
+            SerializationBenchmarks.run(harness, threads);
+        }
+        if (suites.contains("routing")) {
+            RoutingBenchmarks.run(harness, threads);
+        }
+        if (suites.contains("server")) {
+            ServerBenchmarks.run(harness, serverConfig, port, serverSize, threads);
+        }
+        if (csv != null) {
+            writeCsv(Path.of(csv), harness.getResults());
+        }
+    }
+
+    // CSV удобно сравнивать между коммитами или бэкендами хранилища
+    private static void writeCsv(Path file, List<Harness.Result> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("benchmark,threads,ops_per_second,error,bytes_per_op");
+            for (Harness.Result result : results) {
+                out.println(result.toCsv());
+            }
+        }
+    }
+
+    private static List<String> list(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+}
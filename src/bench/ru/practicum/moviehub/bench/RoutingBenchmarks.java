@@ -0,0 +1,65 @@
+package ru.practicum.moviehub.bench;
+
+import com.google.gson.Gson;
+import ru.practicum.moviehub.api.ErrorResponse;
+import ru.practicum.moviehub.http.admission.ClientRateLimiter;
+import ru.practicum.moviehub.http.routing.QueryParams;
+import ru.practicum.moviehub.http.routing.Router;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+// Прежний разбор пути и запроса через split против Router/QueryParams,
+// сборка тела ошибки на каждый запрос против заранее закодированного и цена проверки лимита на клиента
+final class RoutingBenchmarks {
+    private static final String URI = "/movies?from=1990&to=2005";
+    private static final String PATH = "/movies/12345";
+    private static final String QUERY = "from=1990&to=2005";
+
+    private RoutingBenchmarks() {
+    }
+
+    static void run(Harness harness, int threads) throws Exception {
+        Router router = new Router()
+                .get("/movies", (ex, match) -> {
+                })
+                .get("/movies/{id}", (ex, match) -> {
+                });
+        Gson gson = new Gson();
+        byte[] preEncoded = gson.toJson(ErrorResponse.of("Отсутствующий ID", "Фильм не найден"))
+                .getBytes(StandardCharsets.UTF_8);
+        // Лимит заведомо не достигается: замеряется сам CAS по корзине клиента
+        ClientRateLimiter limiter = new ClientRateLimiter(1_000_000_000, 1_000_000_000);
+        InetAddress[] clients = new InetAddress[Math.max(1, threads)];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = InetAddress.getByAddress(new byte[]{10, 0, (byte) (i >> 8), (byte) i});
+        }
+
+        for (int contention : new int[]{1, threads}) {
+            harness.run("split path and query", contention, t -> {
+                String[] path = URI.split("/");
+                String[] parts = path[1].split("\\?");
+                Map<String, Integer> values = new HashMap<>();
+                for (String pair : parts[1].split("&")) {
+                    String[] keyValue = pair.split("=");
+                    values.put(keyValue[0], Integer.parseInt(keyValue[1]));
+                }
+                return values;
+            });
+            harness.run("Router.matches + QueryParams.getInt", contention, t -> {
+                QueryParams query = QueryParams.parse(QUERY);
+                return router.matches("GET", "/movies") ? query.getInt("from", 0) + query.getInt("to", 0) : 0;
+            });
+            harness.run("split /movies/{id}", contention, t -> Integer.parseInt(PATH.split("/")[2]));
+            harness.run("Router.matches /movies/{id}", contention, t -> router.matches("GET", PATH));
+            harness.run("error body: new ErrorResponse + toJson", contention,
+                    t -> gson.toJson(new ErrorResponse("Отсутствующий ID", "Фильм не найден;"))
+                            .getBytes(StandardCharsets.UTF_8));
+            harness.run("error body: pre-encoded", contention, t -> preEncoded);
+            harness.run("rate limiter acquire, client per thread", contention, t -> limiter.acquire(clients[t]));
+            harness.run("rate limiter acquire, one shared client", contention, t -> limiter.acquire(clients[0]));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.moviehub.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import ru.practicum.moviehub.codec.MovieBinaryCodec;
+import ru.practicum.moviehub.codec.JsonOutput;
+import ru.practicum.moviehub.codec.MovieBinaryWriter;
+import ru.practicum.moviehub.codec.MovieJsonCodec;
+import ru.practicum.moviehub.http.compression.ContentEncoding;
+import ru.practicum.moviehub.http.compression.ResponseCompression;
+import ru.practicum.moviehub.model.Movie;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+// Повторяет то, что MoviesHandler делает с телами: Gson против MovieJsonCodec (запись в массив, потоковая
+// запись списка, разбор POST), бинарный формат и сжатие (GZIPOutputStream против Deflater из пула)
+final class SerializationBenchmarks {
+    private SerializationBenchmarks() {
+    }
+
+    static void run(Harness harness, int threads) throws Exception {
+        Gson gson = new Gson();
+        Movie movie = StoreBenchmarks.sampleMovie(42);
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            movies.add(StoreBenchmarks.sampleMovie(i));
+        }
+
+        byte[] listBody = gson.toJson(movies).getBytes(StandardCharsets.UTF_8);
+        ResponseCompression compression = new ResponseCompression(0);
+        byte[] postBody = "{\"title\":\"Сталкер\",\"year\":1979}".getBytes(StandardCharsets.UTF_8);
+
+        for (int contention : new int[]{1, threads}) {
+            harness.run("gson.toJson(movie).getBytes", contention,
+                    t -> gson.toJson(movie).getBytes(StandardCharsets.UTF_8));
+            harness.run("gson.toJson(list of 1000).getBytes", contention,
+                    t -> gson.toJson(movies).getBytes(StandardCharsets.UTF_8));
+            harness.run("gson JsonWriter stream(list of 1000)", contention, t -> {
+                try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+                        new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8), 8192))) {
+                    writer.beginArray();
+                    for (Movie each : movies) {
+                        gson.toJson(each, Movie.class, writer);
+                    }
+                    writer.endArray();
+                }
+                return movies;
+            });
+            harness.run("codec encode(movie)", contention, t -> MovieJsonCodec.encode(movie));
+            harness.run("codec encode(list of 1000)", contention, t -> MovieJsonCodec.encode(movies));
+            harness.run("codec JsonOutput stream(list of 1000)", contention, t -> {
+                try (JsonOutput out = new JsonOutput(OutputStream.nullOutputStream())) {
+                    MovieJsonCodec.write(out, movies);
+                }
+                return movies;
+            });
+            harness.run("gson JsonParser(POST body)", contention, t -> {
+                JsonObject json = JsonParser.parseString(new String(postBody, StandardCharsets.UTF_8))
+                        .getAsJsonObject();
+                return json.get("title").getAsString().length() + json.get("year").getAsInt();
+            });
+            harness.run("codec decodeNewMovie(POST body)", contention, t -> MovieJsonCodec.decodeNewMovie(postBody));
+            harness.run("binary encode(list of 1000)", contention, t -> MovieBinaryCodec.encode(movies));
+            harness.run("binary stream(list of 1000)", contention, t -> {
+                try (MovieBinaryWriter writer = new MovieBinaryWriter(OutputStream.nullOutputStream())) {
+                    for (Movie each : movies) {
+                        writer.write(each);
+                    }
+                }
+                return movies;
+            });
+            harness.run("GZIPOutputStream(list of 1000)", contention, t -> {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(listBody.length / 4);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(listBody);
+                }
+                return out.toByteArray();
+            });
+            harness.run("pooled gzip(list of 1000)", contention,
+                    t -> compression.compress(listBody, ContentEncoding.GZIP));
+        }
+    }
+}
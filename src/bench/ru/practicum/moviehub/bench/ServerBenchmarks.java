@@ -0,0 +1,50 @@
+package ru.practicum.moviehub.bench;
+
+import ru.practicum.moviehub.http.MoviesServer;
+import ru.practicum.moviehub.http.ServerConfig;
+import ru.practicum.moviehub.store.MoviesStore;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Сквозные замеры через настоящий MoviesServer на localhost. B/op здесь — только выделения клиента
+final class ServerBenchmarks {
+    private ServerBenchmarks() {
+    }
+
+    static void run(Harness harness, ServerConfig config, int port, int size, int threads) throws Exception {
+        MoviesStore store = new MoviesStore();
+        StoreBenchmarks.fill(store, size);
+        MoviesServer server = new MoviesServer(store, port, config);
+        server.start();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String base = "http://localhost:" + port + "/movies";
+        String prefix = "server." + config.getEngine().name().toLowerCase() + "."
+                + config.getExecutorMode().name().toLowerCase() + ".";
+        try {
+            for (int contention : new int[]{1, threads}) {
+                harness.run(prefix + "GET /movies/{id} size=" + size, contention,
+                        t -> send(client, base + "/" + ThreadLocalRandom.current().nextInt(size)));
+                harness.run(prefix + "GET /movies?year= size=" + size, contention,
+                        t -> send(client, base + "?year=" + StoreBenchmarks.randomYear()));
+                harness.run(prefix + "GET /movies?limit=100 size=" + size, contention,
+                        t -> send(client, base + "?limit=100&cursor="
+                                + ThreadLocalRandom.current().nextInt(size)));
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static byte[] send(HttpClient client, String uri) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri)).GET().build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Неожиданный статус " + response.statusCode() + " для " + uri);
+        }
+        return response.body();
+    }
+}
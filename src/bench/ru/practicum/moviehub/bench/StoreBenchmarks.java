@@ -0,0 +1,104 @@
+package ru.practicum.moviehub.bench;
+
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.store.MappedMovieStorage;
+import ru.practicum.moviehub.store.MoviesCatalog;
+import ru.practicum.moviehub.store.MoviesStore;
+import ru.practicum.moviehub.store.ShardedMoviesStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+final class StoreBenchmarks {
+    static final int FIRST_YEAR = 1888;
+    static final int YEARS = 138;
+
+    private StoreBenchmarks() {
+    }
+
+    // backend: heap, mapped или sharded-N (N хранилищ в куче за ShardedMoviesStore)
+    static void run(Harness harness, String backend, int size, int threads) throws Exception {
+        Path directory = backend.equals("mapped") ? Files.createTempDirectory("bench-mapped") : null;
+        MoviesCatalog store = open(backend, directory);
+        // у шардов ID не подряд, поэтому случайные ID берутся из выданных
+        int[] ids = fill(store, size);
+        try {
+            String prefix = "store." + backend + ".";
+            String suffix = " size=" + size;
+            for (int contention : new int[]{1, threads}) {
+                harness.run(prefix + "getMovie" + suffix, contention, t -> store.getMovie(randomId(ids)));
+                harness.run(prefix + "getMoviesByYear" + suffix, contention,
+                        t -> store.getMoviesByYear(randomYear()));
+                harness.run(prefix + "getMoviesByYearRange(10 years)" + suffix, contention, t -> {
+                    int from = randomYear();
+                    return store.getMoviesByYearRange(from, from + 9);
+                });
+                harness.run(prefix + "getMoviesPage(100)" + suffix, contention,
+                        t -> store.getMoviesPage(randomId(ids), 100));
+                harness.run(prefix + "searchByTitle(exact, 10)" + suffix, contention,
+                        t -> store.searchByTitle("number " + ThreadLocalRandom.current().nextInt(size), 10));
+                harness.run(prefix + "searchByTitle(prefix, 10)" + suffix, contention,
+                        t -> store.searchByTitle("movie number " + ThreadLocalRandom.current().nextInt(1000), 10));
+                if (contention == 1 || size <= 1_000_000) {
+                    harness.run(prefix + "getAllMovies" + suffix, contention, t -> store.getAllMovies());
+                }
+            }
+            // Поток 0 добавляет и удаляет фильм, остальные читают списки, которые после этого меняются
+            if (threads > 1) {
+                harness.run(prefix + "getMoviesByYear with writer" + suffix, threads, t -> t == 0
+                        ? store.deleteMovie(store.addNewMovie("Benchmark movie", randomYear()).getID())
+                        : store.getMoviesByYear(randomYear()));
+            }
+            // Добавление растит хранилище, поэтому идёт после всех чтений
+            for (int contention : new int[]{1, threads}) {
+                harness.run(prefix + "addNewMovie" + suffix, contention,
+                        t -> store.addNewMovie("Benchmark movie", randomYear()));
+            }
+        } finally {
+            store.close();
+            if (directory != null) {
+                deleteRecursively(directory);
+            }
+        }
+    }
+
+    // directory нужен только бэкенду mapped
+    static MoviesCatalog open(String backend, Path directory) throws IOException {
+        if (backend.startsWith("sharded-")) {
+            return new ShardedMoviesStore(Integer.parseInt(backend.substring("sharded-".length())));
+        }
+        return switch (backend) {
+            case "heap" -> new MoviesStore();
+            case "mapped" -> new MoviesStore(MappedMovieStorage.open(directory));
+            default -> throw new IllegalArgumentException("Неизвестный бэкенд хранилища: " + backend);
+        };
+    }
+
+    static int[] fill(MoviesCatalog store, int size) {
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = store.addNewMovie("Movie number " + i, FIRST_YEAR + i % YEARS).getID();
+        }
+        return ids;
+    }
+
+    static Movie sampleMovie(int id) {
+        return new Movie("Movie number " + id, FIRST_YEAR + id % YEARS, id);
+    }
+
+    private static int randomId(int[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    static int randomYear() {
+        return FIRST_YEAR + ThreadLocalRandom.current().nextInt(YEARS);
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        try (var files = Files.walk(directory)) {
+            files.sorted(java.util.Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
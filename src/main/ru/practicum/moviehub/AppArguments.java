@@ -0,0 +1,53 @@
+package ru.practicum.moviehub;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Аргументы командной строки вида --ключ=значение
+public class AppArguments {
+    private final Map<String, String> values;
+    private final Set<String> used = new HashSet<>();
+
+    private AppArguments(Map<String, String> values) {
+        this.values = values;
+    }
+
+    public static AppArguments parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Неверный формат аргумента: " + arg);
+            }
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return new AppArguments(values);
+    }
+
+    public String get(String key, String defaultValue) {
+        used.add(key);
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Значение --" + key + " должно быть целым числом", e);
+        }
+    }
+
+    public void ensureAllUsed() {
+        for (String key : values.keySet()) {
+            if (!used.contains(key)) {
+                throw new IllegalArgumentException("Неизвестный аргумент: --" + key);
+            }
+        }
+    }
+}
@@ -1,12 +1,134 @@
 package ru.practicum.moviehub;
 
 import ru.practicum.moviehub.http.MoviesServer;
+import ru.practicum.moviehub.http.ServerConfig;
+import ru.practicum.moviehub.metrics.MetricsRegistry;
+import ru.practicum.moviehub.store.MappedMovieStorage;
+import ru.practicum.moviehub.store.MoviesCatalog;
 import ru.practicum.moviehub.store.MoviesStore;
+import ru.practicum.moviehub.store.ShardedMoviesStore;
+import ru.practicum.moviehub.store.persistence.MoviesPersistence;
+import ru.practicum.moviehub.store.replication.ChangeStream;
+import ru.practicum.moviehub.store.replication.ReplicaClient;
+import ru.practicum.moviehub.store.replication.ReplicationServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
 
 public class MovieHubApp {
-    public static void main(String[] args) {
-        final MoviesServer server = new MoviesServer(new MoviesStore(), 8080);
-        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+    public static void main(String[] args) throws IOException {
+        AppArguments arguments = AppArguments.parse(args);
+        ServerConfig config = ServerConfig.fromArgs(arguments);
+        String dataDir = arguments.get("data-dir", null);
+        int snapshotInterval = arguments.getInt("snapshot-interval", 300);
+        String mappedDir = arguments.get("mapped-dir", null);
+        int shards = arguments.getInt("shards", 1);
+        int port = arguments.getInt("port", 8080);
+        int replicationPort = arguments.getInt("replication-port", 0);
+        int changeBuffer = arguments.getInt("change-buffer", 100_000);
+        String replicaOf = arguments.get("replica-of", null);
+        arguments.ensureAllUsed();
+        if (dataDir != null && mappedDir != null) {
+            throw new IllegalArgumentException("--data-dir и --mapped-dir нельзя использовать вместе");
+        }
+        if (shards > 1 && (dataDir != null || mappedDir != null)) {
+            throw new IllegalArgumentException("--shards пока совместим только с хранилищем в куче без журнала");
+        }
+        if (replicaOf != null && (shards > 1 || dataDir != null || mappedDir != null || replicationPort != 0)) {
+            throw new IllegalArgumentException("Реплика хранит каталог только в куче и сама изменения не раздаёт");
+        }
+        if (replicationPort != 0 && shards > 1) {
+            throw new IllegalArgumentException("--replication-port пока несовместим с --shards");
+        }
+        config.readOnly(replicaOf != null);
+
+        final MoviesStore single = shards > 1 ? null : mappedDir == null ? new MoviesStore()
+                : new MoviesStore(MappedMovieStorage.open(Path.of(mappedDir)));
+        final MoviesCatalog store = single == null ? new ShardedMoviesStore(shards) : single;
+        final MoviesPersistence persistence = dataDir == null ? null
+                : MoviesPersistence.open(Path.of(dataDir), single, snapshotInterval);
+        final ReplicationServer replication = replicationPort == 0 ? null
+                : startReplication(single, changeBuffer, replicationPort);
+        final ReplicaClient replica = replicaOf == null ? null : startReplica(single, replicaOf);
+        if (replica != null) {
+            config.replicaSynced(replica::isSynced);
+        }
+        final MoviesServer server = new MoviesServer(store, port, config);
+        if (persistence != null) {
+            MetricsRegistry metrics = server.getMetrics();
+            metrics.counter("moviehub_wal_records_total", "Записи, добавленные в журнал",
+                    persistence.getWal()::getRecords);
+            metrics.counter("moviehub_wal_syncs_total", "Сбросы журнала на диск (групповые коммиты)",
+                    persistence.getWal()::getSyncs);
+            metrics.counter("moviehub_wal_bytes_total", "Байты, записанные в журнал", persistence.getWal()::getBytes);
+            metrics.gauge("moviehub_recovery_millis", "Время восстановления при старте",
+                    persistence::getRecoveryMillis);
+        }
+        if (replication != null) {
+            MetricsRegistry metrics = server.getMetrics();
+            metrics.gauge("moviehub_replication_replicas", "Подключённые реплики", replication::getReplicas);
+            metrics.counter("moviehub_replication_snapshots_total", "Снимки, отправленные репликам вместо досылки",
+                    replication::getSnapshots);
+        }
+        if (replica != null) {
+            MetricsRegistry metrics = server.getMetrics();
+            metrics.gauge("moviehub_replica_connected", "Есть ли соединение с основным узлом",
+                    () -> replica.isConnected() ? 1 : 0);
+            metrics.gauge("moviehub_replica_synced", "Загружен ли снимок каталога с основного узла",
+                    () -> replica.isSynced() ? 1 : 0);
+            metrics.gauge("moviehub_replica_applied_sequence", "Номер последнего применённого изменения",
+                    replica::getAppliedSequence);
+            metrics.gauge("moviehub_replica_lag_records", "Отставание реплики в изменениях", replica::getLagRecords);
+            metrics.gauge("moviehub_replica_lag_millis", "Отставание реплики по времени изменений, мс",
+                    replica::getLagMillis);
+            metrics.counter("moviehub_replica_reconnects_total", "Переподключения к основному узлу",
+                    replica::getReconnects);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            closeQuietly(replica);
+            closeQuietly(replication);
+            if (persistence != null) {
+                try {
+                    persistence.close();
+                } catch (IOException e) {
+                    System.out.println("Не удалось закрыть журнал: " + e.getMessage());
+                }
+            }
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.out.println("Не удалось закрыть хранилище: " + e.getMessage());
+            }
+        }));
         server.start();
     }
-}
\ No newline at end of file
+
+    // Поток изменений подключается после восстановления: реплики получат восстановленное снимком
+    private static ReplicationServer startReplication(MoviesStore store, int bufferSize, int port)
+            throws IOException {
+        ChangeStream changes = new ChangeStream(bufferSize);
+        store.addListener(changes);
+        return new ReplicationServer(store, changes, port);
+    }
+
+    private static ReplicaClient startReplica(MoviesStore store, String primary) {
+        int colon = primary.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("--replica-of задаётся как хост:порт");
+        }
+        return new ReplicaClient(store, primary.substring(0, colon), Integer.parseInt(primary.substring(colon + 1)));
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            System.out.println("Не удалось закрыть " + closeable.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+}
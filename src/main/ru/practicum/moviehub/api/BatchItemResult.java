@@ -0,0 +1,55 @@
+package ru.practicum.moviehub.api;
+
+import ru.practicum.moviehub.model.Movie;
+
+public class BatchItemResult {
+    private final Integer index;
+    private final Integer id;
+    private final int status;
+    private final Movie movie;
+    private final ErrorResponse error;
+
+    private BatchItemResult(Integer index, Integer id, int status, Movie movie, ErrorResponse error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.movie = movie;
+        this.error = error;
+    }
+
+    public static BatchItemResult created(int index, Movie movie) {
+        return new BatchItemResult(index, null, 201, movie, null);
+    }
+
+    public static BatchItemResult rejected(int index, int status, ErrorResponse error) {
+        return new BatchItemResult(index, null, status, null, error);
+    }
+
+    public static BatchItemResult deleted(int index, int id) {
+        return new BatchItemResult(index, id, 204, null, null);
+    }
+
+    public static BatchItemResult notDeleted(int index, Integer id, int status, ErrorResponse error) {
+        return new BatchItemResult(index, id, status, null, error);
+    }
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Movie getMovie() {
+        return movie;
+    }
+
+    public ErrorResponse getError() {
+        return error;
+    }
+}
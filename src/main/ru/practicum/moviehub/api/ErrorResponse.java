@@ -4,11 +4,21 @@ public class ErrorResponse {
     private final String errorName;
     private final String[] errorDetails;
 
+    // errorDetails — подробности через ';'
     public ErrorResponse(String errorName, String errorDetails) {
         this.errorDetails = errorDetails.split(";");
         this.errorName = errorName;
     }
 
+    private ErrorResponse(String errorName, String[] errorDetails) {
+        this.errorName = errorName;
+        this.errorDetails = errorDetails;
+    }
+
+    public static ErrorResponse of(String errorName, String... errorDetails) {
+        return new ErrorResponse(errorName, errorDetails);
+    }
+
     public String[] getErrorDetails() {
         return errorDetails;
     }
@@ -16,4 +26,4 @@ public class ErrorResponse {
     public String getErrorName() {
         return errorName;
     }
-}
\ No newline at end of file
+}
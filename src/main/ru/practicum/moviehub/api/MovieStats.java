@@ -0,0 +1,60 @@
+package ru.practicum.moviehub.api;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Сводка по каталогу для GET /movies/stats. minYear и maxYear — null, если каталог пуст;
+// десятилетие обозначается первым годом: 1990 — это 1990–1999
+public class MovieStats {
+    private final int total;
+    private final Integer minYear;
+    private final Integer maxYear;
+    private final NavigableMap<Integer, Integer> byYear;
+    private final NavigableMap<Integer, Integer> byDecade;
+
+    private MovieStats(int total, Integer minYear, Integer maxYear,
+                       NavigableMap<Integer, Integer> byYear, NavigableMap<Integer, Integer> byDecade) {
+        this.total = total;
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+        this.byYear = byYear;
+        this.byDecade = byDecade;
+    }
+
+    // yearCounts — число фильмов по годам без годов с нулём; всё считается за один проход по годам
+    public static MovieStats fromYearCounts(NavigableMap<Integer, Integer> yearCounts) {
+        int total = 0;
+        NavigableMap<Integer, Integer> byDecade = new TreeMap<>();
+        for (Map.Entry<Integer, Integer> entry : yearCounts.entrySet()) {
+            total += entry.getValue();
+            byDecade.merge(Math.floorDiv(entry.getKey(), 10) * 10, entry.getValue(), Integer::sum);
+        }
+        return new MovieStats(total,
+                yearCounts.isEmpty() ? null : yearCounts.firstKey(),
+                yearCounts.isEmpty() ? null : yearCounts.lastKey(),
+                Collections.unmodifiableNavigableMap(yearCounts),
+                Collections.unmodifiableNavigableMap(byDecade));
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public Integer getMinYear() {
+        return minYear;
+    }
+
+    public Integer getMaxYear() {
+        return maxYear;
+    }
+
+    public NavigableMap<Integer, Integer> getByYear() {
+        return byYear;
+    }
+
+    public NavigableMap<Integer, Integer> getByDecade() {
+        return byDecade;
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.moviehub.cache;
+
+import ru.practicum.moviehub.http.compression.EncodedBody;
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.store.MoviesStoreListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Кэш готовых UTF-8 тел ответа GET /movies/{id} вместе с их сжатыми вариантами. Разбит на сегменты с собственным LRU,
+// чтобы параллельные запросы к разным ID не конкурировали за один замок.
+public class MovieJsonCache implements MoviesStoreListener {
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public MovieJsonCache(int capacity) {
+        if (capacity < SEGMENTS) {
+            throw new IllegalArgumentException("Размер кэша должен быть не меньше " + SEGMENTS);
+        }
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity / SEGMENTS);
+        }
+    }
+
+    // Запись считается актуальной, только если закэширован тот же фильм, что сейчас лежит в хранилище:
+    // после удаления или clear() под тем же ID может оказаться другой фильм. Сравнение по значению, потому
+    // что хранилище вне кучи каждый раз создаёт новый объект Movie
+    public EncodedBody get(Movie movie) {
+        Segment segment = segmentFor(movie.getID());
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(movie.getID());
+        }
+        if (entry != null && entry.movie.equals(movie)) {
+            hits.increment();
+            return entry.body;
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(Movie movie, EncodedBody body) {
+        Segment segment = segmentFor(movie.getID());
+        synchronized (segment) {
+            segment.put(movie.getID(), new Entry(movie, body));
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void onMovieDeleted(Movie movie) {
+        Segment segment = segmentFor(movie.getID());
+        synchronized (segment) {
+            segment.remove(movie.getID());
+        }
+    }
+
+    @Override
+    public void onCleared() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private Segment segmentFor(int id) {
+        return segments[id & (SEGMENTS - 1)];
+    }
+
+    private static class Entry {
+        private final Movie movie;
+        private final EncodedBody body;
+
+        private Entry(Movie movie, EncodedBody body) {
+            this.movie = movie;
+            this.body = body;
+        }
+    }
+
+    private class Segment extends LinkedHashMap<Integer, Entry> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
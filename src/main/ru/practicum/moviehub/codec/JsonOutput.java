@@ -0,0 +1,178 @@
+package ru.practicum.moviehub.codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Пишет JSON сразу в UTF-8 байты собственного буфера. С потоком буфер сбрасывается по заполнении
+// и после close() возвращается в общий пул, без потока — растёт, и результат забирается через toByteArray()
+public final class JsonOutput implements Closeable {
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] MIN_INT = String.valueOf(Integer.MIN_VALUE).getBytes();
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    // Пул, а не ThreadLocal, по той же причине, что у Deflater в ResponseCompression: при виртуальных
+    // потоках каждый запрос — новый поток
+    private static final BlockingQueue<byte[]> STREAM_BUFFERS = new ArrayBlockingQueue<>(64);
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int position;
+
+    public JsonOutput(OutputStream out) {
+        this.out = out;
+        byte[] pooled = STREAM_BUFFERS.poll();
+        this.buffer = pooled != null ? pooled : new byte[STREAM_BUFFER_SIZE];
+    }
+
+    public JsonOutput(int capacity) {
+        this.out = null;
+        this.buffer = new byte[Math.max(16, capacity)];
+    }
+
+    public JsonOutput raw(char c) {
+        reserve(1);
+        buffer[position++] = (byte) c;
+        return this;
+    }
+
+    // Ключ вместе с двоеточием; ключи — ASCII без спецсимволов
+    public JsonOutput name(String name) {
+        reserve(name.length() + 3);
+        buffer[position++] = '"';
+        for (int i = 0; i < name.length(); i++) {
+            buffer[position++] = (byte) name.charAt(i);
+        }
+        buffer[position++] = '"';
+        buffer[position++] = ':';
+        return this;
+    }
+
+    public JsonOutput number(int value) {
+        if (value == Integer.MIN_VALUE) {
+            reserve(MIN_INT.length);
+            System.arraycopy(MIN_INT, 0, buffer, position, MIN_INT.length);
+            position += MIN_INT.length;
+            return this;
+        }
+        reserve(11);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+        return this;
+    }
+
+    public JsonOutput string(String value) {
+        // худший случай: каждый символ как \\uXXXX
+        reserve(value.length() * 6 + 2);
+        buffer[position++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                buffer[position++] = (byte) c;
+            } else if (c == '"' || c == '\\') {
+                buffer[position++] = '\\';
+                buffer[position++] = (byte) c;
+            } else if (c == '\n') {
+                buffer[position++] = '\\';
+                buffer[position++] = 'n';
+            } else if (c == '\r') {
+                buffer[position++] = '\\';
+                buffer[position++] = 'r';
+            } else if (c == '\t') {
+                buffer[position++] = '\\';
+                buffer[position++] = 't';
+            } else if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                // разделители строк U+2028/2029 ломают JSON, встроенный в JavaScript
+                buffer[position++] = '\\';
+                buffer[position++] = 'u';
+                buffer[position++] = HEX[c >> 12];
+                buffer[position++] = HEX[c >> 8 & 0xf];
+                buffer[position++] = HEX[c >> 4 & 0xf];
+                buffer[position++] = HEX[c & 0xf];
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xc0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xf0 | codePoint >> 18);
+                buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xe0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+                buffer[position++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        buffer[position++] = '"';
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        if (out != null) {
+            throw new IllegalStateException("Вывод идёт в поток");
+        }
+        // размер часто угадан точно, тогда буфер и есть результат
+        return position == buffer.length ? buffer : Arrays.copyOf(buffer, position);
+    }
+
+    public void flush() throws IOException {
+        if (out != null) {
+            out.write(buffer, 0, position);
+            position = 0;
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out == null || buffer == null) {
+            return;
+        }
+        try (out) {
+            out.write(buffer, 0, position);
+        } finally {
+            // выросший под длинную строку буфер в пул не возвращается
+            if (buffer.length == STREAM_BUFFER_SIZE) {
+                STREAM_BUFFERS.offer(buffer);
+            }
+            buffer = null;
+            position = 0;
+        }
+    }
+
+    private void reserve(int length) {
+        if (position + length <= buffer.length) {
+            return;
+        }
+        if (out != null && position > 0) {
+            try {
+                out.write(buffer, 0, position);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            position = 0;
+            if (length <= buffer.length) {
+                return;
+            }
+        }
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+    }
+}
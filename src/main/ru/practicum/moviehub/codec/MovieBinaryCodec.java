@@ -0,0 +1,129 @@
+package ru.practicum.moviehub.codec;
+
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Компактный двоичный формат фильмов для внутренних клиентов, альтернатива JSON.
+// Запись: varint длины записи, затем varint ID, zigzag-varint года, varint длины названия и само название в UTF-8.
+// Список — записи подряд до конца тела. В теле POST запись без ID.
+// Ошибки разбора — IllegalArgumentException
+public final class MovieBinaryCodec {
+    public static final String MEDIA_TYPE = "application/x-moviehub-binary";
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private MovieBinaryCodec() {
+    }
+
+    public static byte[] encode(Movie movie) {
+        return encode(List.of(movie));
+    }
+
+    public static byte[] encode(List<Movie> movies) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + movies.size() * 24);
+        try (MovieBinaryWriter writer = new MovieBinaryWriter(out)) {
+            for (Movie movie : movies) {
+                writer.write(movie);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] encode(NewMovie movie) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+        try (MovieBinaryWriter writer = new MovieBinaryWriter(out)) {
+            writer.write(movie);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static List<Movie> decodeMovies(byte[] body) {
+        List<Movie> movies = new ArrayList<>();
+        Cursor cursor = new Cursor(body);
+        while (cursor.position < body.length) {
+            int end = cursor.recordEnd();
+            int id = cursor.readVarint();
+            int year = cursor.readZigZag();
+            String title = cursor.readString();
+            cursor.expectEnd(end);
+            movies.add(new Movie(title, year, id));
+        }
+        return movies;
+    }
+
+    // Тело POST — ровно одна запись
+    public static NewMovie decodeNewMovie(byte[] body) {
+        Cursor cursor = new Cursor(body);
+        int end = cursor.recordEnd();
+        int year = cursor.readZigZag();
+        String title = cursor.readString();
+        cursor.expectEnd(end);
+        if (end != body.length) {
+            throw new IllegalArgumentException("После записи фильма остались лишние байты");
+        }
+        return new NewMovie(title, year);
+    }
+
+    private static final class Cursor {
+        private final byte[] bytes;
+        private int position;
+
+        private Cursor(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private int recordEnd() {
+            int length = readVarint();
+            if (length <= 0 || length > MAX_RECORD_LENGTH || length > bytes.length - position) {
+                throw new IllegalArgumentException("Некорректная длина записи: " + length);
+            }
+            return position + length;
+        }
+
+        private int readVarint() {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (position == bytes.length) {
+                    throw new IllegalArgumentException("Запись обрывается");
+                }
+                byte b = bytes[position++];
+                result |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Слишком длинный varint");
+        }
+
+        private int readZigZag() {
+            int value = readVarint();
+            return value >>> 1 ^ -(value & 1);
+        }
+
+        private String readString() {
+            int length = readVarint();
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalArgumentException("Некорректная длина названия: " + length);
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private void expectEnd(int end) {
+            if (position != end) {
+                throw new IllegalArgumentException("Длина записи не совпадает с её содержимым");
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.moviehub.codec;
+
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+// Пишет записи MovieBinaryCodec в поток через собственный буфер, без рефлексии и промежуточных объектов
+public final class MovieBinaryWriter implements Closeable {
+    private final OutputStream out;
+    private byte[] buffer = new byte[8192];
+    private int position;
+
+    public MovieBinaryWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public void write(Movie movie) throws IOException {
+        String title = movie.getTitle();
+        int titleLength = Utf8.length(title);
+        int year = zigZag(movie.getYear());
+        int payload = varintSize(movie.getID()) + varintSize(year) + varintSize(titleLength) + titleLength;
+        reserve(varintSize(payload) + payload);
+        writeVarint(payload);
+        writeVarint(movie.getID());
+        writeVarint(year);
+        writeVarint(titleLength);
+        position = Utf8.encode(title, buffer, position);
+    }
+
+    public void write(NewMovie movie) throws IOException {
+        String title = movie.getTitle();
+        int titleLength = Utf8.length(title);
+        int year = zigZag(movie.getYear());
+        int payload = varintSize(year) + varintSize(titleLength) + titleLength;
+        reserve(varintSize(payload) + payload);
+        writeVarint(payload);
+        writeVarint(year);
+        writeVarint(titleLength);
+        position = Utf8.encode(title, buffer, position);
+    }
+
+    public void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (out) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    static int zigZag(int value) {
+        return value << 1 ^ value >> 31;
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private void reserve(int length) throws IOException {
+        if (position + length <= buffer.length) {
+            return;
+        }
+        out.write(buffer, 0, position);
+        position = 0;
+        if (length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, length);
+        }
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer[position++] = (byte) (value & 0x7f | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+}
@@ -0,0 +1,445 @@
+package ru.practicum.moviehub.codec;
+
+import ru.practicum.moviehub.api.BatchItemResult;
+import ru.practicum.moviehub.api.ErrorResponse;
+import ru.practicum.moviehub.api.MovieStats;
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+// JSON для моделей API без рефлексии: поля пишутся в том же порядке и с теми же именами, что у Gson,
+// null-поля пропускаются. Тело POST разбирается за один проход, без дерева JsonElement.
+// Ошибки разбора — IllegalArgumentException
+public final class MovieJsonCodec {
+    private static final int MAX_DEPTH = 64;
+
+    private MovieJsonCodec() {
+    }
+
+    public static void write(JsonOutput out, Movie movie) {
+        out.raw('{').name("title").string(movie.getTitle())
+                .raw(',').name("year").number(movie.getYear())
+                .raw(',').name("id").number(movie.getID())
+                .raw('}');
+    }
+
+    public static void write(JsonOutput out, List<Movie> movies) {
+        out.raw('[');
+        for (int i = 0; i < movies.size(); i++) {
+            if (i > 0) {
+                out.raw(',');
+            }
+            write(out, movies.get(i));
+        }
+        out.raw(']');
+    }
+
+    public static void write(JsonOutput out, ErrorResponse error) {
+        out.raw('{').name("errorName").string(error.getErrorName());
+        String[] details = error.getErrorDetails();
+        if (details != null) {
+            out.raw(',').name("errorDetails").raw('[');
+            for (int i = 0; i < details.length; i++) {
+                if (i > 0) {
+                    out.raw(',');
+                }
+                out.string(details[i]);
+            }
+            out.raw(']');
+        }
+        out.raw('}');
+    }
+
+    public static void write(JsonOutput out, BatchItemResult result) {
+        out.raw('{');
+        if (result.getIndex() != null) {
+            out.name("index").number(result.getIndex()).raw(',');
+        }
+        if (result.getId() != null) {
+            out.name("id").number(result.getId()).raw(',');
+        }
+        out.name("status").number(result.getStatus());
+        if (result.getMovie() != null) {
+            out.raw(',').name("movie");
+            write(out, result.getMovie());
+        }
+        if (result.getError() != null) {
+            out.raw(',').name("error");
+            write(out, result.getError());
+        }
+        out.raw('}');
+    }
+
+    public static void write(JsonOutput out, MovieStats stats) {
+        out.raw('{').name("total").number(stats.getTotal());
+        if (stats.getMinYear() != null) {
+            out.raw(',').name("minYear").number(stats.getMinYear())
+                    .raw(',').name("maxYear").number(stats.getMaxYear());
+        }
+        out.raw(',').name("byYear");
+        writeCounts(out, stats.getByYear());
+        out.raw(',').name("byDecade");
+        writeCounts(out, stats.getByDecade());
+        out.raw('}');
+    }
+
+    public static byte[] encode(Movie movie) {
+        JsonOutput out = new JsonOutput(40 + movie.getTitle().length() * 3);
+        write(out, movie);
+        return out.toByteArray();
+    }
+
+    public static byte[] encode(List<Movie> movies) {
+        JsonOutput out = new JsonOutput(2 + movies.size() * 64);
+        write(out, movies);
+        return out.toByteArray();
+    }
+
+    public static byte[] encode(MovieStats stats) {
+        JsonOutput out = new JsonOutput(64 + stats.getByYear().size() * 12);
+        write(out, stats);
+        return out.toByteArray();
+    }
+
+    public static byte[] encode(ErrorResponse error) {
+        JsonOutput out = new JsonOutput(128);
+        write(out, error);
+        return out.toByteArray();
+    }
+
+    // Ключи-числа записываются строками, как у Gson для Map<Integer, Integer>
+    private static void writeCounts(JsonOutput out, Map<Integer, Integer> counts) {
+        out.raw('{');
+        boolean first = true;
+        for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+            if (!first) {
+                out.raw(',');
+            }
+            first = false;
+            out.name(String.valueOf(entry.getKey())).number(entry.getValue());
+        }
+        out.raw('}');
+    }
+
+    // Объект с полями title (строка) и year (целое число или строка с ним); прочие поля пропускаются
+    public static NewMovie decodeNewMovie(byte[] body) {
+        return decodeNewMovie(body, 0, body.length);
+    }
+
+    // То же для фильма в bytes[offset, offset + length): элемента пакета или строки NDJSON
+    public static NewMovie decodeNewMovie(byte[] bytes, int offset, int length) {
+        Parser parser = new Parser(bytes, offset, length);
+        parser.expect('{');
+        String title = null;
+        Integer year = null;
+        if (!parser.consume('}')) {
+            do {
+                String name = parser.readString();
+                parser.expect(':');
+                switch (name) {
+                    case "title" -> title = parser.consumeNull() ? null : parser.readString();
+                    case "year" -> year = parser.consumeNull() ? null : parser.readInt();
+                    default -> parser.skipValue(0);
+                }
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.expectEnd();
+        if (title == null || year == null) {
+            throw new IllegalArgumentException("В теле запроса должны быть поля title и year");
+        }
+        return new NewMovie(title, year);
+    }
+
+    // true — в диапазоне ровно одно JSON-значение; значение только проверяется, но не строится
+    public static boolean isValue(byte[] bytes, int offset, int length) {
+        Parser parser = new Parser(bytes, offset, length);
+        try {
+            parser.skipValue(0);
+            parser.expectEnd();
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Отдаёт границы элементов JSON-массива по одному, проверяя только синтаксис; что в элементах —
+    // решает consumer. Тело не массив или синтаксис нарушен — IllegalArgumentException
+    public static void forEachElement(byte[] body, ElementConsumer consumer) {
+        Parser parser = new Parser(body, 0, body.length);
+        parser.expect('[');
+        if (!parser.consume(']')) {
+            do {
+                parser.skipWhitespace();
+                int start = parser.position;
+                parser.skipValue(0);
+                consumer.accept(start, parser.position - start);
+            } while (parser.consume(','));
+            parser.expect(']');
+        }
+        parser.expectEnd();
+    }
+
+    @FunctionalInterface
+    public interface ElementConsumer {
+        void accept(int offset, int length);
+    }
+
+    private static final class Parser {
+        private final byte[] bytes;
+        private final int end;
+        private int position;
+
+        private Parser(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("ожидался '" + c + "'");
+            }
+        }
+
+        private boolean consume(char c) {
+            skipWhitespace();
+            if (position < end && bytes[position] == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean consumeNull() {
+            skipWhitespace();
+            if (matches("null")) {
+                position += 4;
+                return true;
+            }
+            return false;
+        }
+
+        private void expectEnd() {
+            skipWhitespace();
+            if (position != end) {
+                throw error("лишние данные после JSON");
+            }
+        }
+
+        private String readString() {
+            expect('"');
+            int start = position;
+            while (position < end) {
+                byte b = bytes[position];
+                if (b == '"') {
+                    position++;
+                    return new String(bytes, start, position - 1 - start, StandardCharsets.UTF_8);
+                }
+                if (b == '\\') {
+                    return readEscapedString(start);
+                }
+                if (b >= 0 && b < 0x20) {
+                    throw error("управляющий символ в строке");
+                }
+                position++;
+            }
+            throw error("строка не закрыта");
+        }
+
+        // Медленный путь: в строке есть escape-последовательности
+        private String readEscapedString(int start) {
+            StringBuilder result = new StringBuilder(position - start + 16);
+            int segment = start;
+            while (position < end) {
+                byte b = bytes[position];
+                if (b == '"') {
+                    result.append(new String(bytes, segment, position - segment, StandardCharsets.UTF_8));
+                    position++;
+                    return result.toString();
+                }
+                if (b >= 0 && b < 0x20) {
+                    throw error("управляющий символ в строке");
+                }
+                if (b != '\\') {
+                    position++;
+                    continue;
+                }
+                result.append(new String(bytes, segment, position - segment, StandardCharsets.UTF_8));
+                if (++position == end) {
+                    break;
+                }
+                char escaped = (char) bytes[position++];
+                switch (escaped) {
+                    case '"', '\\', '/' -> result.append(escaped);
+                    case 'b' -> result.append('\b');
+                    case 'f' -> result.append('\f');
+                    case 'n' -> result.append('\n');
+                    case 'r' -> result.append('\r');
+                    case 't' -> result.append('\t');
+                    case 'u' -> result.append(readHexChar());
+                    default -> throw error("неизвестная escape-последовательность");
+                }
+                segment = position;
+            }
+            throw error("строка не закрыта");
+        }
+
+        private char readHexChar() {
+            if (position + 4 > end) {
+                throw error("обрыв \\u-последовательности");
+            }
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(bytes[position++], 16);
+                if (digit < 0) {
+                    throw error("некорректная \\u-последовательность");
+                }
+                value = value << 4 | digit;
+            }
+            return (char) value;
+        }
+
+        // Целое число или строка с целым числом, как принимает JsonElement.getAsInt
+        private int readInt() {
+            skipWhitespace();
+            if (position < end && bytes[position] == '"') {
+                return Integer.parseInt(readString().trim());
+            }
+            int start = position;
+            if (position < end && bytes[position] == '-') {
+                position++;
+            }
+            long value = 0;
+            int digits = 0;
+            while (position < end && bytes[position] >= '0' && bytes[position] <= '9') {
+                value = value * 10 + (bytes[position++] - '0');
+                if (++digits > 10) {
+                    throw error("число слишком большое");
+                }
+            }
+            if (digits == 0) {
+                throw error("ожидалось число");
+            }
+            if (position < end && (bytes[position] == '.' || bytes[position] == 'e' || bytes[position] == 'E')) {
+                throw error("год должен быть целым числом");
+            }
+            value = bytes[start] == '-' ? -value : value;
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw error("число слишком большое");
+            }
+            return (int) value;
+        }
+
+        private void skipValue(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw error("слишком глубокая вложенность");
+            }
+            skipWhitespace();
+            if (position == end) {
+                throw error("ожидалось значение");
+            }
+            switch (bytes[position]) {
+                case '"' -> readString();
+                case '{' -> {
+                    position++;
+                    if (!consume('}')) {
+                        do {
+                            readString();
+                            expect(':');
+                            skipValue(depth + 1);
+                        } while (consume(','));
+                        expect('}');
+                    }
+                }
+                case '[' -> {
+                    position++;
+                    if (!consume(']')) {
+                        do {
+                            skipValue(depth + 1);
+                        } while (consume(','));
+                        expect(']');
+                    }
+                }
+                case 't' -> skipLiteral("true");
+                case 'f' -> skipLiteral("false");
+                case 'n' -> skipLiteral("null");
+                default -> skipNumber();
+            }
+        }
+
+        private void skipLiteral(String literal) {
+            if (!matches(literal)) {
+                throw error("ожидалось " + literal);
+            }
+            position += literal.length();
+        }
+
+        // -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?
+        private void skipNumber() {
+            if (position < end && bytes[position] == '-') {
+                position++;
+            }
+            int start = position;
+            int digits = skipDigits();
+            if (digits == 0) {
+                throw error("ожидалось значение");
+            }
+            if (digits > 1 && bytes[start] == '0') {
+                throw error("число с ведущим нулём");
+            }
+            if (position < end && bytes[position] == '.') {
+                position++;
+                if (skipDigits() == 0) {
+                    throw error("ожидалась дробная часть");
+                }
+            }
+            if (position < end && (bytes[position] == 'e' || bytes[position] == 'E')) {
+                position++;
+                if (position < end && (bytes[position] == '+' || bytes[position] == '-')) {
+                    position++;
+                }
+                if (skipDigits() == 0) {
+                    throw error("ожидался порядок");
+                }
+            }
+        }
+
+        private int skipDigits() {
+            int start = position;
+            while (position < end && bytes[position] >= '0' && bytes[position] <= '9') {
+                position++;
+            }
+            return position - start;
+        }
+
+        private boolean matches(String literal) {
+            if (position + literal.length() > end) {
+                return false;
+            }
+            for (int i = 0; i < literal.length(); i++) {
+                if (bytes[position + i] != literal.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void skipWhitespace() {
+            while (position < end) {
+                byte b = bytes[position];
+                if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                    return;
+                }
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Некорректный JSON в позиции " + position + ": " + message);
+        }
+    }
+}
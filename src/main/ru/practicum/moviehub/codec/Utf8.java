@@ -0,0 +1,54 @@
+package ru.practicum.moviehub.codec;
+
+// Кодирование UTF-8 прямо в массив, без промежуточного byte[] от String.getBytes.
+// Непарный суррогат кодируется как '?', как это делает String.getBytes
+final class Utf8 {
+    private Utf8() {
+    }
+
+    static int length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    // Возвращает позицию после записанных байт; места должно хватать на length(s)
+    static int encode(String s, byte[] target, int position) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                target[position++] = (byte) c;
+            } else if (c < 0x800) {
+                target[position++] = (byte) (0xc0 | c >> 6);
+                target[position++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                target[position++] = (byte) (0xf0 | codePoint >> 18);
+                target[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                target[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                target[position++] = (byte) (0x80 | codePoint & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                target[position++] = '?';
+            } else {
+                target[position++] = (byte) (0xe0 | c >> 12);
+                target[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+                target[position++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        return position;
+    }
+}
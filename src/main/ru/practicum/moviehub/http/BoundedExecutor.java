@@ -0,0 +1,39 @@
+package ru.practicum.moviehub.http;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+// Ограничивает число одновременно обрабатываемых запросов. Если лимит исчерпан,
+// поток-диспетчер ждёт, и новые соединения копятся в очереди accept (backlog).
+class BoundedExecutor implements Executor {
+    private final Executor delegate;
+    private final Semaphore permits;
+
+    BoundedExecutor(Executor delegate, int maxInFlight) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Поток-диспетчер прерван", e);
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+}
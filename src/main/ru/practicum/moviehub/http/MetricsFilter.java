@@ -0,0 +1,36 @@
+package ru.practicum.moviehub.http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import ru.practicum.moviehub.metrics.RequestMetrics;
+
+import java.io.IOException;
+
+// Считает запросы и время их обработки вокруг обработчиков /movies
+class MetricsFilter extends Filter {
+    private final RequestMetrics metrics;
+
+    MetricsFilter(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long started = System.nanoTime();
+        int method = RequestMetrics.methodIndex(exchange.getRequestMethod());
+        int route = RequestMetrics.routeIndex(exchange.getRequestURI().getRawPath());
+        metrics.started();
+        int status = 500;
+        try {
+            chain.doFilter(exchange);
+            status = exchange.getResponseCode();
+        } finally {
+            metrics.finished(method, route, status, System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Метрики запросов";
+    }
+}
@@ -1,30 +1,124 @@
 package ru.practicum.moviehub.http;
 
-import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.Filter;
+import ru.practicum.moviehub.cache.MovieJsonCache;
+import ru.practicum.moviehub.http.admission.AdmissionFilter;
+import ru.practicum.moviehub.http.compression.ResponseCompression;
+import ru.practicum.moviehub.http.engine.ServerEngine;
+import ru.practicum.moviehub.http.handlers.MetricsHandler;
+import ru.practicum.moviehub.http.handlers.MoviesBatchHandler;
 import ru.practicum.moviehub.http.handlers.MoviesHandler;
-import ru.practicum.moviehub.store.MoviesStore;
+import ru.practicum.moviehub.metrics.MetricsRegistry;
+import ru.practicum.moviehub.store.MoviesCatalog;
 
-import java.io.IOException;
-import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 public class MoviesServer {
-    private final HttpServer server;
-    private final MoviesStore moviesStore;
+    private final ServerEngine engine;
+    private final MoviesCatalog moviesStore;
+    private final ExecutorService executor;
+    private final MovieJsonCache movieCache;
+    private final ResponseCompression compression;
+    private final AdmissionFilter admission;
+    private final boolean readOnly;
+    private final BooleanSupplier replicaSynced;
+    private final MetricsRegistry metrics = new MetricsRegistry();
 
-    public MoviesServer(MoviesStore moviesStore, int socketNumber) {
-        this.moviesStore = moviesStore;
+    public MoviesServer(MoviesCatalog moviesStore, int socketNumber) {
+        this(moviesStore, socketNumber, new ServerConfig());
+    }
 
-        try {
-            server = HttpServer.create(new InetSocketAddress(socketNumber), 0);
-        } catch (IOException e) {
-            throw new RuntimeException("Не удалось создать HTTP-сервер", e);
+    public MoviesServer(MoviesCatalog moviesStore, int socketNumber, ServerConfig config) {
+        this.moviesStore = moviesStore;
+        this.executor = config.createExecutor();
+        this.compression = new ResponseCompression(config.getCompressionMinSize());
+        this.admission = config.createAdmissionFilter();
+        this.readOnly = config.isReadOnly();
+        this.replicaSynced = config.getReplicaSynced();
+        if (config.getMovieCacheSize() > 0) {
+            movieCache = new MovieJsonCache(config.getMovieCacheSize());
+            moviesStore.addListener(movieCache);
+        } else {
+            movieCache = null;
         }
 
+        // null — обработчики выполняются в потоке-диспетчере сервера
+        engine = config.createEngine(socketNumber, executor);
+
         creatingContext(moviesStore);
+        registerMetrics();
+    }
+
+    public void creatingContext(MoviesCatalog moviesStore) {
+        MetricsFilter metricsFilter = new MetricsFilter(metrics.requests());
+        engine.createContext("/movies", new MoviesHandler(moviesStore, movieCache, compression),
+                filters(metricsFilter));
+        engine.createContext("/movies/batch", new MoviesBatchHandler(moviesStore, compression),
+                filters(metricsFilter));
+        engine.createContext("/metrics", new MetricsHandler(metrics, compression), List.of());
     }
 
-    public void creatingContext(MoviesStore moviesStore) {
-        server.createContext("/movies", new MoviesHandler(moviesStore));
+    // Отказы по лимитам попадают в метрики запросов со статусами 429 и 503; /metrics не ограничивается
+    private List<Filter> filters(MetricsFilter metricsFilter) {
+        List<Filter> filters = new ArrayList<>();
+        filters.add(metricsFilter);
+        if (admission != null) {
+            filters.add(admission);
+        }
+        if (replicaSynced != null) {
+            filters.add(new ReplicaSyncFilter(replicaSynced));
+        }
+        if (readOnly) {
+            filters.add(new ReadOnlyFilter());
+        }
+        return filters;
+    }
+
+    public MovieJsonCache getMovieCache() {
+        return movieCache;
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    private void registerMetrics() {
+        metrics.gauge("moviehub_store_movies", "Число фильмов в хранилище", moviesStore::size);
+        metrics.gauge("moviehub_title_index_tokens", "Различные слова в индексе названий",
+                moviesStore::titleIndexTokens);
+        if (movieCache != null) {
+            metrics.counter("moviehub_movie_cache_hits_total", "Попадания в кэш ответов GET /movies/{id}",
+                    movieCache::getHits);
+            metrics.counter("moviehub_movie_cache_misses_total", "Промахи кэша ответов GET /movies/{id}",
+                    movieCache::getMisses);
+            metrics.counter("moviehub_movie_cache_evictions_total", "Вытеснения из кэша ответов",
+                    movieCache::getEvictions);
+            metrics.gauge("moviehub_movie_cache_entries", "Число ответов в кэше", movieCache::size);
+        }
+        if (admission != null) {
+            metrics.counter("moviehub_rate_limited_total", "Запросы, отклонённые лимитом на клиента (429)",
+                    admission::getRateLimited);
+            metrics.counter("moviehub_overloaded_total", "Запросы, отклонённые общим лимитом одновременных (503)",
+                    admission::getOverloaded);
+            metrics.gauge("moviehub_admitted_in_flight", "Запросы, пропущенные к обработчикам и ещё не завершённые",
+                    admission::getInFlight);
+            if (admission.getRateLimiter() != null) {
+                metrics.gauge("moviehub_rate_limiter_clients", "Адреса клиентов, для которых хранится лимит",
+                        admission.getRateLimiter()::clients);
+            }
+        }
+        if (compression.isEnabled()) {
+            metrics.counter("moviehub_compressions_total", "Сжатия тел ответов (без готовых вариантов из кэша)",
+                    compression::getCompressions);
+            metrics.counter("moviehub_compression_input_bytes_total", "Байты ответов до сжатия",
+                    compression::getBytesIn);
+            metrics.counter("moviehub_compression_output_bytes_total", "Байты ответов после сжатия",
+                    compression::getBytesOut);
+        }
     }
 
     public void clearStorage() {
@@ -32,12 +126,23 @@ public class MoviesServer {
     }
 
     public void start() {
-        server.start();
+        engine.start();
         System.out.println("Сервер запущен");
     }
 
     public void stop() {
-        server.stop(2);
+        engine.stop(2);
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
         System.out.println("Сервер остановлен");
     }
-}
\ No newline at end of file
+}
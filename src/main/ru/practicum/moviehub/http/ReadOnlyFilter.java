@@ -0,0 +1,35 @@
+package ru.practicum.moviehub.http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import ru.practicum.moviehub.api.ErrorResponse;
+import ru.practicum.moviehub.codec.MovieJsonCodec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// На реплике каталог меняется только потоком изменений с основного узла, поэтому всё, кроме чтения, получает 405
+class ReadOnlyFilter extends Filter {
+    private static final byte[] READ_ONLY_BODY = MovieJsonCodec.encode(ErrorResponse.of("Method Not Allowed",
+            "Реплика принимает только запросы на чтение, изменения отправляйте на основной узел"));
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (method.equals("GET") || method.equals("HEAD")) {
+            chain.doFilter(exchange);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+        exchange.sendResponseHeaders(405, READ_ONLY_BODY.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(READ_ONLY_BODY);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Только чтение на реплике";
+    }
+}
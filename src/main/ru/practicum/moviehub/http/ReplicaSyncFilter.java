@@ -0,0 +1,41 @@
+package ru.practicum.moviehub.http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import ru.practicum.moviehub.api.ErrorResponse;
+import ru.practicum.moviehub.codec.MovieJsonCodec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.BooleanSupplier;
+
+// Пока реплика грузит снимок, её каталог пуст или неполон: лучше 503, чем ответ, которого не было на основном узле
+class ReplicaSyncFilter extends Filter {
+    private static final byte[] SYNCING_BODY = MovieJsonCodec.encode(ErrorResponse.of("Service Unavailable",
+            "Реплика загружает каталог с основного узла, повторите запрос позже"));
+
+    private final BooleanSupplier synced;
+
+    ReplicaSyncFilter(BooleanSupplier synced) {
+        this.synced = synced;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (synced.getAsBoolean()) {
+            chain.doFilter(exchange);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        exchange.sendResponseHeaders(503, SYNCING_BODY.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(SYNCING_BODY);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "503, пока реплика не загрузила снимок";
+    }
+}
@@ -0,0 +1,284 @@
+package ru.practicum.moviehub.http;
+
+import ru.practicum.moviehub.AppArguments;
+import ru.practicum.moviehub.http.admission.AdmissionFilter;
+import ru.practicum.moviehub.http.admission.ClientRateLimiter;
+import ru.practicum.moviehub.http.engine.JdkServerEngine;
+import ru.practicum.moviehub.http.engine.NioServerEngine;
+import ru.practicum.moviehub.http.engine.ServerEngine;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.Executors;
+
+public class ServerConfig {
+    public enum ExecutorMode {
+        DISPATCHER,
+        FIXED,
+        VIRTUAL
+    }
+
+    public enum Engine {
+        // com.sun.net.httpserver.HttpServer
+        JDK,
+        // собственный сервер на одном селекторе NIO
+        NIO
+    }
+
+    private ExecutorMode executorMode = ExecutorMode.DISPATCHER;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int backlog = 0;
+    private int maxInFlight = 0;
+    private int movieCacheSize = 10_000;
+    private int compressionMinSize = 1024;
+    private int rateLimit = 0;
+    private int rateBurst = 0;
+    private int maxConcurrent = 0;
+    private boolean readOnly = false;
+    private BooleanSupplier replicaSynced;
+    private Engine engine = Engine.JDK;
+    private int keepAliveMillis = 30_000;
+    private int idleTimeoutMillis = 10_000;
+    private int maxKeepAliveRequests = 0;
+    private int bufferSize = 16 * 1024;
+    private boolean tcpNoDelay = true;
+
+    public static ServerConfig fromArgs(AppArguments args) {
+        ServerConfig defaults = new ServerConfig();
+        ServerConfig config = new ServerConfig()
+                .executorMode(ExecutorMode.valueOf(args.get("executor", "fixed").toUpperCase()))
+                .threads(args.getInt("threads", defaults.threads))
+                .backlog(args.getInt("backlog", defaults.backlog))
+                .maxInFlight(args.getInt("max-in-flight", defaults.maxInFlight))
+                .movieCacheSize(args.getInt("movie-cache-size", defaults.movieCacheSize))
+                .compressionMinSize(args.getInt("compression-min-size", defaults.compressionMinSize))
+                .rateLimit(args.getInt("rate-limit", defaults.rateLimit))
+                .rateBurst(args.getInt("rate-burst", defaults.rateBurst))
+                .maxConcurrent(args.getInt("max-concurrent", defaults.maxConcurrent))
+                .engine(Engine.valueOf(args.get("engine", "jdk").toUpperCase()))
+                .keepAliveMillis(args.getInt("keep-alive-ms", defaults.keepAliveMillis))
+                .idleTimeoutMillis(args.getInt("idle-timeout-ms", defaults.idleTimeoutMillis))
+                .maxKeepAliveRequests(args.getInt("keep-alive-requests", defaults.maxKeepAliveRequests))
+                .bufferSize(args.getInt("buffer-size", defaults.bufferSize))
+                .tcpNoDelay(Boolean.parseBoolean(args.get("tcp-nodelay", String.valueOf(defaults.tcpNoDelay))));
+        // В потоке-диспетчере запросы и так идут по одному: ограничивать нечего
+        if (config.maxInFlight > 0 && config.executorMode == ExecutorMode.DISPATCHER) {
+            throw new IllegalArgumentException("--max-in-flight несовместим с --executor=dispatcher");
+        }
+        return config;
+    }
+
+    public ServerConfig executorMode(ExecutorMode executorMode) {
+        this.executorMode = executorMode;
+        return this;
+    }
+
+    public ServerConfig threads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Число потоков должно быть положительным");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    public ServerConfig backlog(int backlog) {
+        this.backlog = backlog;
+        return this;
+    }
+
+    public ServerConfig maxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    public ServerConfig movieCacheSize(int movieCacheSize) {
+        this.movieCacheSize = movieCacheSize;
+        return this;
+    }
+
+    // Тела короче не сжимаются; -1 — сжатие выключено
+    public ServerConfig compressionMinSize(int compressionMinSize) {
+        this.compressionMinSize = compressionMinSize;
+        return this;
+    }
+
+    // Запросов в секунду с одного адреса; 0 — без ограничения
+    public ServerConfig rateLimit(int rateLimit) {
+        if (rateLimit < 0) {
+            throw new IllegalArgumentException("Лимит запросов не может быть отрицательным");
+        }
+        this.rateLimit = rateLimit;
+        return this;
+    }
+
+    // Сколько запросов клиент может сделать подряд сверх равномерного темпа; 0 — столько же, сколько rateLimit
+    public ServerConfig rateBurst(int rateBurst) {
+        if (rateBurst < 0) {
+            throw new IllegalArgumentException("Запас запросов не может быть отрицательным");
+        }
+        this.rateBurst = rateBurst;
+        return this;
+    }
+
+    // В отличие от maxInFlight, лишние запросы сразу получают 503, а не ждут; 0 — без ограничения
+    public ServerConfig maxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+        return this;
+    }
+
+    // Реплика: запросы, кроме GET и HEAD, отклоняются с 405
+    public ServerConfig readOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+        return this;
+    }
+
+    // Реплика: пока synced ложно (снимок с основного узла ещё грузится), запросы к каталогу получают 503
+    public ServerConfig replicaSynced(BooleanSupplier synced) {
+        this.replicaSynced = synced;
+        return this;
+    }
+
+    public ServerConfig engine(Engine engine) {
+        this.engine = engine;
+        return this;
+    }
+
+    // Сколько соединение может простаивать между запросами, прежде чем сервер его закроет
+    public ServerConfig keepAliveMillis(int keepAliveMillis) {
+        if (keepAliveMillis <= 0) {
+            throw new IllegalArgumentException("Время keep-alive должно быть положительным");
+        }
+        this.keepAliveMillis = keepAliveMillis;
+        return this;
+    }
+
+    // Сколько можно ждать продолжения начатого запроса или приёма ответа клиентом; только для NIO
+    public ServerConfig idleTimeoutMillis(int idleTimeoutMillis) {
+        if (idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Тайм-аут простоя должен быть положительным");
+        }
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    // После стольких запросов соединение закрывается (Connection: close); 0 — без ограничения; только для NIO
+    public ServerConfig maxKeepAliveRequests(int maxKeepAliveRequests) {
+        if (maxKeepAliveRequests < 0) {
+            throw new IllegalArgumentException("Число запросов на соединение не может быть отрицательным");
+        }
+        this.maxKeepAliveRequests = maxKeepAliveRequests;
+        return this;
+    }
+
+    // Размер прямых буферов чтения и записи NIO
+    public ServerConfig bufferSize(int bufferSize) {
+        if (bufferSize < 1024 || bufferSize > 1 << 24) {
+            throw new IllegalArgumentException("Размер буфера должен быть от 1024 байт до 16 МБ");
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    // Без TCP_NODELAY ответ, записанный двумя сегментами, ждёт отложенного ACK клиента (~40 мс)
+    public ServerConfig tcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    public ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getMovieCacheSize() {
+        return movieCacheSize;
+    }
+
+    public int getCompressionMinSize() {
+        return compressionMinSize;
+    }
+
+    public int getRateLimit() {
+        return rateLimit;
+    }
+
+    public int getRateBurst() {
+        return rateBurst;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    BooleanSupplier getReplicaSynced() {
+        return replicaSynced;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public int getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    public int getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public int getMaxKeepAliveRequests() {
+        return maxKeepAliveRequests;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    ExecutorService createExecutor() {
+        return switch (executorMode) {
+            case DISPATCHER -> null;
+            case FIXED -> Executors.newFixedThreadPool(threads);
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+        };
+    }
+
+    // executor null — обработчики по одному выполняются в потоке-диспетчере jdk или в отдельном потоке nio.
+    // Для jdk лимит maxInFlight держит BoundedExecutor, nio соблюдает его сам: ждать места в потоке селектора нельзя
+    ServerEngine createEngine(int port, Executor executor) {
+        return switch (engine) {
+            case JDK -> new JdkServerEngine(port, this,
+                    executor != null && maxInFlight > 0 ? new BoundedExecutor(executor, maxInFlight) : executor);
+            case NIO -> new NioServerEngine(port, this, executor);
+        };
+    }
+
+    // null — ограничения выключены
+    AdmissionFilter createAdmissionFilter() {
+        if (rateLimit == 0 && maxConcurrent <= 0) {
+            return null;
+        }
+        ClientRateLimiter limiter = rateLimit == 0 ? null
+                : new ClientRateLimiter(rateLimit, rateBurst == 0 ? rateLimit : rateBurst);
+        return new AdmissionFilter(limiter, maxConcurrent);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.moviehub.http.admission;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import ru.practicum.moviehub.api.ErrorResponse;
+import ru.practicum.moviehub.codec.MovieJsonCodec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Пропускает запрос к обработчику, только если клиент не превысил свой лимит (иначе 429)
+// и одновременно выполняется меньше maxConcurrent запросов (иначе 503). Отказ не ждёт и не трогает хранилище.
+// Один экземпляр ставится на все контексты, которые делят общий лимит
+public class AdmissionFilter extends Filter {
+    private static final String CT_JSON = "application/json; charset=UTF-8";
+    private static final byte[] TOO_MANY_REQUESTS_BODY = MovieJsonCodec.encode(ErrorResponse.of(
+            "Слишком много запросов", "Превышен лимит запросов с этого адреса"));
+    private static final byte[] OVERLOADED_BODY = MovieJsonCodec.encode(ErrorResponse.of(
+            "Сервер перегружен", "Повторите запрос позже"));
+
+    private final ClientRateLimiter rateLimiter;
+    private final int maxConcurrent;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder overloaded = new LongAdder();
+
+    // rateLimiter == null — без лимита на клиента, maxConcurrent <= 0 — без общего лимита
+    public AdmissionFilter(ClientRateLimiter rateLimiter, int maxConcurrent) {
+        this.rateLimiter = rateLimiter;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (rateLimiter != null) {
+            long wait = rateLimiter.acquire(exchange.getRemoteAddress().getAddress());
+            if (wait > 0) {
+                rateLimited.increment();
+                reject(exchange, 429, TOO_MANY_REQUESTS_BODY, wait);
+                return;
+            }
+        }
+        if (maxConcurrent <= 0) {
+            chain.doFilter(exchange);
+            return;
+        }
+        if (inFlight.incrementAndGet() > maxConcurrent) {
+            inFlight.decrementAndGet();
+            overloaded.increment();
+            reject(exchange, 503, OVERLOADED_BODY, TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public ClientRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRateLimited() {
+        return rateLimited.sum();
+    }
+
+    public long getOverloaded() {
+        return overloaded.sum();
+    }
+
+    @Override
+    public String description() {
+        return "Ограничение частоты и числа одновременных запросов";
+    }
+
+    private static void reject(HttpExchange exchange, int status, byte[] body, long waitNanos) throws IOException {
+        long seconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        exchange.getResponseHeaders().set("Content-Type", CT_JSON);
+        exchange.getResponseHeaders().set("Retry-After", Long.toString(seconds));
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.moviehub.http.admission;
+
+import java.net.InetAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Token bucket на каждый адрес клиента: rate запросов в секунду и запас в burst запросов.
+// Корзина хранится одним числом — моментом, когда она снова станет полной (как в GCRA), —
+// поэтому взятие токена — это один CAS без блокировок
+public class ClientRateLimiter {
+    // Когда клиентов больше, полные корзины выбрасываются: новая корзина ничем от них не отличается
+    private static final int SWEEP_THRESHOLD = 100_000;
+    private static final long MIN_SWEEP_INTERVAL = 1_000_000_000L;
+
+    private final long interval;
+    private final long capacity;
+    private final LongSupplier clock;
+    private final int sweepThreshold;
+    // Обход всех корзин — O(n), поэтому не чаще раза за sweepInterval: иначе при множестве активных
+    // клиентов каждый новый адрес обходил бы их заново, ничего не удаляя
+    private final long sweepInterval;
+    private final AtomicLong nextSweep;
+    private final ConcurrentHashMap<InetAddress, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public ClientRateLimiter(int rate, int burst) {
+        this(rate, burst, System::nanoTime, SWEEP_THRESHOLD);
+    }
+
+    ClientRateLimiter(int rate, int burst, LongSupplier clock) {
+        this(rate, burst, clock, SWEEP_THRESHOLD);
+    }
+
+    ClientRateLimiter(int rate, int burst, LongSupplier clock, int sweepThreshold) {
+        if (rate <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Лимит запросов и запас должны быть положительными");
+        }
+        this.interval = 1_000_000_000L / rate;
+        this.capacity = interval * burst;
+        this.clock = clock;
+        this.sweepThreshold = sweepThreshold;
+        // за capacity простоя любая корзина снова полная
+        this.sweepInterval = Math.max(capacity, MIN_SWEEP_INTERVAL);
+        this.nextSweep = new AtomicLong(clock.getAsLong());
+    }
+
+    // 0, если запрос можно выполнить, иначе — сколько наносекунд ждать следующего токена
+    public long acquire(InetAddress client) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(client);
+        if (bucket == null) {
+            if (buckets.size() >= sweepThreshold) {
+                sweep(now);
+            }
+            bucket = buckets.computeIfAbsent(client, c -> new AtomicLong(now));
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long next = (fullAt - now > 0 ? fullAt : now) + interval;
+            long wait = next - now - capacity;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int clients() {
+        return buckets.size();
+    }
+
+    // Обходит тот, кто первым сдвинул nextSweep; остальные сразу идут дальше
+    private void sweep(long now) {
+        long scheduled = nextSweep.get();
+        if (now - scheduled < 0 || !nextSweep.compareAndSet(scheduled, now + sweepInterval)) {
+            return;
+        }
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() - now <= 0);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.moviehub.http.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// gzip или zlib поверх Deflater из пула. GZIPOutputStream не подходит: он каждый раз
+// создаёт собственный Deflater с нативной памятью
+final class CompressingOutputStream extends OutputStream {
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final OutputStream out;
+    private final ContentEncoding encoding;
+    private final ResponseCompression compression;
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private final byte[] buffer = new byte[8192];
+    private long bytesIn;
+    private long bytesOut;
+    private boolean closed;
+
+    CompressingOutputStream(OutputStream out, ContentEncoding encoding, ResponseCompression compression)
+            throws IOException {
+        this.out = out;
+        this.encoding = encoding;
+        this.compression = compression;
+        this.deflater = compression.borrow(encoding);
+        if (encoding == ContentEncoding.GZIP) {
+            crc = new CRC32();
+            writeOut(GZIP_HEADER, GZIP_HEADER.length);
+        } else {
+            crc = null;
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        if (crc != null) {
+            crc.update(b, off, len);
+        }
+        bytesIn += len;
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            writeOut(buffer, deflater.deflate(buffer, 0, buffer.length, Deflater.NO_FLUSH));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        int length;
+        do {
+            length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            writeOut(buffer, length);
+        } while (length == buffer.length);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                writeOut(buffer, deflater.deflate(buffer));
+            }
+            if (crc != null) {
+                byte[] trailer = new byte[8];
+                writeIntLe(trailer, 0, (int) crc.getValue());
+                writeIntLe(trailer, 4, (int) bytesIn);
+                writeOut(trailer, trailer.length);
+            }
+            out.close();
+        } finally {
+            compression.release(encoding, deflater);
+            compression.recordCompressed(bytesIn, bytesOut);
+        }
+    }
+
+    private void writeOut(byte[] bytes, int length) throws IOException {
+        if (length > 0) {
+            out.write(bytes, 0, length);
+            bytesOut += length;
+        }
+    }
+
+    private static void writeIntLe(byte[] target, int offset, int value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >>> 8);
+        target[offset + 2] = (byte) (value >>> 16);
+        target[offset + 3] = (byte) (value >>> 24);
+    }
+}
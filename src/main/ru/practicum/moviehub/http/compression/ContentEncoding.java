@@ -0,0 +1,18 @@
+package ru.practicum.moviehub.http.compression;
+
+public enum ContentEncoding {
+    IDENTITY("identity"),
+    GZIP("gzip"),
+    DEFLATE("deflate");
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    // Значение для заголовка Content-Encoding
+    public String getToken() {
+        return token;
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.moviehub.http.compression;
+
+// Готовое тело ответа вместе со сжатыми вариантами. Варианты считаются при первом запросе
+// и запоминаются: горячие ответы из кэша не сжимаются заново каждый раз
+public final class EncodedBody {
+    private final byte[] identity;
+    private volatile byte[] gzip;
+    private volatile byte[] deflate;
+
+    public EncodedBody(byte[] identity) {
+        this.identity = identity;
+    }
+
+    public byte[] getIdentity() {
+        return identity;
+    }
+
+    // Гонка при первом сжатии безвредна: оба потока получат одинаковые байты
+    byte[] variant(ContentEncoding encoding, ResponseCompression compression) {
+        return switch (encoding) {
+            case IDENTITY -> identity;
+            case GZIP -> {
+                byte[] result = gzip;
+                if (result == null) {
+                    result = compression.compress(identity, encoding);
+                    gzip = result;
+                }
+                yield result;
+            }
+            case DEFLATE -> {
+                byte[] result = deflate;
+                if (result == null) {
+                    result = compression.compress(identity, encoding);
+                    deflate = result;
+                }
+                yield result;
+            }
+        };
+    }
+}
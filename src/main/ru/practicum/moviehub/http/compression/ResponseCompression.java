@@ -0,0 +1,238 @@
+package ru.practicum.moviehub.http.compression;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import ru.practicum.moviehub.http.routing.HeaderValues;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+// Сжатие ответов по Accept-Encoding: gzip предпочтительнее deflate, тела короче minSize уходят как есть.
+// Deflater берутся из пула, а не из ThreadLocal: при виртуальных потоках каждый запрос — новый поток
+public class ResponseCompression {
+    public static final ResponseCompression DISABLED = new ResponseCompression(-1);
+    private static final int POOL_SIZE = 64;
+
+    private final int minSize;
+    // gzip пишет заголовок сам и использует «сырой» deflate, deflate — поток zlib
+    private final BlockingQueue<Deflater> rawDeflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<Deflater> zlibDeflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final LongAdder compressions = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    // minSize < 0 — сжатие выключено
+    public ResponseCompression(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public boolean isEnabled() {
+        return minSize >= 0;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public ContentEncoding negotiate(String acceptEncoding) {
+        if (!isEnabled() || acceptEncoding == null) {
+            return ContentEncoding.IDENTITY;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            int semicolon = part.indexOf(';');
+            String coding = (semicolon < 0 ? part : part.substring(0, semicolon)).trim();
+            double quality = semicolon < 0 ? 1 : HeaderValues.quality(part.substring(semicolon + 1));
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzip = quality;
+            } else if (coding.equalsIgnoreCase("deflate")) {
+                deflate = quality;
+            } else if (coding.equals("*")) {
+                any = quality;
+            }
+        }
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return ContentEncoding.GZIP;
+        }
+        return deflate > 0 ? ContentEncoding.DEFLATE : ContentEncoding.IDENTITY;
+    }
+
+    public byte[] compress(byte[] body, ContentEncoding encoding) {
+        if (encoding == ContentEncoding.IDENTITY) {
+            return body;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (CompressingOutputStream compressing = new CompressingOutputStream(out, encoding, this)) {
+            compressing.write(body, 0, body.length);
+        } catch (IOException e) {
+            throw new IllegalStateException("Запись в память не может завершиться ошибкой", e);
+        }
+        return out.toByteArray();
+    }
+
+    // Content-Type должен быть уже выставлен
+    public void send(HttpExchange ex, int status, byte[] body) throws IOException {
+        ContentEncoding encoding = choose(ex, body.length);
+        writeFully(ex, status, encoding == ContentEncoding.IDENTITY ? body : compress(body, encoding));
+    }
+
+    public void send(HttpExchange ex, int status, EncodedBody body) throws IOException {
+        ContentEncoding encoding = choose(ex, body.getIdentity().length);
+        writeFully(ex, status, body.variant(encoding, this));
+    }
+
+    // Тело пишется потоком (chunked). Решение о сжатии откладывается, пока не наберётся minSize байт:
+    // короткий ответ уйдёт целиком и с Content-Length
+    public OutputStream open(HttpExchange ex, int status) throws IOException {
+        ContentEncoding encoding = ContentEncoding.IDENTITY;
+        if (isEnabled()) {
+            ex.getResponseHeaders().add("Vary", "Accept-Encoding");
+            encoding = negotiate(ex.getRequestHeaders().getFirst("Accept-Encoding"));
+        }
+        if (encoding == ContentEncoding.IDENTITY) {
+            ex.sendResponseHeaders(status, 0);
+            return ex.getResponseBody();
+        }
+        return new DeferredStream(ex, status, encoding);
+    }
+
+    public long getCompressions() {
+        return compressions.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    Deflater borrow(ContentEncoding encoding) {
+        Deflater deflater = pool(encoding).poll();
+        if (deflater == null) {
+            // Ответы сжимаются на лету: первый уровень в разы быстрее уровня по умолчанию, а JSON
+            // каталога всё равно уменьшается примерно в шесть раз
+            deflater = new Deflater(Deflater.BEST_SPEED, encoding == ContentEncoding.GZIP);
+        }
+        return deflater;
+    }
+
+    void release(ContentEncoding encoding, Deflater deflater) {
+        deflater.reset();
+        if (!pool(encoding).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    void recordCompressed(long in, long out) {
+        compressions.increment();
+        bytesIn.add(in);
+        bytesOut.add(out);
+    }
+
+    // Выбранная кодировка уже отражена в заголовках ответа
+    private ContentEncoding choose(HttpExchange ex, int length) {
+        if (!isEnabled()) {
+            return ContentEncoding.IDENTITY;
+        }
+        Headers headers = ex.getResponseHeaders();
+        headers.add("Vary", "Accept-Encoding");
+        if (length < minSize) {
+            return ContentEncoding.IDENTITY;
+        }
+        ContentEncoding encoding = negotiate(ex.getRequestHeaders().getFirst("Accept-Encoding"));
+        if (encoding != ContentEncoding.IDENTITY) {
+            headers.set("Content-Encoding", encoding.getToken());
+        }
+        return encoding;
+    }
+
+    private static void writeFully(HttpExchange ex, int status, byte[] bytes) throws IOException {
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private BlockingQueue<Deflater> pool(ContentEncoding encoding) {
+        return encoding == ContentEncoding.GZIP ? rawDeflaters : zlibDeflaters;
+    }
+
+    private final class DeferredStream extends OutputStream {
+        private final HttpExchange ex;
+        private final int status;
+        private final ContentEncoding encoding;
+        private byte[] pending = new byte[Math.min(minSize, 8192)];
+        private int count;
+        private OutputStream target;
+
+        private DeferredStream(HttpExchange ex, int status, ContentEncoding encoding) {
+            this.ex = ex;
+            this.status = status;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target != null) {
+                target.write(b, off, len);
+                return;
+            }
+            if (count + len < minSize) {
+                if (count + len > pending.length) {
+                    pending = Arrays.copyOf(pending, Math.min(minSize, Math.max(count + len, pending.length * 2)));
+                }
+                System.arraycopy(b, off, pending, count, len);
+                count += len;
+                return;
+            }
+            ex.getResponseHeaders().set("Content-Encoding", encoding.getToken());
+            ex.sendResponseHeaders(status, 0);
+            target = new CompressingOutputStream(ex.getResponseBody(), encoding, ResponseCompression.this);
+            target.write(pending, 0, count);
+            target.write(b, off, len);
+            pending = null;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (target != null) {
+                target.close();
+                return;
+            }
+            if (pending == null) {
+                return;
+            }
+            byte[] body = Arrays.copyOf(pending, count);
+            pending = null;
+            writeFully(ex, status, body);
+        }
+    }
+}
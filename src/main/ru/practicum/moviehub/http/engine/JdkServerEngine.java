@@ -0,0 +1,54 @@
+package ru.practicum.moviehub.http.engine;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import ru.practicum.moviehub.http.ServerConfig;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// com.sun.net.httpserver.HttpServer. Его TCP_NODELAY и keep-alive задаются свойствами sun.net.httpserver.*,
+// которые JDK читает один раз при создании первого сервера в процессе: настройки ServerConfig
+// применяются, только если свойства не заданы явно и ни один HttpServer ещё не создавался
+public class JdkServerEngine implements ServerEngine {
+    private final HttpServer server;
+
+    // executor null — обработчики выполняются в потоке-диспетчере HttpServer
+    public JdkServerEngine(int port, ServerConfig config, Executor executor) {
+        setDefault("sun.net.httpserver.nodelay", String.valueOf(config.isTcpNoDelay()));
+        setDefault("sun.net.httpserver.idleInterval",
+                String.valueOf(Math.max(1, config.getKeepAliveMillis() / 1000)));
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), config.getBacklog());
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось создать HTTP-сервер", e);
+        }
+        server.setExecutor(executor);
+    }
+
+    @Override
+    public void createContext(String path, HttpHandler handler, List<Filter> filters) {
+        HttpContext context = server.createContext(path, handler);
+        context.getFilters().addAll(filters);
+    }
+
+    @Override
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+    }
+
+    private static void setDefault(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+}
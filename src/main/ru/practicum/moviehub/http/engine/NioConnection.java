@@ -0,0 +1,301 @@
+package ru.practicum.moviehub.http.engine;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+// Одно соединение NioServerEngine. Чтение и разбор запросов — только в потоке селектора; запросы
+// соединения обрабатываются строго по очереди, поэтому конвейер (pipelining) отвечает в порядке запросов.
+// Ответ пишет поток обработчика: сразу в сокет, а что не влезло — из очереди по OP_WRITE
+final class NioConnection {
+    private static final int MAX_HEAD = 16 * 1024;
+    private static final int MAX_BODY = 64 * 1024 * 1024;
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    final SocketChannel channel;
+    final InetSocketAddress remoteAddress;
+    final InetSocketAddress localAddress;
+    private final NioServerEngine engine;
+    private final SelectionKey key;
+    private final long highWater;
+
+    // принятые, но ещё не разобранные байты: [inputStart, inputEnd)
+    private byte[] input;
+    private int inputStart;
+    private int inputEnd;
+    private RequestHead head;
+    private int headLength;
+    private int bodyLength;
+    private boolean continueSent;
+    private int requests;
+    // идёт обработка запроса: новые не разбираются
+    private boolean busy;
+    // после отправки очереди соединение закрывается
+    private boolean closing;
+    volatile long lastActivity = System.nanoTime();
+
+    private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+    private long pending;
+    private boolean closed;
+
+    NioConnection(NioServerEngine engine, SocketChannel channel, SelectionKey key) throws IOException {
+        this.engine = engine;
+        this.channel = channel;
+        this.key = key;
+        this.remoteAddress = (InetSocketAddress) channel.getRemoteAddress();
+        this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+        this.input = new byte[engine.pool.bufferSize()];
+        this.highWater = 4L * engine.pool.bufferSize();
+    }
+
+    void onReadable(ByteBuffer readBuffer) throws IOException {
+        readBuffer.clear();
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            close();
+            return;
+        }
+        if (read == 0) {
+            return;
+        }
+        lastActivity = System.nanoTime();
+        readBuffer.flip();
+        ensureInput(read);
+        readBuffer.get(input, inputEnd, read);
+        inputEnd += read;
+        processInput();
+    }
+
+    void onWritable() throws IOException {
+        boolean drained;
+        synchronized (this) {
+            flushOutput();
+            notifyAll();
+            drained = output.isEmpty();
+        }
+        if (drained && closing && !busy) {
+            close();
+        } else {
+            updateInterest();
+        }
+    }
+
+    // Разбирает накопленные запросы, пока не займётся обработкой или не кончатся полные запросы
+    void processInput() throws IOException {
+        while (!busy && !closing && !closed) {
+            int available = inputEnd - inputStart;
+            if (head == null) {
+                int end = RequestHead.findEnd(input, inputStart, inputEnd);
+                if (end < 0) {
+                    if (available > MAX_HEAD) {
+                        reject(431, "Request Header Fields Too Large");
+                    }
+                    break;
+                }
+                long length;
+                try {
+                    head = RequestHead.parse(input, inputStart, end);
+                    length = head.contentLength();
+                } catch (IllegalArgumentException e) {
+                    reject(400, "Bad Request");
+                    break;
+                }
+                if (length < 0) {
+                    reject(411, "Length Required");
+                    break;
+                }
+                if (length > MAX_BODY) {
+                    reject(413, "Content Too Large");
+                    break;
+                }
+                headLength = end - inputStart;
+                bodyLength = (int) length;
+                continueSent = false;
+            }
+            if (available < headLength + bodyLength) {
+                if (!continueSent && "100-continue".equalsIgnoreCase(head.headers.getFirst("Expect"))) {
+                    continueSent = true;
+                    send(ByteBuffer.wrap(CONTINUE));
+                }
+                ensureInput(headLength + bodyLength - available);
+                break;
+            }
+            int bodyStart = inputStart + headLength;
+            byte[] body = Arrays.copyOfRange(input, bodyStart, bodyStart + bodyLength);
+            inputStart = bodyStart + bodyLength;
+            if (inputStart == inputEnd) {
+                inputStart = 0;
+                inputEnd = 0;
+                if (input.length > 4 * engine.pool.bufferSize()) {
+                    input = new byte[engine.pool.bufferSize()];
+                }
+            }
+            RequestHead request = head;
+            head = null;
+            requests++;
+            boolean keepAlive = request.wantsKeepAlive() && !engine.isStopping()
+                    && (engine.maxRequests == 0 || requests < engine.maxRequests);
+            busy = true;
+            engine.dispatch(this, request, body, keepAlive);
+        }
+        updateInterest();
+    }
+
+    // Обработка запроса закончена; keepAlive false — соединение закрывается, как только уйдёт ответ
+    void finishRequest(boolean keepAlive) throws IOException {
+        busy = false;
+        lastActivity = System.nanoTime();
+        if (!keepAlive) {
+            closing = true;
+            if (!hasOutput()) {
+                close();
+            }
+        }
+    }
+
+    // Поток обработчика ждёт, пока в очереди не останется меньше highWater: медленный клиент
+    // притормаживает обработчик, а не раздувает память. Поток селектора не ждёт никогда: сам он пишет
+    // только короткие ответы без обработчика — отказы и 100 Continue
+    void send(ByteBuffer buffer) throws IOException {
+        boolean partial;
+        synchronized (this) {
+            if (closed) {
+                release(buffer);
+                throw new IOException("Соединение закрыто");
+            }
+            output.add(buffer);
+            pending += buffer.remaining();
+            flushOutput();
+            partial = !output.isEmpty();
+        }
+        if (!partial) {
+            return;
+        }
+        if (engine.isSelectorThread()) {
+            updateInterest();
+            return;
+        }
+        engine.runOnSelector(this::updateInterest);
+        synchronized (this) {
+            while (pending > highWater && !closed) {
+                try {
+                    wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Отправка ответа прервана", e);
+                }
+            }
+            if (closed) {
+                throw new IOException("Соединение закрыто");
+            }
+        }
+    }
+
+    // Простой превышает keep-alive между запросами или тайм-аут простоя внутри запроса и ответа
+    void checkTimeouts(long now, long keepAliveNanos, long idleTimeoutNanos) {
+        long idle = now - lastActivity;
+        if (busy) {
+            if (hasOutput() && idle > idleTimeoutNanos) {
+                close();
+            }
+            return;
+        }
+        boolean inProgress = inputEnd > inputStart || hasOutput();
+        if (idle > (inProgress ? idleTimeoutNanos : keepAliveNanos)) {
+            close();
+        }
+    }
+
+    void updateInterest() {
+        if (closed || !key.isValid()) {
+            return;
+        }
+        int ops = busy || closing ? 0 : SelectionKey.OP_READ;
+        if (hasOutput()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (ByteBuffer buffer : output) {
+                release(buffer);
+            }
+            output.clear();
+            pending = 0;
+            notifyAll();
+        }
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // соединение уже разорвано
+        }
+        engine.closed(this);
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private synchronized boolean hasOutput() {
+        return !output.isEmpty();
+    }
+
+    private void flushOutput() throws IOException {
+        while (!output.isEmpty()) {
+            ByteBuffer buffer = output.peek();
+            int written = channel.write(buffer);
+            if (written > 0) {
+                pending -= written;
+                lastActivity = System.nanoTime();
+            }
+            if (buffer.hasRemaining()) {
+                return;
+            }
+            output.poll();
+            release(buffer);
+        }
+    }
+
+    // Ответ без обработчика, после которого соединение закрывается
+    private void reject(int status, String reason) throws IOException {
+        closing = true;
+        String response = "HTTP/1.1 " + status + " " + reason + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n";
+        send(ByteBuffer.wrap(response.getBytes(StandardCharsets.ISO_8859_1)));
+        if (!hasOutput()) {
+            close();
+        }
+    }
+
+    private void ensureInput(int extra) {
+        if (inputEnd + extra <= input.length) {
+            return;
+        }
+        if (inputStart > 0) {
+            System.arraycopy(input, inputStart, input, 0, inputEnd - inputStart);
+            inputEnd -= inputStart;
+            inputStart = 0;
+        }
+        if (inputEnd + extra > input.length) {
+            input = Arrays.copyOf(input, Math.max(input.length * 2, inputEnd + extra));
+        }
+    }
+
+    // В пул возвращаются только прямые буферы ответов, а не обёртки массивов
+    private void release(ByteBuffer buffer) {
+        if (buffer.isDirect()) {
+            engine.pool.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package ru.practicum.moviehub.http.engine;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Обмен NioServerEngine. Тело запроса уже прочитано целиком; ответ пишется в прямые буферы из пула:
+// заголовки и начало тела уходят одним сегментом, тело неизвестной длины — частями (chunked)
+final class NioExchange extends HttpExchange {
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+    // размер части — всегда шесть шестнадцатеричных цифр и CRLF, место под него резервируется заранее
+    private static final int CHUNK_PREFIX = 8;
+    private static final int CHUNK_SUFFIX = 2;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+    private static volatile CachedDate date = new CachedDate(0, "");
+
+    private final NioConnection connection;
+    private final NioContext context;
+    private final RequestHead request;
+    private final URI uri;
+    private final BufferPool pool;
+    private final Headers responseHeaders = new Headers();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private InputStream requestBody;
+    private final ResponseStream responseStream = new ResponseStream();
+    private OutputStream responseBody = responseStream;
+    private boolean keepAlive;
+    private int responseCode = -1;
+
+    NioExchange(NioConnection connection, NioContext context, RequestHead request, URI uri, byte[] body,
+                boolean keepAlive, BufferPool pool) {
+        this.connection = connection;
+        this.context = context;
+        this.request = request;
+        this.uri = uri;
+        this.keepAlive = keepAlive;
+        this.pool = pool;
+        this.requestBody = new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return request.headers;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return request.method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return context;
+    }
+
+    @Override
+    public void close() {
+        try {
+            requestBody.close();
+            responseBody.close();
+        } catch (IOException e) {
+            keepAlive = false;
+        }
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    // responseLength: > 0 — точная длина, 0 — неизвестна (chunked), -1 — тела нет
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        if (responseCode != -1) {
+            throw new IOException("Заголовки ответа уже отправлены");
+        }
+        responseCode = rCode;
+        boolean noBody = rCode < 200 || rCode == 204 || rCode == 304;
+        boolean head = request.method.equals("HEAD");
+        if (noBody || responseLength == -1) {
+            if (!noBody) {
+                responseHeaders.set("Content-Length", "0");
+            }
+            responseStream.fixed(0);
+        } else if (responseLength > 0) {
+            responseHeaders.set("Content-Length", String.valueOf(responseLength));
+            responseStream.fixed(head ? 0 : responseLength);
+        } else if (head) {
+            responseStream.fixed(0);
+        } else if (request.isHttp10()) {
+            // HTTP/1.0 не знает chunked: конец тела — закрытие соединения
+            keepAlive = false;
+            responseStream.untilClose();
+        } else {
+            responseHeaders.set("Transfer-Encoding", "chunked");
+            responseStream.chunked();
+        }
+        if (!keepAlive) {
+            responseHeaders.set("Connection", "close");
+        } else if (request.isHttp10()) {
+            responseHeaders.set("Connection", "keep-alive");
+        }
+        responseStream.writeHead(statusAndHeaders(rCode));
+        if (responseLength == -1 || noBody || head) {
+            responseStream.close();
+        }
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return connection.remoteAddress;
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return connection.localAddress;
+    }
+
+    @Override
+    public String getProtocol() {
+        return request.protocol;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) {
+            requestBody = i;
+        }
+        if (o != null) {
+            responseBody = o;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    // Вызывается после обработчика; completed false — обработчик упал. Возвращает false,
+    // если соединение нельзя использовать для следующего запроса
+    boolean finish(boolean completed) {
+        if (!completed && responseCode != -1) {
+            // начатый ответ не дописывается: обрыв соединения покажет клиенту, что тело неполное
+            responseStream.abort();
+            return false;
+        }
+        if (responseCode == -1) {
+            keepAlive = false;
+            responseHeaders.clear();
+            try {
+                sendResponseHeaders(500, -1);
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        close();
+        return keepAlive && responseStream.complete();
+    }
+
+    private byte[] statusAndHeaders(int rCode) {
+        StringBuilder head = new StringBuilder(256)
+                .append("HTTP/1.1 ").append(rCode).append(' ').append(reason(rCode)).append("\r\n")
+                .append("Date: ").append(currentDate()).append("\r\n");
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            for (String value : header.getValue()) {
+                head.append(header.getKey()).append(": ").append(value).append("\r\n");
+            }
+        }
+        return head.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static String reason(int code) {
+        return switch (code) {
+            case 100 -> "Continue";
+            case 200 -> "OK";
+            case 201 -> "Created";
+            case 202 -> "Accepted";
+            case 204 -> "No Content";
+            case 206 -> "Partial Content";
+            case 304 -> "Not Modified";
+            case 400 -> "Bad Request";
+            case 401 -> "Unauthorized";
+            case 403 -> "Forbidden";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 406 -> "Not Acceptable";
+            case 409 -> "Conflict";
+            case 411 -> "Length Required";
+            case 412 -> "Precondition Failed";
+            case 413 -> "Content Too Large";
+            case 415 -> "Unsupported Media Type";
+            case 422 -> "Unprocessable Content";
+            case 429 -> "Too Many Requests";
+            case 500 -> "Internal Server Error";
+            case 501 -> "Not Implemented";
+            case 503 -> "Service Unavailable";
+            default -> "";
+        };
+    }
+
+    // Дата в формате RFC 1123 меняется раз в секунду, её не нужно форматировать на каждый ответ
+    private static String currentDate() {
+        long second = System.currentTimeMillis() / 1000;
+        CachedDate cached = date;
+        if (cached.second != second) {
+            cached = new CachedDate(second, DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                    ZonedDateTime.ofInstant(java.time.Instant.ofEpochSecond(second), ZoneOffset.UTC)));
+            date = cached;
+        }
+        return cached.text;
+    }
+
+    private static final class CachedDate {
+        final long second;
+        final String text;
+
+        CachedDate(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
+
+    private final class ResponseStream extends OutputStream {
+        private ByteBuffer buffer;
+        // режим тела: точная длина, chunked или до закрытия соединения
+        private boolean chunked;
+        private long remaining = -1;
+        // начало текущей части в buffer (chunked)
+        private int chunkStart;
+        private boolean closed;
+        private boolean failed;
+
+        void fixed(long length) {
+            remaining = length;
+        }
+
+        void chunked() {
+            chunked = true;
+        }
+
+        void untilClose() {
+            remaining = -1;
+        }
+
+        // Заголовки кладутся в начало первого буфера, чтобы уйти вместе с началом тела
+        void writeHead(byte[] head) throws IOException {
+            if (head.length > pool.bufferSize() / 2) {
+                send(ByteBuffer.wrap(head));
+            } else {
+                buffer = pool.acquire();
+                buffer.put(head);
+            }
+            startChunk();
+        }
+
+        boolean complete() {
+            return closed && !failed && (chunked || remaining <= 0);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (responseCode == -1) {
+                throw new IOException("Тело ответа пишется до sendResponseHeaders");
+            }
+            if (closed) {
+                throw new IOException("Тело ответа уже закрыто");
+            }
+            if (!chunked && remaining >= 0) {
+                if (len > remaining) {
+                    failed = true;
+                    throw new IOException("Тело ответа длиннее заявленного Content-Length");
+                }
+                remaining -= len;
+            }
+            while (len > 0) {
+                if (buffer == null) {
+                    buffer = pool.acquire();
+                    startChunk();
+                }
+                int space = limit() - buffer.position();
+                if (space == 0) {
+                    emit();
+                    continue;
+                }
+                int count = Math.min(space, len);
+                buffer.put(b, off, count);
+                off += count;
+                len -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (buffer != null && !closed) {
+                emit();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed || responseCode == -1) {
+                return;
+            }
+            closed = true;
+            if (!chunked && remaining > 0) {
+                failed = true;
+                release();
+                throw new IOException("Тело ответа короче заявленного Content-Length");
+            }
+            if (chunked) {
+                if (buffer == null) {
+                    buffer = pool.acquire();
+                    startChunk();
+                }
+                closeChunk();
+                if (buffer.remaining() < LAST_CHUNK.length) {
+                    sendBuffer();
+                    buffer = pool.acquire();
+                }
+                buffer.put(LAST_CHUNK);
+            }
+            if (buffer != null) {
+                sendBuffer();
+            }
+        }
+
+        private int limit() {
+            return chunked ? buffer.capacity() - CHUNK_SUFFIX : buffer.capacity();
+        }
+
+        private void startChunk() {
+            if (chunked && buffer != null) {
+                chunkStart = buffer.position();
+                buffer.position(chunkStart + CHUNK_PREFIX);
+            }
+        }
+
+        // Пустая часть означала бы конец тела, поэтому она выбрасывается
+        private void closeChunk() {
+            int length = buffer.position() - chunkStart - CHUNK_PREFIX;
+            if (length == 0) {
+                buffer.position(chunkStart);
+                return;
+            }
+            for (int i = 5; i >= 0; i--) {
+                buffer.put(chunkStart + i, HEX[length & 0xf]);
+                length >>>= 4;
+            }
+            buffer.put(chunkStart + 6, (byte) '\r').put(chunkStart + 7, (byte) '\n');
+            buffer.put((byte) '\r').put((byte) '\n');
+        }
+
+        private void emit() throws IOException {
+            if (chunked) {
+                closeChunk();
+            }
+            if (buffer.position() > 0) {
+                sendBuffer();
+            } else {
+                pool.release(buffer);
+                buffer = null;
+            }
+        }
+
+        private void sendBuffer() throws IOException {
+            ByteBuffer ready = buffer.flip();
+            buffer = null;
+            send(ready);
+        }
+
+        private void send(ByteBuffer data) throws IOException {
+            try {
+                connection.send(data);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        void abort() {
+            closed = true;
+            failed = true;
+            release();
+        }
+
+        private void release() {
+            if (buffer != null) {
+                pool.release(buffer);
+                buffer = null;
+            }
+        }
+    }
+}
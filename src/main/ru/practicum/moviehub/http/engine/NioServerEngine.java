@@ -0,0 +1,323 @@
+package ru.practicum.moviehub.http.engine;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpHandler;
+import ru.practicum.moviehub.http.ServerConfig;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// HTTP/1.1 на одном селекторе NIO: приём, чтение и разбор запросов, дозапись ответов — в одном потоке,
+// обработчики — в executor или, если его нет, в одном собственном потоке: в потоке селектора обработчик не мог бы
+// ждать медленного клиента и копил бы весь ответ в памяти, останавливая остальные соединения. В отличие от HttpServer
+// соединения между запросами не занимают поток, буферы ответов прямые и берутся из пула,
+// keep-alive и тайм-ауты задаются ServerConfig. Лимит maxInFlight тоже соблюдается здесь: запрос сверх лимита
+// откладывается вместе с соединением, а поток селектора не ждёт свободного места
+public final class NioServerEngine implements ServerEngine {
+    private static final long SWEEP_INTERVAL_MILLIS = 250;
+
+    final BufferPool pool;
+    final int maxRequests;
+    private final ServerConfig config;
+    private final Executor executor;
+    // свой поток обработчиков, если executor не передан; останавливается вместе с движком
+    private final ExecutorService ownExecutor;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ByteBuffer readBuffer;
+    private final List<NioContext> contexts = new CopyOnWriteArrayList<>();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Set<NioConnection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger activeExchanges = new AtomicInteger();
+    // 0 — без ограничения; inFlight и parked меняет только поток селектора
+    private final int maxInFlight;
+    private int inFlight;
+    private final ArrayDeque<Runnable> parked = new ArrayDeque<>();
+    private final Thread selectorThread;
+    private volatile boolean stopping;
+
+    // executor null — обработчики по одному выполняются в отдельном потоке nio-dispatcher
+    public NioServerEngine(int port, ServerConfig config, Executor executor) {
+        this.config = config;
+        this.ownExecutor = executor == null
+                ? Executors.newSingleThreadExecutor(task -> new Thread(task, "nio-dispatcher"))
+                : null;
+        this.executor = executor == null ? ownExecutor : executor;
+        this.maxRequests = config.getMaxKeepAliveRequests();
+        this.maxInFlight = executor == null ? 0 : config.getMaxInFlight();
+        this.pool = new BufferPool(config.getBufferSize(), 256);
+        this.readBuffer = ByteBuffer.allocateDirect(config.getBufferSize());
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port), config.getBacklog());
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось создать HTTP-сервер", e);
+        }
+        selectorThread = new Thread(this::loop, "nio-selector");
+    }
+
+    @Override
+    public void createContext(String path, HttpHandler handler, List<Filter> filters) {
+        contexts.add(new NioContext(path, handler, filters));
+    }
+
+    @Override
+    public void start() {
+        selectorThread.start();
+    }
+
+    @Override
+    public void stop(int delaySeconds) {
+        stopping = true;
+        runOnSelector(() -> {
+            try {
+                serverChannel.close();
+            } catch (IOException e) {
+                // новых соединений и так не будет
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(delaySeconds);
+        while (activeExchanges.get() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (ownExecutor != null) {
+            ownExecutor.shutdownNow();
+        }
+        selectorThread.interrupt();
+        selector.wakeup();
+        try {
+            selectorThread.join(TimeUnit.SECONDS.toMillis(Math.max(1, delaySeconds)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    boolean isStopping() {
+        return stopping;
+    }
+
+    boolean isSelectorThread() {
+        return Thread.currentThread() == selectorThread;
+    }
+
+    void runOnSelector(Runnable task) {
+        if (isSelectorThread()) {
+            task.run();
+            return;
+        }
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    void closed(NioConnection connection) {
+        connections.remove(connection);
+    }
+
+    // Вызывается из потока селектора с разобранным запросом; соединение не читает новых, пока этот не обработан
+    void dispatch(NioConnection connection, RequestHead request, byte[] body, boolean keepAlive) {
+        if (maxInFlight > 0 && inFlight >= maxInFlight) {
+            // соединение остаётся занятым и не читается, пока запрос не дождётся свободного места
+            parked.add(() -> {
+                if (!connection.isClosed()) {
+                    submit(connection, request, body, keepAlive);
+                }
+            });
+            return;
+        }
+        submit(connection, request, body, keepAlive);
+    }
+
+    private void submit(NioConnection connection, RequestHead request, byte[] body, boolean keepAlive) {
+        inFlight++;
+        activeExchanges.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                boolean keep = handle(connection, request, body, keepAlive);
+                runOnSelector(() -> {
+                    inFlight--;
+                    // место сначала отдаётся отложенным запросам, а не следующему запросу этого же соединения
+                    resumeParked();
+                    try {
+                        connection.finishRequest(keep);
+                        connection.processInput();
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                });
+            });
+        } catch (RuntimeException e) {
+            // executor отказал (остановлен): запрос не обработан, соединение закрывается
+            inFlight--;
+            activeExchanges.decrementAndGet();
+            connection.close();
+        }
+    }
+
+    private void resumeParked() {
+        Runnable next;
+        while (inFlight < maxInFlight && (next = parked.poll()) != null) {
+            next.run();
+        }
+    }
+
+    private boolean handle(NioConnection connection, RequestHead request, byte[] body, boolean keepAlive) {
+        try {
+            NioContext context = findContext(request.target);
+            URI uri;
+            try {
+                uri = new URI(request.target);
+            } catch (URISyntaxException e) {
+                return respondEmpty(connection, request, body, 400, false);
+            }
+            if (context == null) {
+                return respondEmpty(connection, request, body, 404, keepAlive);
+            }
+            NioExchange exchange = new NioExchange(connection, context, request, uri, body, keepAlive, pool);
+            boolean completed = false;
+            try {
+                new Filter.Chain(context.getFilters(), context.getHandler()).doFilter(exchange);
+                completed = true;
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Ошибка обработки запроса " + request.method + " " + request.target + ": " + e);
+            }
+            return exchange.finish(completed);
+        } finally {
+            activeExchanges.decrementAndGet();
+        }
+    }
+
+    private boolean respondEmpty(NioConnection connection, RequestHead request, byte[] body, int status,
+                                 boolean keepAlive) {
+        NioExchange exchange = new NioExchange(connection, null, request, null, body, keepAlive, pool);
+        try {
+            exchange.sendResponseHeaders(status, -1);
+        } catch (IOException e) {
+            return false;
+        }
+        return exchange.finish(true);
+    }
+
+    // Как у HttpServer: самый длинный путь контекста, которым начинается путь запроса
+    private NioContext findContext(String target) {
+        int query = target.indexOf('?');
+        String path = query < 0 ? target : target.substring(0, query);
+        NioContext found = null;
+        for (NioContext context : contexts) {
+            if (path.startsWith(context.getPath())
+                    && (found == null || context.getPath().length() > found.getPath().length())) {
+                found = context;
+            }
+        }
+        return found;
+    }
+
+    private void loop() {
+        long keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(config.getKeepAliveMillis());
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+        long nextSweep = System.nanoTime();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                selector.select(SWEEP_INTERVAL_MILLIS);
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Set<SelectionKey> selected = selector.selectedKeys();
+                for (SelectionKey key : selected) {
+                    handleKey(key);
+                }
+                selected.clear();
+                long now = System.nanoTime();
+                if (now - nextSweep >= 0) {
+                    nextSweep = now + TimeUnit.MILLISECONDS.toNanos(SWEEP_INTERVAL_MILLIS);
+                    for (NioConnection connection : connections) {
+                        connection.checkTimeouts(now, keepAliveNanos, idleTimeoutNanos);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Селектор HTTP-сервера остановлен из-за ошибки: " + e);
+        } finally {
+            for (NioConnection connection : connections) {
+                connection.close();
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                // сервер и так останавливается
+            }
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        NioConnection connection = (NioConnection) key.attachment();
+        try {
+            if (key.isWritable()) {
+                connection.onWritable();
+            }
+            if (key.isValid() && key.isReadable()) {
+                connection.onReadable(readBuffer);
+            }
+        } catch (IOException e) {
+            connection.close();
+        }
+    }
+
+    private void accept() {
+        SocketChannel channel = null;
+        try {
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, config.isTcpNoDelay());
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                NioConnection connection = new NioConnection(this, channel, key);
+                key.attach(connection);
+                connections.add(connection);
+            }
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // соединение не успело начаться
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.moviehub.http.engine;
+
+import com.sun.net.httpserver.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+// Строка запроса и заголовки HTTP/1.x. Ошибки разбора — IllegalArgumentException
+final class RequestHead {
+    final String method;
+    final String target;
+    final String protocol;
+    final Headers headers;
+
+    private RequestHead(String method, String target, String protocol, Headers headers) {
+        this.method = method;
+        this.target = target;
+        this.protocol = protocol;
+        this.headers = headers;
+    }
+
+    // Позиция сразу после пустой строки, которой кончаются заголовки, или -1, если она ещё не пришла
+    static int findEnd(byte[] data, int from, int to) {
+        for (int i = from + 3; i < to; i++) {
+            if (data[i] == '\n' && data[i - 1] == '\r' && data[i - 2] == '\n' && data[i - 3] == '\r') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    // [from, end) — заголовок целиком, вместе с завершающей пустой строкой
+    static RequestHead parse(byte[] data, int from, int end) {
+        String text = new String(data, from, end - from - 4, StandardCharsets.ISO_8859_1);
+        String[] lines = text.split("\r\n", -1);
+        String[] requestLine = lines[0].split(" ", -1);
+        if (requestLine.length != 3 || requestLine[0].isEmpty() || requestLine[1].isEmpty()
+                || !requestLine[2].startsWith("HTTP/1.")) {
+            throw new IllegalArgumentException("Некорректная строка запроса: " + lines[0]);
+        }
+        Headers headers = new Headers();
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i];
+            int colon = line.indexOf(':');
+            if (colon <= 0 || line.charAt(0) == ' ' || line.charAt(0) == '\t') {
+                throw new IllegalArgumentException("Некорректный заголовок: " + line);
+            }
+            headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+        }
+        return new RequestHead(requestLine[0], requestLine[1], requestLine[2], headers);
+    }
+
+    boolean isHttp10() {
+        return protocol.equals("HTTP/1.0");
+    }
+
+    // HTTP/1.1 держит соединение, пока клиент не попросил закрыть; HTTP/1.0 — только если попросил держать
+    boolean wantsKeepAlive() {
+        String connection = headers.getFirst("Connection");
+        if (isHttp10()) {
+            return hasToken(connection, "keep-alive");
+        }
+        return !hasToken(connection, "close");
+    }
+
+    // Длина тела; -1 — тело передаётся по частям (chunked)
+    long contentLength() {
+        if (headers.containsKey("Transfer-Encoding")) {
+            return -1;
+        }
+        String length = headers.getFirst("Content-Length");
+        if (length == null) {
+            return 0;
+        }
+        try {
+            long value = Long.parseLong(length);
+            if (value < 0) {
+                throw new IllegalArgumentException("Отрицательный Content-Length");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный Content-Length: " + length, e);
+        }
+    }
+
+    private static boolean hasToken(String header, String token) {
+        if (header == null) {
+            return false;
+        }
+        for (String part : header.split(",")) {
+            if (part.trim().equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.moviehub.http.engine;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.util.List;
+
+// Транспорт HTTP под MoviesServer: принимает соединения и отдаёт запросы обработчикам контекстов.
+// Обработчики и фильтры — из com.sun.net.httpserver, поэтому работают с любой реализацией без изменений
+public interface ServerEngine {
+    // Запрос попадает в контекст с самым длинным путём, которым начинается путь запроса;
+    // фильтры выполняются по порядку перед handler
+    void createContext(String path, HttpHandler handler, List<Filter> filters);
+
+    void start();
+
+    // delaySeconds — сколько ждать завершения уже начатых обменов
+    void stop(int delaySeconds);
+}
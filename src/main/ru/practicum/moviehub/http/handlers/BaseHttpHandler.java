@@ -2,25 +2,94 @@ package ru.practicum.moviehub.http.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import ru.practicum.moviehub.api.ErrorResponse;
+import ru.practicum.moviehub.codec.JsonOutput;
+import ru.practicum.moviehub.codec.MovieJsonCodec;
+import ru.practicum.moviehub.http.compression.EncodedBody;
+import ru.practicum.moviehub.http.compression.ResponseCompression;
+import ru.practicum.moviehub.http.routing.Router;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 
 public abstract class BaseHttpHandler implements HttpHandler {
     protected static final String CT_JSON = "application/json; charset=UTF-8";
+    // Неизменные тела ошибок кодируются один раз
+    protected static final byte[] BAD_REQUEST_BODY = errorBody("Неверный запрос", "Ошибка в составлении запроса");
+    protected static final byte[] METHOD_NOT_ALLOWED_BODY = errorBody("Method Not Allowed",
+            "Переданный метод невалиден");
+    protected static final byte[] NOT_FOUND_BODY = errorBody("Отсутствующий ID", "Фильм не найден");
+    protected static final byte[] INVALID_ID_BODY = errorBody("Некорректный ID", "Был передан неверный ID");
+    protected static final byte[] UNSUPPORTED_TYPE_BODY = errorBody("Неправильное значение заголовка Content-Type",
+            "запрашиваемый тип данных не поддерживается");
+
+    protected final Router router = new Router();
+    protected final ResponseCompression compression;
+
+    protected BaseHttpHandler() {
+        this(ResponseCompression.DISABLED);
+    }
+
+    protected BaseHttpHandler(ResponseCompression compression) {
+        this.compression = compression;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        switch (router.dispatch(exchange)) {
+            case NOT_FOUND -> sendJson(exchange, 400, BAD_REQUEST_BODY);
+            case METHOD_NOT_ALLOWED -> sendJson(exchange, 405, METHOD_NOT_ALLOWED_BODY);
+            case HANDLED -> {
+            }
+        }
+    }
+
+    protected static byte[] errorBody(String errorName, String... errorDetails) {
+        return MovieJsonCodec.encode(ErrorResponse.of(errorName, errorDetails));
+    }
 
     protected void sendJson(HttpExchange ex, int status, String json) throws IOException {
-        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        sendJson(ex, status, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected void sendJson(HttpExchange ex, int status, byte[] bytes) throws IOException {
         ex.getResponseHeaders().set("Content-Type", CT_JSON);
-        ex.sendResponseHeaders(status, bytes.length);
-        try (OutputStream os = ex.getResponseBody()) {
-            os.write(bytes);
+        compression.send(ex, status, bytes);
+    }
+
+    protected void sendBytes(HttpExchange ex, int status, String contentType, byte[] bytes) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", contentType);
+        compression.send(ex, status, bytes);
+    }
+
+    protected void sendJson(HttpExchange ex, int status, EncodedBody body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", CT_JSON);
+        compression.send(ex, status, body);
+    }
+
+    // Тело пишется по частям (chunked), не собираясь целиком в памяти
+    protected void sendJsonStream(HttpExchange ex, int status, JsonBody body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", CT_JSON);
+        try (JsonOutput out = new JsonOutput(compression.open(ex, status))) {
+            body.writeTo(out);
+        }
+    }
+
+    // Vary у 304 тот же, что был бы у 200 (RFC 9110, 15.4.5); Vary: Accept ставит сам обработчик
+    protected void sendNotModified(HttpExchange ex) throws IOException {
+        if (compression.isEnabled()) {
+            ex.getResponseHeaders().add("Vary", "Accept-Encoding");
         }
+        ex.sendResponseHeaders(304, -1);
     }
 
     protected void sendNoContent(HttpExchange ex) throws java.io.IOException {
         ex.getResponseHeaders().set("Content-Type", CT_JSON);
         ex.sendResponseHeaders(204, -1);
     }
-}
\ No newline at end of file
+
+    @FunctionalInterface
+    protected interface JsonBody {
+        void writeTo(JsonOutput out) throws IOException;
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.moviehub.http.handlers;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+// Условные GET: ставит ETag/Last-Modified и решает, можно ли ответить 304 без тела
+final class ConditionalGet {
+    private static final DateTimeFormatter HTTP_DATE =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH).withZone(ZoneOffset.UTC);
+
+    private ConditionalGet() {
+    }
+
+    // Слабый тег: одни и те же данные могут уходить в разных кодировках. JSON и двоичный формат —
+    // разные тела, поэтому у них разные теги
+    static String etag(long epoch, long version, boolean binary) {
+        return "W/\"" + Long.toHexString(epoch) + "-" + version + (binary ? "-bin" : "") + "\"";
+    }
+
+    // true — клиентская копия актуальна и нужно отправить 304.
+    // version и lastModified должны быть прочитаны до данных, которые пойдут в ответ
+    static boolean isNotModified(HttpExchange ex, String etag, long lastModified) {
+        Headers response = ex.getResponseHeaders();
+        response.set("ETag", etag);
+        long lastModifiedSeconds = lastModified / 1000;
+        // Изменение в текущую секунду может оказаться не последним в ней: секундной точности
+        // Last-Modified не хватит, чтобы отличить его от следующего, поэтому заголовок не ставится
+        boolean reliable = lastModifiedSeconds < System.currentTimeMillis() / 1000;
+        if (reliable) {
+            response.set("Last-Modified", HTTP_DATE.format(Instant.ofEpochSecond(lastModifiedSeconds)));
+        }
+
+        Headers request = ex.getRequestHeaders();
+        String ifNoneMatch = request.getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            return matchesAny(ifNoneMatch, etag);
+        }
+        String ifModifiedSince = request.getFirst("If-Modified-Since");
+        if (ifModifiedSince == null || !reliable) {
+            return false;
+        }
+        try {
+            long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+            return lastModifiedSeconds <= since;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // Слабое сравнение (RFC 9110): префикс W/ не учитывается
+    private static boolean matchesAny(String header, String etag) {
+        String opaque = opaque(etag);
+        int start = 0;
+        while (start < header.length()) {
+            int end = header.indexOf(',', start);
+            if (end < 0) {
+                end = header.length();
+            }
+            String candidate = header.substring(start, end).trim();
+            if (candidate.equals("*") || opaque(candidate).equals(opaque)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.moviehub.http.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import ru.practicum.moviehub.http.compression.ResponseCompression;
+import ru.practicum.moviehub.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class MetricsHandler extends BaseHttpHandler {
+    private static final String CT_PROMETHEUS = "text/plain; version=0.0.4; charset=UTF-8";
+
+    private final MetricsRegistry registry;
+
+    public MetricsHandler(MetricsRegistry registry) {
+        this(registry, ResponseCompression.DISABLED);
+    }
+
+    public MetricsHandler(MetricsRegistry registry, ResponseCompression compression) {
+        super(compression);
+        this.registry = registry;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            sendJson(exchange, 405, METHOD_NOT_ALLOWED_BODY);
+            return;
+        }
+        byte[] body = registry.render().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CT_PROMETHEUS);
+        compression.send(exchange, 200, body);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.moviehub.http.handlers;
+
+import ru.practicum.moviehub.api.ErrorResponse;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+
+// Правила проверки тела POST /movies, общие для одиночного и пакетного добавления
+final class MovieValidator {
+    static final String VALIDATION_ERROR = "Ошибка валидации";
+    static final byte[] MALFORMED_BODY = BaseHttpHandler.errorBody(VALIDATION_ERROR,
+            "Неправильно составлено тело запроса");
+
+    private MovieValidator() {
+    }
+
+    static ErrorResponse malformedBody() {
+        return ErrorResponse.of(VALIDATION_ERROR, "Неправильно составлено тело запроса");
+    }
+
+    // Пустой список — ошибок нет
+    static List<String> validate(String title, int year) {
+        List<String> errors = new ArrayList<>(3);
+
+        if (year < 1888 || Year.now().getValue() + 1 < year) {
+            errors.add("Год должен быть между 1888 и 2026");
+        }
+        if (title.isEmpty()) {
+            errors.add("Название не должно быть пустым");
+        }
+        if (title.length() > 100) {
+            errors.add("Название слишком длинное");
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,207 @@
+package ru.practicum.moviehub.http.handlers;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.sun.net.httpserver.HttpExchange;
+import ru.practicum.moviehub.api.BatchItemResult;
+import ru.practicum.moviehub.api.ErrorResponse;
+import ru.practicum.moviehub.codec.JsonOutput;
+import ru.practicum.moviehub.codec.MovieJsonCodec;
+import ru.practicum.moviehub.http.compression.ResponseCompression;
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
+import ru.practicum.moviehub.store.MoviesCatalog;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// POST /movies/batch — добавление массива фильмов (JSON или NDJSON), DELETE /movies/batch — удаление по списку ID.
+// Каждый элемент проверяется отдельно, ответ — массив результатов в порядке элементов запроса.
+public final class MoviesBatchHandler extends BaseHttpHandler {
+    private static final String CT_NDJSON = "application/x-ndjson";
+    private static final byte[] NOT_MOVIE_ARRAY_BODY = errorBody("Невалидный запрос",
+            "Тело запроса должно быть JSON-массивом фильмов");
+    private static final byte[] NOT_ID_ARRAY_BODY = errorBody("Невалидный запрос",
+            "Тело запроса должно быть JSON-массивом ID");
+    // Ошибки элементов неизменяемы и разделяются между всеми ответами
+    private static final ErrorResponse NOT_JSON_LINE = ErrorResponse.of("Невалидный запрос",
+            "Строка не является JSON");
+    private static final ErrorResponse INVALID_ID = ErrorResponse.of("Некорректный ID", "Был передан неверный ID");
+    private static final ErrorResponse MISSING_ID = ErrorResponse.of("Отсутствующий ID", "Фильм не найден");
+
+    private final MoviesCatalog moviesStore;
+
+    public MoviesBatchHandler(MoviesCatalog moviesStore) {
+        this(moviesStore, ResponseCompression.DISABLED);
+    }
+
+    public MoviesBatchHandler(MoviesCatalog moviesStore, ResponseCompression compression) {
+        super(compression);
+        this.moviesStore = moviesStore;
+        router.post("/movies/batch", (ex, match) -> processBatchPost(ex))
+                .delete("/movies/batch", (ex, match) -> processBatchDelete(ex));
+    }
+
+    private void processBatchPost(HttpExchange ex) throws IOException {
+        String contentType = ex.getRequestHeaders().getFirst("Content-Type");
+        boolean ndjson = contentType != null && contentType.startsWith(CT_NDJSON);
+        if (!ndjson && !CT_JSON.equals(contentType)) {
+            sendJson(ex, 415, UNSUPPORTED_TYPE_BODY);
+            return;
+        }
+        // Тело читается целиком, как у POST /movies; каждый фильм декодируется тем же MovieJsonCodec
+        // прямо из своего участка тела, без промежуточного дерева JSON
+        byte[] body = ex.getRequestBody().readAllBytes();
+        List<BatchItemResult> results = new ArrayList<>();
+        List<NewMovie> valid = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        MovieJsonCodec.ElementConsumer collect = (offset, length) -> {
+            int index = results.size();
+            NewMovie movie;
+            try {
+                movie = MovieJsonCodec.decodeNewMovie(body, offset, length);
+            } catch (IllegalArgumentException e) {
+                // строка NDJSON может быть и вовсе не JSON; элементы массива синтаксически уже проверены
+                results.add(ndjson && !MovieJsonCodec.isValue(body, offset, length)
+                        ? BatchItemResult.rejected(index, 400, NOT_JSON_LINE)
+                        : BatchItemResult.rejected(index, 422, MovieValidator.malformedBody()));
+                return;
+            }
+            List<String> errors = MovieValidator.validate(movie.getTitle(), movie.getYear());
+            if (!errors.isEmpty()) {
+                results.add(BatchItemResult.rejected(index, 422,
+                        ErrorResponse.of(MovieValidator.VALIDATION_ERROR, errors.toArray(String[]::new))));
+                return;
+            }
+            valid.add(movie);
+            validIndexes.add(index);
+            results.add(null);
+        };
+        if (ndjson) {
+            forEachLine(body, collect);
+        } else {
+            try {
+                MovieJsonCodec.forEachElement(body, collect);
+            } catch (IllegalArgumentException e) {
+                sendJson(ex, 400, NOT_MOVIE_ARRAY_BODY);
+                return;
+            }
+        }
+
+        List<Movie> added = moviesStore.addNewMovies(valid);
+        for (int i = 0; i < added.size(); i++) {
+            int index = validIndexes.get(i);
+            results.set(index, BatchItemResult.created(index, added.get(i)));
+        }
+        sendJsonStream(ex, 200, out -> writeResults(out, results));
+    }
+
+    private void processBatchDelete(HttpExchange ex) throws IOException {
+        List<BatchItemResult> results = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        List<Integer> idIndexes = new ArrayList<>();
+        try {
+            readJsonArray(ex, reader -> {
+                int index = results.size();
+                Integer id = readId(reader);
+                if (id == null) {
+                    results.add(BatchItemResult.notDeleted(index, null, 400, INVALID_ID));
+                    return;
+                }
+                ids.add(id);
+                idIndexes.add(index);
+                results.add(null);
+            });
+        } catch (JsonParseException | IllegalStateException e) {
+            sendJson(ex, 400, NOT_ID_ARRAY_BODY);
+            return;
+        }
+
+        int[] validIds = ids.stream().mapToInt(Integer::intValue).toArray();
+        boolean[] deleted = moviesStore.deleteMovies(validIds);
+        for (int i = 0; i < validIds.length; i++) {
+            int index = idIndexes.get(i);
+            results.set(index, deleted[i] ? BatchItemResult.deleted(index, validIds[i])
+                    : BatchItemResult.notDeleted(index, validIds[i], 404, MISSING_ID));
+        }
+        sendJsonStream(ex, 200, out -> writeResults(out, results));
+    }
+
+    // ID — только JSON-число с точным целым значением: 1.9, 4294967297, "7" и [3] отклоняются, а не округляются
+    private static Integer readId(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.NUMBER) {
+            reader.skipValue();
+            return null;
+        }
+        try {
+            return new BigDecimal(reader.nextString()).intValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // ID разбираются по одному, по мере чтения тела: в памяти остаются только результаты, а не дерево JSON
+    private void readJsonArray(HttpExchange ex, ElementReader elementReader) throws IOException {
+        try (JsonReader reader = new JsonReader(new BufferedReader(
+                new InputStreamReader(ex.getRequestBody(), StandardCharsets.UTF_8)))) {
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                throw new JsonParseException("Ожидался JSON-массив");
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                elementReader.read(reader);
+            }
+            reader.endArray();
+        } catch (MalformedJsonException | EOFException e) {
+            throw new JsonParseException("Тело запроса не является JSON-массивом", e);
+        }
+    }
+
+    // Строки NDJSON независимы: испорченная строка отклоняется сама по себе. Пустые строки пропускаются
+    private static void forEachLine(byte[] body, MovieJsonCodec.ElementConsumer consumer) {
+        int start = 0;
+        while (start < body.length) {
+            int end = start;
+            while (end < body.length && body[end] != '\n') {
+                end++;
+            }
+            if (!isBlank(body, start, end)) {
+                consumer.accept(start, end - start);
+            }
+            start = end + 1;
+        }
+    }
+
+    private static boolean isBlank(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeResults(JsonOutput out, List<BatchItemResult> results) {
+        out.raw('[');
+        for (int i = 0; i < results.size(); i++) {
+            if (i > 0) {
+                out.raw(',');
+            }
+            MovieJsonCodec.write(out, results.get(i));
+        }
+        out.raw(']');
+    }
+
+    private interface ElementReader {
+        void read(JsonReader reader) throws IOException;
+    }
+}
@@ -1,152 +1,321 @@
 package ru.practicum.moviehub.http.handlers;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
-import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
-import ru.practicum.moviehub.api.ErrorResponse;
-import ru.practicum.moviehub.store.MoviesStore;
+import ru.practicum.moviehub.api.MovieStats;
+import ru.practicum.moviehub.cache.MovieJsonCache;
+import ru.practicum.moviehub.codec.JsonOutput;
+import ru.practicum.moviehub.codec.MovieBinaryCodec;
+import ru.practicum.moviehub.codec.MovieBinaryWriter;
+import ru.practicum.moviehub.codec.MovieJsonCodec;
+import ru.practicum.moviehub.http.compression.EncodedBody;
+import ru.practicum.moviehub.http.compression.ResponseCompression;
+import ru.practicum.moviehub.http.routing.HeaderValues;
+import ru.practicum.moviehub.http.routing.QueryParams;
+import ru.practicum.moviehub.http.routing.RouteMatch;
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
+import ru.practicum.moviehub.store.MoviesCatalog;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.time.Year;
+import java.util.List;
 
-public class MoviesHandler extends BaseHttpHandler {
-    private final MoviesStore moviesStore;
-    private final Gson gson;
+// JSON по умолчанию; клиенты, назвавшие MovieBinaryCodec.MEDIA_TYPE в Accept или Content-Type,
+// получают и отправляют фильмы в двоичном формате
+public final class MoviesHandler extends BaseHttpHandler {
+    private static final String[] LIST_PARAMS = {"year", "from", "to", "limit", "cursor", "q"};
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String INVALID_QUERY = "Невалидный запрос";
+    private static final byte[] INVALID_PARAM_BODY = errorBody(INVALID_QUERY,
+            "Некорректный параметр запроса — 'year' или неправильная структура параметра");
+    private static final byte[] PAGE_WITH_YEAR_BODY = errorBody(INVALID_QUERY,
+            "Параметры limit и cursor нельзя совмещать с year, from и to");
+    private static final byte[] YEAR_WITH_RANGE_BODY = errorBody(INVALID_QUERY,
+            "Параметр year нельзя совмещать с from и to");
+    private static final byte[] SEARCH_COMBINED_BODY = errorBody(INVALID_QUERY,
+            "Параметр q можно совмещать только с limit");
+    private static final byte[] FROM_AFTER_TO_BODY = errorBody(INVALID_QUERY,
+            "Значение from не должно превышать to");
+    private static final byte[] INVALID_LIMIT_BODY = errorBody(INVALID_QUERY,
+            "Значение limit должно быть от 1 до " + MAX_PAGE_SIZE);
 
-    public MoviesHandler(MoviesStore moviesStore) {
-        this.moviesStore = moviesStore;
-        this.gson = new Gson();
+    private final MoviesCatalog moviesStore;
+    private final MovieJsonCache movieCache;
+
+    public MoviesHandler(MoviesCatalog moviesStore) {
+        this(moviesStore, null);
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
+    public MoviesHandler(MoviesCatalog moviesStore, MovieJsonCache movieCache) {
+        this(moviesStore, movieCache, ResponseCompression.DISABLED);
+    }
 
-        switch (method) {
-            case "GET": {
-                processGetMethod(exchange);
-                break;
-            }
-            case "POST": {
-                processPostMethod(exchange);
-                break;
-            }
-            case "DELETE": {
-                processDeleteMethod(exchange);
-                break;
-            }
-            default: {
-                sendJson(exchange, 405, gson.toJson(new ErrorResponse("Method Not Allowed",
-                        "Переданный метод невалиден;")));
-            }
-        }
+    public MoviesHandler(MoviesCatalog moviesStore, MovieJsonCache movieCache, ResponseCompression compression) {
+        super(compression);
+        this.moviesStore = moviesStore;
+        this.movieCache = movieCache;
+        router.get("/movies", this::processGetList)
+                .get("/movies/stats", this::processGetStats)
+                .get("/movies/{id}", this::processGetMovie)
+                .post("/movies", this::processPostMethod)
+                .delete("/movies/{id}", this::processDeleteMethod);
     }
 
-    private void processGetMethod(HttpExchange ex) throws IOException {
-        String[] path = ex.getRequestURI().toString().split("/");
-        if (path.length == 2) {
-            String[] parametrs = path[1].split("\\?");
-            if (parametrs.length == 1) {
-                sendJson(ex, 200, gson.toJson(moviesStore.getAllMovies()));
-            } else {
-                parametrs = parametrs[1].split("=");
-                if (parametrs.length == 2 && parametrs[0].equals("year")) {
-                    try {
-                        int year = Integer.parseInt(parametrs[1]);
-                        sendJson(ex, 200, gson.toJson(moviesStore.getMoviesByYear(year)));
-                    } catch (NumberFormatException e) {
-                        sendJson(ex, 400, gson.toJson(new ErrorResponse("Невалидный запрос",
-                                "Значение параметра запроса year должно быть целое число;")));
-                    }
-                } else {
-                    sendJson(ex, 400, gson.toJson(new ErrorResponse("Невалидный запрос",
-                            "Некорректный параметр запроса — 'year' или неправильная структура параметра;")));
-                }
+    private void processGetList(HttpExchange ex, RouteMatch match) throws IOException {
+        QueryParams query = match.query();
+        if (query.isEmpty()) {
+            boolean binary = prefersBinary(ex);
+            if (notModified(ex, moviesStore.getVersion(), binary)) {
+                return;
             }
-        } else if (path.length == 3) {
-            try {
-                int id = Integer.parseInt(path[2]);
-                if (moviesStore.containsID(id)) {
-                    sendJson(ex, 200, gson.toJson(moviesStore.getMovie(id)));
-                } else {
-                    sendJson(ex, 404, gson.toJson(new ErrorResponse("Отсутствующий ID",
-                            "Фильм не найден;")));
+            if (binary) {
+                ex.getResponseHeaders().set("Content-Type", MovieBinaryCodec.MEDIA_TYPE);
+                try (MovieBinaryWriter writer = new MovieBinaryWriter(compression.open(ex, 200))) {
+                    for (Movie movie : moviesStore.moviesView()) {
+                        writer.write(movie);
+                    }
                 }
-            } catch (NumberFormatException e) {
-                sendJson(ex, 400, gson.toJson(new ErrorResponse("Некорректный ID",
-                        "Был передан неверный ID;")));
+            } else {
+                sendJsonStream(ex, 200, out -> writeMovies(out, moviesStore.moviesView()));
             }
         } else {
-            sendJson(ex, 400, gson.toJson(new ErrorResponse("Неверный запрос",
-                    "Ошибка в составлении запроса;")));
+            processListQuery(ex, query);
         }
     }
 
-    private void processPostMethod(HttpExchange ex) throws IOException {
-        InputStream is = ex.getRequestBody();
+    // Собирается из счётчиков по годам, без обхода каталога
+    private void processGetStats(HttpExchange ex, RouteMatch match) throws IOException {
+        if (!notModified(ex, moviesStore.getVersion(), false)) {
+            sendJson(ex, 200, MovieJsonCodec.encode(MovieStats.fromYearCounts(moviesStore.getYearCounts())));
+        }
+    }
 
-        String body = new String(is.readAllBytes());
+    private void processGetMovie(HttpExchange ex, RouteMatch match) throws IOException {
+        int id;
+        try {
+            id = match.intParam();
+        } catch (NumberFormatException e) {
+            sendJson(ex, 400, INVALID_ID_BODY);
+            return;
+        }
+        Movie movie = moviesStore.getMovie(id);
+        if (movie == null) {
+            sendJson(ex, 404, NOT_FOUND_BODY);
+        } else if (prefersBinary(ex)) {
+            sendBytes(ex, 200, MovieBinaryCodec.MEDIA_TYPE, MovieBinaryCodec.encode(movie));
+        } else {
+            sendJson(ex, 200, movieJson(movie));
+        }
+    }
 
-        JsonElement jsonElement = JsonParser.parseString(body);
+    private void processListQuery(HttpExchange ex, QueryParams query) throws IOException {
+        if (query.isMalformed() || !query.namesIn(LIST_PARAMS)) {
+            sendJson(ex, 400, INVALID_PARAM_BODY);
+            return;
+        }
 
-        Headers headers = ex.getRequestHeaders();
+        if (query.has("q")) {
+            processSearch(ex, query);
+            return;
+        }
 
-        if (!headers.containsKey("Content-Type") || !headers.get("Content-Type").getFirst().equals(CT_JSON)) {
-            sendJson(ex, 415, gson.toJson(new ErrorResponse("Неправильное значение заголовка Content-Type",
-                    "запрашиваемый тип данных не поддерживается;")));
+        boolean paged = query.has("limit") || query.has("cursor");
+        if (paged && (query.has("year") || query.has("from") || query.has("to"))) {
+            sendJson(ex, 400, PAGE_WITH_YEAR_BODY);
             return;
         }
 
-        if (!jsonElement.isJsonObject() || jsonElement.getAsJsonObject().get("title") == null || jsonElement
-                .getAsJsonObject().get("year") == null) {
-            sendJson(ex, 422, gson.toJson(new ErrorResponse("Ошибка валидации", "Неправильно " +
-                    "составлено тело запроса;")));
+        if (query.has("year") && query.size() > 1) {
+            sendJson(ex, 400, YEAR_WITH_RANGE_BODY);
             return;
         }
-        int year = jsonElement.getAsJsonObject().get("year").getAsInt();
 
-        String title = jsonElement.getAsJsonObject().get("title").getAsString();
+        String parsing = null;
+        try {
+            if (paged) {
+                parsing = "cursor";
+                int cursor = query.getInt(parsing, -1);
+                parsing = "limit";
+                int limit = query.getInt(parsing, DEFAULT_PAGE_SIZE);
+                processPage(ex, cursor, limit);
+                return;
+            }
+            if (query.has("year")) {
+                parsing = "year";
+                int year = query.getInt(parsing, 0);
+                boolean binary = prefersBinary(ex);
+                if (!notModified(ex, moviesStore.getYearVersion(year), binary)) {
+                    sendMovies(ex, moviesStore.getMoviesByYear(year), binary);
+                }
+                return;
+            }
+            parsing = "from";
+            int from = query.getInt(parsing, Integer.MIN_VALUE);
+            parsing = "to";
+            int to = query.getInt(parsing, Integer.MAX_VALUE);
+            if (from > to) {
+                sendJson(ex, 400, FROM_AFTER_TO_BODY);
+                return;
+            }
+            boolean binary = prefersBinary(ex);
+            if (!notModified(ex, moviesStore.getYearRangeVersion(from, to), binary)) {
+                sendMovies(ex, moviesStore.getMoviesByYearRange(from, to), binary);
+            }
+        } catch (NumberFormatException e) {
+            sendJson(ex, 400, errorBody(INVALID_QUERY,
+                    "Значение параметра запроса " + parsing + " должно быть целое число"));
+        }
+    }
 
-        StringBuilder errors = new StringBuilder();
+    private void processSearch(HttpExchange ex, QueryParams query) throws IOException {
+        if (query.size() > (query.has("limit") ? 2 : 1)) {
+            sendJson(ex, 400, SEARCH_COMBINED_BODY);
+            return;
+        }
+        int limit;
+        try {
+            limit = query.getInt("limit", DEFAULT_PAGE_SIZE);
+        } catch (NumberFormatException e) {
+            sendJson(ex, 400, errorBody(INVALID_QUERY, "Значение параметра запроса limit должно быть целое число"));
+            return;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            sendJson(ex, 400, INVALID_LIMIT_BODY);
+            return;
+        }
+        long version = moviesStore.getVersion();
+        List<Movie> found;
+        try {
+            found = moviesStore.searchByTitle(query.get("q"), limit);
+        } catch (IllegalArgumentException e) {
+            sendJson(ex, 400, errorBody(INVALID_QUERY, e.getMessage()));
+            return;
+        }
+        boolean binary = prefersBinary(ex);
+        if (!notModified(ex, version, binary)) {
+            sendMovies(ex, found, binary);
+        }
+    }
+
+    private void processPage(HttpExchange ex, int cursor, int limit) throws IOException {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            sendJson(ex, 400, INVALID_LIMIT_BODY);
+            return;
+        }
+        boolean binary = prefersBinary(ex);
+        if (notModified(ex, moviesStore.getVersion(), binary)) {
+            return;
+        }
+        // Берём на один фильм больше, чтобы понять, есть ли следующая страница
+        List<Movie> page = moviesStore.getMoviesPage(cursor, limit + 1);
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            ex.getResponseHeaders().set(NEXT_CURSOR_HEADER, String.valueOf(page.getLast().getID()));
+        }
+        sendMovies(ex, page, binary);
+    }
+
+    // Версию нужно прочитать до данных ответа: тогда тег не опередит содержимое.
+    // binary — выбранное представление, оно входит в тег
+    private boolean notModified(HttpExchange ex, long version, boolean binary) throws IOException {
+        String etag = ConditionalGet.etag(moviesStore.getEpoch(), version, binary);
+        if (ConditionalGet.isNotModified(ex, etag, moviesStore.getLastModified())) {
+            sendNotModified(ex);
+            return true;
+        }
+        return false;
+    }
+
+    private void sendMovies(HttpExchange ex, List<Movie> movies, boolean binary) throws IOException {
+        if (binary) {
+            sendBytes(ex, 200, MovieBinaryCodec.MEDIA_TYPE, MovieBinaryCodec.encode(movies));
+        } else {
+            sendJson(ex, 200, MovieJsonCodec.encode(movies));
+        }
+    }
+
+    // Двоичный формат — только если клиент назвал его в Accept и не предпочёл ему JSON
+    private static boolean prefersBinary(HttpExchange ex) {
+        ex.getResponseHeaders().add("Vary", "Accept");
+        String accept = ex.getRequestHeaders().getFirst("Accept");
+        if (accept == null || !accept.contains(MovieBinaryCodec.MEDIA_TYPE)) {
+            return false;
+        }
+        double binary = HeaderValues.qualityOf(accept, MovieBinaryCodec.MEDIA_TYPE);
+        return binary > 0 && binary >= HeaderValues.qualityOf(accept, "application/json");
+    }
+
+    private static boolean isBinary(String contentType) {
+        return contentType != null && contentType.startsWith(MovieBinaryCodec.MEDIA_TYPE);
+    }
 
-        if (year < 1888 || Year.now().getValue() + 1 < year) {
-            errors.append("Год должен быть между 1888 и 2026;");
+    private EncodedBody movieJson(Movie movie) {
+        if (movieCache == null) {
+            return new EncodedBody(MovieJsonCodec.encode(movie));
         }
-        if (title.isEmpty()) {
-            errors.append("Название не должно быть пустым;");
+        EncodedBody body = movieCache.get(movie);
+        if (body == null) {
+            body = new EncodedBody(MovieJsonCodec.encode(movie));
+            movieCache.put(movie, body);
+        }
+        return body;
+    }
+
+    private void writeMovies(JsonOutput out, Iterable<Movie> movies) {
+        out.raw('[');
+        boolean first = true;
+        for (Movie movie : movies) {
+            if (!first) {
+                out.raw(',');
+            }
+            first = false;
+            MovieJsonCodec.write(out, movie);
         }
-        if (title.length() > 100) {
-            errors.append("Название слишком длинное;");
+        out.raw(']');
+    }
+
+    private void processPostMethod(HttpExchange ex, RouteMatch match) throws IOException {
+        String contentType = ex.getRequestHeaders().getFirst("Content-Type");
+        byte[] body = ex.getRequestBody().readAllBytes();
+        NewMovie newMovie;
+        boolean binary = isBinary(contentType);
+        if (!binary && !CT_JSON.equals(contentType)) {
+            sendJson(ex, 415, UNSUPPORTED_TYPE_BODY);
+            return;
         }
+        try {
+            newMovie = binary ? MovieBinaryCodec.decodeNewMovie(body) : MovieJsonCodec.decodeNewMovie(body);
+        } catch (IllegalArgumentException e) {
+            sendJson(ex, 422, MovieValidator.MALFORMED_BODY);
+            return;
+        }
+
+        List<String> errors = MovieValidator.validate(newMovie.getTitle(), newMovie.getYear());
         if (!errors.isEmpty()) {
-            sendJson(ex, 422, gson.toJson(new ErrorResponse("Ошибка валидации", errors.toString())));
+            sendJson(ex, 422, errorBody(MovieValidator.VALIDATION_ERROR, errors.toArray(String[]::new)));
             return;
         }
-        sendJson(ex, 201, gson.toJson(moviesStore.addNewMovie(title, year)));
+        Movie added = moviesStore.addNewMovie(newMovie.getTitle(), newMovie.getYear());
+        if (prefersBinary(ex)) {
+            sendBytes(ex, 201, MovieBinaryCodec.MEDIA_TYPE, MovieBinaryCodec.encode(added));
+        } else {
+            sendJson(ex, 201, MovieJsonCodec.encode(added));
+        }
     }
 
-    private void processDeleteMethod(HttpExchange ex) throws IOException {
-        String[] path = ex.getRequestURI().toString().split("/");
-        if (path.length == 3) {
-            try {
-                int id = Integer.parseInt(path[2]);
-                if (moviesStore.containsID(id)) {
-                    moviesStore.deleteMovie(id);
-                    sendNoContent(ex);
-                } else {
-                    sendJson(ex, 404, gson.toJson(new ErrorResponse("Отсутствующий ID",
-                            "Фильм не найден;")));
-                }
-            } catch (NumberFormatException e) {
-                sendJson(ex, 400, gson.toJson(new ErrorResponse("Некорректный ID",
-                        "Был передан неверный ID;")));
-            }
+    private void processDeleteMethod(HttpExchange ex, RouteMatch match) throws IOException {
+        int id;
+        try {
+            id = match.intParam();
+        } catch (NumberFormatException e) {
+            sendJson(ex, 400, INVALID_ID_BODY);
+            return;
+        }
+        if (moviesStore.deleteMovie(id)) {
+            sendNoContent(ex);
         } else {
-            sendJson(ex, 400, gson.toJson(new ErrorResponse("Неверный запрос",
-                    "Ошибка в составлении запроса;")));
+            sendJson(ex, 404, NOT_FOUND_BODY);
         }
     }
 }
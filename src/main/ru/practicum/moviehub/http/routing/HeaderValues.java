@@ -0,0 +1,35 @@
+package ru.practicum.moviehub.http.routing;
+
+// Разбор значений заголовков со списками вида "gzip;q=0.8, deflate"
+public final class HeaderValues {
+    private HeaderValues() {
+    }
+
+    // Вес q из параметров элемента списка (всё после первого ';'); без q — 1, нечисловой q — 0
+    public static double quality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(trimmed.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    // Вес, с которым список принимает значение (без учёта регистра); -1 — значение не названо
+    public static double qualityOf(String header, String value) {
+        double result = -1;
+        for (String part : header.split(",")) {
+            int semicolon = part.indexOf(';');
+            String item = (semicolon < 0 ? part : part.substring(0, semicolon)).trim();
+            if (item.equalsIgnoreCase(value)) {
+                result = semicolon < 0 ? 1 : quality(part.substring(semicolon + 1));
+            }
+        }
+        return result;
+    }
+}
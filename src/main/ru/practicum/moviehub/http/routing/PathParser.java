@@ -0,0 +1,34 @@
+package ru.practicum.moviehub.http.routing;
+
+final class PathParser {
+    private PathParser() {
+    }
+
+    // Integer.parseInt для участка строки, без substring
+    static int parseInt(String s, int start, int end) {
+        if (start >= end) {
+            throw new NumberFormatException("Пустое число");
+        }
+        boolean negative = s.charAt(start) == '-';
+        int i = negative || s.charAt(start) == '+' ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("Нет цифр");
+        }
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Не число");
+            }
+            result = result * 10 + digit;
+            if (result > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("Переполнение");
+            }
+        }
+        result = negative ? -result : result;
+        if (result > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Переполнение");
+        }
+        return (int) result;
+    }
+}
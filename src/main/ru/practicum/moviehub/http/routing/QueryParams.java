@@ -0,0 +1,128 @@
+package ru.practicum.moviehub.http.routing;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Параметры запроса без regex и промежуточных строк: хранятся только границы имён и значений
+// в исходной строке. Строка создаётся, лишь когда значение запрошено как текст.
+public final class QueryParams {
+    private static final QueryParams EMPTY = new QueryParams("", new int[0], 0, false);
+
+    private final String query;
+    // для i-го параметра: начало имени, '=', конец значения
+    private final int[] bounds;
+    private final int size;
+    private final boolean malformed;
+
+    private QueryParams(String query, int[] bounds, int size, boolean malformed) {
+        this.query = query;
+        this.bounds = bounds;
+        this.size = size;
+        this.malformed = malformed;
+    }
+
+    public static QueryParams parse(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return EMPTY;
+        }
+        int[] bounds = new int[12];
+        int size = 0;
+        boolean malformed = false;
+        int start = 0;
+        int length = rawQuery.length();
+        while (start < length) {
+            int end = rawQuery.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            // имя и значение должны быть непустыми, а '=' — единственным
+            int eq = rawQuery.indexOf('=', start);
+            boolean valid = eq > start && eq < end - 1;
+            if (valid) {
+                int second = rawQuery.indexOf('=', eq + 1);
+                valid = second < 0 || second >= end;
+            }
+            if (!valid) {
+                malformed = true;
+            } else {
+                if (size * 3 == bounds.length) {
+                    bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                }
+                bounds[size * 3] = start;
+                bounds[size * 3 + 1] = eq;
+                bounds[size * 3 + 2] = end;
+                size++;
+            }
+            start = end + 1;
+        }
+        return new QueryParams(rawQuery, bounds, size, malformed);
+    }
+
+    public boolean isEmpty() {
+        return size == 0 && !malformed;
+    }
+
+    // Есть пара без '=' или с пустым именем/значением
+    public boolean isMalformed() {
+        return malformed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean has(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    // Все имена параметров входят в allowed
+    public boolean namesIn(String... allowed) {
+        for (int i = 0; i < size; i++) {
+            boolean known = false;
+            for (String name : allowed) {
+                if (nameEquals(i, name)) {
+                    known = true;
+                    break;
+                }
+            }
+            if (!known) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String get(String name) {
+        int i = indexOf(name);
+        if (i < 0) {
+            return null;
+        }
+        String raw = query.substring(bounds[i * 3 + 1] + 1, bounds[i * 3 + 2]);
+        return raw.indexOf('%') < 0 && raw.indexOf('+') < 0 ? raw : URLDecoder.decode(raw, StandardCharsets.UTF_8);
+    }
+
+    // Целое значение разбирается прямо в исходной строке
+    public int getInt(String name, int defaultValue) {
+        int i = indexOf(name);
+        if (i < 0) {
+            return defaultValue;
+        }
+        return PathParser.parseInt(query, bounds[i * 3 + 1] + 1, bounds[i * 3 + 2]);
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < size; i++) {
+            if (nameEquals(i, name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean nameEquals(int i, String name) {
+        int start = bounds[i * 3];
+        int length = bounds[i * 3 + 1] - start;
+        return length == name.length() && query.regionMatches(start, name, 0, length);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.moviehub.http.routing;
+
+import com.sun.net.httpserver.HttpExchange;
+
+public final class RouteMatch {
+    private final HttpExchange exchange;
+    private final String path;
+    private final int paramStart;
+    private final int paramEnd;
+    private QueryParams query;
+
+    RouteMatch(HttpExchange exchange, String path, int paramStart, int paramEnd) {
+        this.exchange = exchange;
+        this.path = path;
+        this.paramStart = paramStart;
+        this.paramEnd = paramEnd;
+    }
+
+    // Параметр пути как целое; NumberFormatException, если это не число
+    public int intParam() {
+        return PathParser.parseInt(path, paramStart, paramEnd);
+    }
+
+    public QueryParams query() {
+        if (query == null) {
+            query = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+        }
+        return query;
+    }
+}
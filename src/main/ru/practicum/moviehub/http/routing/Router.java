@@ -0,0 +1,125 @@
+package ru.practicum.moviehub.http.routing;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Сопоставляет метод и путь с обработчиком. Шаблоны состоят из литеральных сегментов и
+// одного параметра вида {id}; путь сравнивается посимвольно, без split и regex.
+public final class Router {
+    public enum Outcome {
+        HANDLED,
+        NOT_FOUND,
+        METHOD_NOT_ALLOWED
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void handle(HttpExchange exchange, RouteMatch match) throws IOException;
+    }
+
+    private final List<Route> routes = new ArrayList<>();
+
+    public Router get(String pattern, Action action) {
+        return add("GET", pattern, action);
+    }
+
+    public Router post(String pattern, Action action) {
+        return add("POST", pattern, action);
+    }
+
+    public Router delete(String pattern, Action action) {
+        return add("DELETE", pattern, action);
+    }
+
+    public Router add(String method, String pattern, Action action) {
+        routes.add(new Route(method, pattern, action));
+        return this;
+    }
+
+    public Outcome dispatch(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getRawPath();
+        String method = exchange.getRequestMethod();
+        boolean pathMatched = false;
+        for (Route route : routes) {
+            long param = route.match(path);
+            if (param == Route.NO_MATCH) {
+                continue;
+            }
+            pathMatched = true;
+            if (route.method.equals(method)) {
+                route.action.handle(exchange, new RouteMatch(exchange, path, (int) (param >>> 32), (int) param));
+                return Outcome.HANDLED;
+            }
+        }
+        return pathMatched ? Outcome.METHOD_NOT_ALLOWED : Outcome.NOT_FOUND;
+    }
+
+    // Проверка без HttpExchange — для тестов и бенчмарков
+    public boolean matches(String method, String path) {
+        for (Route route : routes) {
+            if (route.method.equals(method) && route.match(path) != Route.NO_MATCH) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Route {
+        static final long NO_MATCH = -1;
+
+        private final String method;
+        // null на месте параметра
+        private final String[] segments;
+        private final Action action;
+
+        private Route(String method, String pattern, Action action) {
+            if (!pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Шаблон должен начинаться с '/': " + pattern);
+            }
+            this.method = method;
+            this.action = action;
+            String[] parts = pattern.substring(1).split("/");
+            for (int i = 0; i < parts.length; i++) {
+                if (parts[i].startsWith("{") && parts[i].endsWith("}")) {
+                    parts[i] = null;
+                }
+            }
+            this.segments = parts;
+        }
+
+        // Границы параметра, упакованные в long (начало << 32 | конец), либо NO_MATCH
+        private long match(String path) {
+            int length = path.length();
+            // завершающий '/' не важен: /movies/ то же, что /movies
+            if (length > 1 && path.charAt(length - 1) == '/') {
+                length--;
+            }
+            int position = 0;
+            long param = 0;
+            for (String segment : segments) {
+                if (position >= length || path.charAt(position) != '/') {
+                    return NO_MATCH;
+                }
+                position++;
+                int end = path.indexOf('/', position);
+                if (end < 0 || end > length) {
+                    end = length;
+                }
+                if (segment == null) {
+                    if (end == position) {
+                        return NO_MATCH;
+                    }
+                    param = (long) position << 32 | end;
+                } else if (end - position != segment.length()
+                        || !path.regionMatches(position, segment, 0, segment.length())) {
+                    return NO_MATCH;
+                }
+                position = end;
+            }
+            return position == length ? param : NO_MATCH;
+        }
+    }
+}
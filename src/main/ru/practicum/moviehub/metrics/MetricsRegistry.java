@@ -0,0 +1,103 @@
+package ru.practicum.moviehub.metrics;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+// Всё, что отдаётся на /metrics, в текстовом формате Prometheus
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final RequestMetrics requests = new RequestMetrics();
+    private final List<Metric> metrics = new CopyOnWriteArrayList<>();
+
+    public RequestMetrics requests() {
+        return requests;
+    }
+
+    // Значение, которое может и расти, и уменьшаться (размер хранилища, число запросов в работе)
+    public void gauge(String name, String help, LongSupplier value) {
+        metrics.add(new Metric(name, help, "gauge", value));
+    }
+
+    // Монотонно растущее значение, которое считает кто-то другой (кэш, журнал)
+    public void counter(String name, String help, LongSupplier value) {
+        metrics.add(new Metric(name, help, "counter", value));
+    }
+
+    public String render() {
+        StringBuilder out = new StringBuilder(4096);
+        header(out, "moviehub_requests_total", "Обработанные запросы по методу, маршруту и статусу", "counter");
+        for (int m = 0; m < RequestMetrics.METHODS.length; m++) {
+            for (int r = 0; r < RequestMetrics.ROUTES.length; r++) {
+                AtomicLongArray statuses = requests.statuses(m, r);
+                for (int status = 0; status < statuses.length(); status++) {
+                    long count = statuses.get(status);
+                    if (count > 0) {
+                        out.append("moviehub_requests_total");
+                        labels(out, m, r).append(",status=\"").append(status).append("\"} ").append(count)
+                                .append('\n');
+                    }
+                }
+            }
+        }
+
+        header(out, "moviehub_request_duration_seconds", "Время обработки запроса", "summary");
+        for (int m = 0; m < RequestMetrics.METHODS.length; m++) {
+            for (int r = 0; r < RequestMetrics.ROUTES.length; r++) {
+                LatencyHistogram histogram = requests.getLatency(m, r);
+                long count = histogram.getCount();
+                if (count == 0) {
+                    continue;
+                }
+                for (double quantile : QUANTILES) {
+                    out.append("moviehub_request_duration_seconds");
+                    labels(out, m, r).append(",quantile=\"").append(quantile).append("\"} ")
+                            .append(seconds(histogram.percentile(quantile))).append('\n');
+                }
+                out.append("moviehub_request_duration_seconds_sum");
+                labels(out, m, r).append("} ").append(seconds(histogram.getSumNanos())).append('\n');
+                out.append("moviehub_request_duration_seconds_count");
+                labels(out, m, r).append("} ").append(count).append('\n');
+            }
+        }
+
+        header(out, "moviehub_in_flight_requests", "Запросы, которые обрабатываются прямо сейчас", "gauge");
+        out.append("moviehub_in_flight_requests ").append(requests.getInFlight()).append('\n');
+        for (Metric metric : metrics) {
+            header(out, metric.name, metric.help, metric.type);
+            out.append(metric.name).append(' ').append(metric.value.getAsLong()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static StringBuilder labels(StringBuilder out, int method, int route) {
+        return out.append("{method=\"").append(RequestMetrics.METHODS[method])
+                .append("\",route=\"").append(RequestMetrics.ROUTES[route]).append('"');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static class Metric {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final LongSupplier value;
+
+        private Metric(String name, String help, String type, LongSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.value = value;
+        }
+    }
+}
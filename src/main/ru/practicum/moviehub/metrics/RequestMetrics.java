@@ -0,0 +1,77 @@
+package ru.practicum.moviehub.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Счётчики по (метод, маршрут, статус) и гистограммы задержек по (метод, маршрут).
+// Все ячейки создаются заранее, поэтому запись запроса ничего не выделяет.
+public class RequestMetrics {
+    static final String[] METHODS = {"GET", "POST", "DELETE", "OTHER"};
+    static final String[] ROUTES = {"/movies", "/movies/{id}", "/movies/batch", "/movies/stats", "other"};
+    private static final int MAX_STATUS = 600;
+
+    private final AtomicLongArray[][] statuses = new AtomicLongArray[METHODS.length][ROUTES.length];
+    private final LatencyHistogram[][] latencies = new LatencyHistogram[METHODS.length][ROUTES.length];
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public RequestMetrics() {
+        for (int m = 0; m < METHODS.length; m++) {
+            for (int r = 0; r < ROUTES.length; r++) {
+                statuses[m][r] = new AtomicLongArray(MAX_STATUS);
+                latencies[m][r] = new LatencyHistogram();
+            }
+        }
+    }
+
+    public static int methodIndex(String method) {
+        return switch (method) {
+            case "GET" -> 0;
+            case "POST" -> 1;
+            case "DELETE" -> 2;
+            default -> 3;
+        };
+    }
+
+    public static int routeIndex(String path) {
+        if (path.equals("/movies")) {
+            return 0;
+        }
+        if (path.equals("/movies/batch")) {
+            return 2;
+        }
+        // до префикса "/movies/", иначе статистика смешается с запросами фильма по id
+        if (path.equals("/movies/stats")) {
+            return 3;
+        }
+        if (path.startsWith("/movies/")) {
+            return 1;
+        }
+        return 4;
+    }
+
+    public void started() {
+        inFlight.incrementAndGet();
+    }
+
+    public void finished(int method, int route, int status, long nanos) {
+        inFlight.decrementAndGet();
+        statuses[method][route].incrementAndGet(status > 0 && status < MAX_STATUS ? status : 0);
+        latencies[method][route].record(nanos);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getCount(int method, int route, int status) {
+        return statuses[method][route].get(status);
+    }
+
+    public LatencyHistogram getLatency(int method, int route) {
+        return latencies[method][route];
+    }
+
+    AtomicLongArray statuses(int method, int route) {
+        return statuses[method][route];
+    }
+}
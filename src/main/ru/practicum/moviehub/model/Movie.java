@@ -1,5 +1,7 @@
 package ru.practicum.moviehub.model;
 
+import java.util.Objects;
+
 public class Movie {
     private final String title;
     private final int year;
@@ -22,4 +24,20 @@ public class Movie {
     public int getID() {
         return id;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Movie movie)) {
+            return false;
+        }
+        return year == movie.year && id == movie.id && title.equals(movie.title);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(title, year, id);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.moviehub.model;
+
+// Фильм, которому ещё не выдан ID
+public class NewMovie {
+    private final String title;
+    private final int year;
+
+    public NewMovie(String title, int year) {
+        this.title = title;
+        this.year = year;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getYear() {
+        return year;
+    }
+}
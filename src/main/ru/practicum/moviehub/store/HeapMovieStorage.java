@@ -0,0 +1,54 @@
+package ru.practicum.moviehub.store;
+
+import ru.practicum.moviehub.model.Movie;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class HeapMovieStorage implements MovieStorage {
+    // ID выдаются монотонно, поэтому порядок ключей совпадает с порядком добавления
+    private final ConcurrentNavigableMap<Integer, Movie> movies = new ConcurrentSkipListMap<>();
+
+    @Override
+    public Movie get(int id) {
+        return movies.get(id);
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return movies.containsKey(id);
+    }
+
+    @Override
+    public void put(Movie movie) {
+        movies.put(movie.getID(), movie);
+    }
+
+    @Override
+    public Movie remove(int id) {
+        return movies.remove(id);
+    }
+
+    @Override
+    public void clear() {
+        movies.clear();
+    }
+
+    @Override
+    public int size() {
+        return movies.size();
+    }
+
+    @Override
+    public Iterable<Movie> moviesAfter(int afterId) {
+        return Collections.unmodifiableCollection(movies.tailMap(afterId, false).values());
+    }
+
+    @Override
+    public int nextId() {
+        Map.Entry<Integer, Movie> last = movies.lastEntry();
+        return last == null ? 0 : last.getKey() + 1;
+    }
+}
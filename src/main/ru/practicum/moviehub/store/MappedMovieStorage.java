@@ -0,0 +1,493 @@
+package ru.practicum.moviehub.store;
+
+import ru.practicum.moviehub.model.Movie;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+// Фильмы вне кучи, в двух отображённых в память файлах. records.dat — заголовок и записи фиксированной
+// длины, адресуемые прямо по ID (ID выдаются подряд, так что позиция записи и есть индекс id -> смещение).
+// titles.dat — названия в UTF-8, дописываемые в конец. Индекс по годам тоже лежит вне кучи: записи одного года
+// связаны в список по возрастанию ID, а years.dat — отсортированный по году каталог голов и хвостов этих списков.
+// После рестарта файлы просто отображаются заново.
+public class MappedMovieStorage implements MovieStorage {
+    private static final int MAGIC = 0x4D564852;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int NEXT_ID_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int TITLES_END_OFFSET = 16;
+
+    // Запись: год, смещение названия, длина названия, состояние, соседние ID того же года
+    private static final int RECORD_SIZE = 24;
+    private static final int YEAR = 0;
+    private static final int TITLE_OFFSET = 4;
+    private static final int TITLE_LENGTH = 8;
+    private static final int STATE = 12;
+    private static final int PREV_IN_YEAR = 16;
+    private static final int NEXT_IN_YEAR = 20;
+    private static final int PRESENT = 1;
+    private static final int EMPTY = 0;
+    private static final int NONE = -1;
+
+    // years.dat: число годов, затем по году на строку — год, первый и последний ID, число фильмов.
+    // Строки не удаляются, пока не будет clear(): годов немного, а сдвиг при вставке нового года дешёвый
+    private static final int YEARS_HEADER_SIZE = 8;
+    private static final int YEAR_ENTRY_SIZE = 16;
+    private static final int ENTRY_HEAD = 4;
+    private static final int ENTRY_TAIL = 8;
+    private static final int ENTRY_COUNT = 12;
+
+    private static final long INITIAL_RECORDS_SIZE = HEADER_SIZE + (long) RECORD_SIZE * 64 * 1024;
+    private static final long INITIAL_TITLES_SIZE = 4L * 1024 * 1024;
+    private static final long INITIAL_YEARS_SIZE = YEARS_HEADER_SIZE + (long) YEAR_ENTRY_SIZE * 256;
+    private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class,
+            ByteOrder.BIG_ENDIAN);
+
+    private final FileChannel recordsChannel;
+    private final FileChannel titlesChannel;
+    private final FileChannel yearsChannel;
+    private volatile Mapping mapping;
+    // Каталог годов читается и меняется только под монитором хранилища
+    private MappedByteBuffer years;
+    private int yearEntries;
+    // Меняется при clear(): читатель, увидевший другую эпоху, не доверяет прочитанной записи
+    private volatile int epoch;
+    private volatile int nextId;
+    private volatile int count;
+    private int titlesEnd;
+
+    private MappedMovieStorage(FileChannel recordsChannel, FileChannel titlesChannel, FileChannel yearsChannel)
+            throws IOException {
+        this.recordsChannel = recordsChannel;
+        this.titlesChannel = titlesChannel;
+        this.yearsChannel = yearsChannel;
+        boolean fresh = recordsChannel.size() == 0;
+        boolean freshYears = yearsChannel.size() == 0;
+        MappedByteBuffer records = recordsChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(recordsChannel.size(), INITIAL_RECORDS_SIZE));
+        MappedByteBuffer titles = titlesChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(titlesChannel.size(), INITIAL_TITLES_SIZE));
+        mapping = new Mapping(records, titles);
+        years = yearsChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(yearsChannel.size(), INITIAL_YEARS_SIZE));
+        if (fresh) {
+            records.putInt(0, MAGIC);
+            records.putInt(4, FORMAT_VERSION);
+            writeHeader();
+            years.putInt(0, 0);
+        } else if (records.getInt(0) != MAGIC || records.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Файл не является каталогом фильмов");
+        }
+        nextId = records.getInt(NEXT_ID_OFFSET);
+        count = records.getInt(COUNT_OFFSET);
+        titlesEnd = records.getInt(TITLES_END_OFFSET);
+        yearEntries = years.getInt(0);
+        if (freshYears && !fresh) {
+            // years.dat потерян: связи годов восстанавливаются по записям, названия при этом не читаются
+            for (int id = 0; id < nextId; id++) {
+                int record = (int) recordPosition(id);
+                if (records.getInt(record + STATE) == PRESENT) {
+                    linkYear(id, records.getInt(record + YEAR));
+                }
+            }
+        }
+    }
+
+    public static MappedMovieStorage open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel records = FileChannel.open(directory.resolve("records.dat"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel titles = FileChannel.open(directory.resolve("titles.dat"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel years = FileChannel.open(directory.resolve("years.dat"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new MappedMovieStorage(records, titles, years);
+    }
+
+    @Override
+    public Movie get(int id) {
+        if (id < 0 || id >= nextId) {
+            return null;
+        }
+        int readEpoch = epoch;
+        long position = recordPosition(id);
+        MappedByteBuffer records = mapping.records;
+        if (position + RECORD_SIZE > records.capacity()
+                || (int) INT_VIEW.getAcquire(records, (int) position + STATE) != PRESENT) {
+            return null;
+        }
+        int year = records.getInt((int) position + YEAR);
+        int titleOffset = records.getInt((int) position + TITLE_OFFSET);
+        byte[] title = new byte[records.getInt((int) position + TITLE_LENGTH)];
+        // отображение названий могло вырасти после того, как мы прочитали records
+        mapping.titles.get(titleOffset, title);
+        if (epoch != readEpoch) {
+            return null;
+        }
+        return new Movie(new String(title, StandardCharsets.UTF_8), year, id);
+    }
+
+    @Override
+    public boolean contains(int id) {
+        if (id < 0 || id >= nextId) {
+            return false;
+        }
+        long position = recordPosition(id);
+        MappedByteBuffer records = mapping.records;
+        return position + RECORD_SIZE <= records.capacity()
+                && (int) INT_VIEW.getAcquire(records, (int) position + STATE) == PRESENT;
+    }
+
+    @Override
+    public synchronized void put(Movie movie) {
+        byte[] title = movie.getTitle().getBytes(StandardCharsets.UTF_8);
+        long position = recordPosition(movie.getID());
+        ensureCapacity(position + RECORD_SIZE, (long) titlesEnd + title.length);
+        Mapping current = mapping;
+        current.titles.put(titlesEnd, title);
+        int record = (int) position;
+        boolean existed = (int) INT_VIEW.getAcquire(current.records, record + STATE) == PRESENT;
+        if (existed) {
+            unlinkYear(movie.getID(), current.records.getInt(record + YEAR));
+        }
+        current.records.putInt(record + YEAR, movie.getYear());
+        current.records.putInt(record + TITLE_OFFSET, titlesEnd);
+        current.records.putInt(record + TITLE_LENGTH, title.length);
+        INT_VIEW.setRelease(current.records, record + STATE, PRESENT);
+        titlesEnd += title.length;
+        linkYear(movie.getID(), movie.getYear());
+        if (!existed) {
+            count++;
+        }
+        if (movie.getID() >= nextId) {
+            nextId = movie.getID() + 1;
+        }
+        writeHeader();
+    }
+
+    @Override
+    public synchronized Movie remove(int id) {
+        Movie movie = get(id);
+        if (movie == null) {
+            return null;
+        }
+        unlinkYear(id, movie.getYear());
+        INT_VIEW.setRelease(mapping.records, (int) recordPosition(id) + STATE, EMPTY);
+        count--;
+        writeHeader();
+        return movie;
+    }
+
+    // Место под названия освобождается только здесь: удалённые названия остаются в titles.dat до clear()
+    @Override
+    public synchronized void clear() {
+        epoch++;
+        MappedByteBuffer records = mapping.records;
+        for (int id = 0; id < nextId; id++) {
+            INT_VIEW.setRelease(records, (int) recordPosition(id) + STATE, EMPTY);
+        }
+        nextId = 0;
+        count = 0;
+        titlesEnd = 0;
+        yearEntries = 0;
+        years.putInt(0, 0);
+        writeHeader();
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public Iterable<Movie> moviesAfter(int afterId) {
+        return () -> new Iterator<>() {
+            private int id = Math.max(afterId, -1);
+            private Movie next = advance();
+
+            private Movie advance() {
+                while (++id < nextId) {
+                    Movie movie = get(id);
+                    if (movie != null) {
+                        return movie;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Movie next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Movie result = next;
+                next = advance();
+                return result;
+            }
+        };
+    }
+
+    @Override
+    public int nextId() {
+        return nextId;
+    }
+
+    // Идёт по спискам годов из years.dat, не трогая записи других годов. Читатели не ждут писателей:
+    // фильм, изменённый во время обхода, может попасть или не попасть в результат, но ID в нём
+    // строго растут внутри года, поэтому обход всегда заканчивается
+    @Override
+    public List<Movie> moviesByYears(int from, int to) {
+        List<Movie> result = new ArrayList<>();
+        int[] heads = yearHeads(from, to);
+        for (int i = 0; i < heads.length; i += 2) {
+            int year = heads[i];
+            int last = NONE;
+            for (int id = heads[i + 1]; id > last; id = nextInYear(id)) {
+                Movie movie = get(id);
+                if (movie != null && movie.getYear() == year) {
+                    result.add(movie);
+                }
+                last = id;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized NavigableMap<Integer, Integer> yearCounts() {
+        NavigableMap<Integer, Integer> counts = new TreeMap<>();
+        for (int index = 0; index < yearEntries; index++) {
+            int entry = yearPosition(index);
+            int movies = years.getInt(entry + ENTRY_COUNT);
+            if (movies > 0) {
+                counts.put(years.getInt(entry), movies);
+            }
+        }
+        return counts;
+    }
+
+    // get и обход каждый раз декодируют фильм из файла
+    @Override
+    public boolean keepsMoviesOnHeap() {
+        return false;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapping.records.force();
+        mapping.titles.force();
+        years.force();
+        recordsChannel.close();
+        titlesChannel.close();
+        yearsChannel.close();
+    }
+
+    // Пары (год, первый ID) непустых годов из [from, to]
+    private synchronized int[] yearHeads(int from, int to) {
+        if (from > to) {
+            return new int[0];
+        }
+        int first = findYear(from);
+        first = first < 0 ? -first - 1 : first;
+        int[] heads = new int[0];
+        int size = 0;
+        for (int index = first; index < yearEntries; index++) {
+            int entry = yearPosition(index);
+            int year = years.getInt(entry);
+            if (year > to) {
+                break;
+            }
+            int head = years.getInt(entry + ENTRY_HEAD);
+            if (head == NONE) {
+                continue;
+            }
+            if (size == heads.length) {
+                heads = Arrays.copyOf(heads, Math.max(8, size * 2));
+            }
+            heads[size++] = year;
+            heads[size++] = head;
+        }
+        return Arrays.copyOf(heads, size);
+    }
+
+    private int nextInYear(int id) {
+        if (id >= nextId) {
+            return NONE;
+        }
+        long position = recordPosition(id);
+        MappedByteBuffer records = mapping.records;
+        if (position + RECORD_SIZE > records.capacity()) {
+            return NONE;
+        }
+        return (int) INT_VIEW.getAcquire(records, (int) position + NEXT_IN_YEAR);
+    }
+
+    // Вставляет запись в список её года. ID обычно растут, и место находится сразу в хвосте;
+    // меньший ID (возврат фильма с уже выданным ID) ищет место, идя от хвоста назад
+    private void linkYear(int id, int year) {
+        int index = findYear(year);
+        if (index < 0) {
+            index = -index - 1;
+            insertYear(index, year);
+        }
+        int entry = yearPosition(index);
+        MappedByteBuffer records = mapping.records;
+        int next = NONE;
+        int prev = years.getInt(entry + ENTRY_TAIL);
+        while (prev != NONE && prev > id) {
+            next = prev;
+            prev = records.getInt((int) recordPosition(prev) + PREV_IN_YEAR);
+        }
+        int record = (int) recordPosition(id);
+        records.putInt(record + PREV_IN_YEAR, prev);
+        INT_VIEW.setRelease(records, record + NEXT_IN_YEAR, next);
+        if (next == NONE) {
+            years.putInt(entry + ENTRY_TAIL, id);
+        } else {
+            records.putInt((int) recordPosition(next) + PREV_IN_YEAR, id);
+        }
+        if (prev == NONE) {
+            years.putInt(entry + ENTRY_HEAD, id);
+        } else {
+            INT_VIEW.setRelease(records, (int) recordPosition(prev) + NEXT_IN_YEAR, id);
+        }
+        years.putInt(entry + ENTRY_COUNT, years.getInt(entry + ENTRY_COUNT) + 1);
+    }
+
+    // Ссылки самой записи не трогаем: читатель, стоящий на ней, дойдёт до следующего фильма года
+    private void unlinkYear(int id, int year) {
+        int entry = yearPosition(findYear(year));
+        MappedByteBuffer records = mapping.records;
+        int record = (int) recordPosition(id);
+        int prev = records.getInt(record + PREV_IN_YEAR);
+        int next = records.getInt(record + NEXT_IN_YEAR);
+        if (prev == NONE) {
+            years.putInt(entry + ENTRY_HEAD, next);
+        } else {
+            INT_VIEW.setRelease(records, (int) recordPosition(prev) + NEXT_IN_YEAR, next);
+        }
+        if (next == NONE) {
+            years.putInt(entry + ENTRY_TAIL, prev);
+        } else {
+            records.putInt((int) recordPosition(next) + PREV_IN_YEAR, prev);
+        }
+        years.putInt(entry + ENTRY_COUNT, years.getInt(entry + ENTRY_COUNT) - 1);
+    }
+
+    // Индекс строки года или -(точка вставки) - 1, как у Arrays.binarySearch
+    private int findYear(int year) {
+        int low = 0;
+        int high = yearEntries - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int found = years.getInt(yearPosition(middle));
+            if (found < year) {
+                low = middle + 1;
+            } else if (found > year) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -low - 1;
+    }
+
+    private void insertYear(int index, int year) {
+        long required = yearPosition(yearEntries + 1);
+        if (required > years.capacity()) {
+            try {
+                years = yearsChannel.map(FileChannel.MapMode.READ_WRITE, 0, grow(years.capacity(), required));
+            } catch (IOException e) {
+                throw new IllegalStateException("Не удалось увеличить файл индекса по годам", e);
+            }
+        }
+        int from = yearPosition(index);
+        for (int position = yearPosition(yearEntries) - 4; position >= from; position -= 4) {
+            years.putInt(position + YEAR_ENTRY_SIZE, years.getInt(position));
+        }
+        years.putInt(from, year);
+        years.putInt(from + ENTRY_HEAD, NONE);
+        years.putInt(from + ENTRY_TAIL, NONE);
+        years.putInt(from + ENTRY_COUNT, 0);
+        yearEntries++;
+        years.putInt(0, yearEntries);
+    }
+
+    private void ensureCapacity(long recordsSize, long titlesSize) {
+        if (titlesSize > Integer.MAX_VALUE || recordsSize > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Каталог превысил максимальный размер отображаемого файла");
+        }
+        Mapping current = mapping;
+        if (recordsSize <= current.records.capacity() && titlesSize <= current.titles.capacity()) {
+            return;
+        }
+        try {
+            MappedByteBuffer records = current.records;
+            if (recordsSize > records.capacity()) {
+                records = recordsChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        grow(records.capacity(), recordsSize));
+            }
+            MappedByteBuffer titles = current.titles;
+            if (titlesSize > titles.capacity()) {
+                titles = titlesChannel.map(FileChannel.MapMode.READ_WRITE, 0, grow(titles.capacity(), titlesSize));
+            }
+            mapping = new Mapping(records, titles);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось увеличить файл каталога", e);
+        }
+    }
+
+    private void writeHeader() {
+        MappedByteBuffer records = mapping.records;
+        records.putInt(NEXT_ID_OFFSET, nextId);
+        records.putInt(COUNT_OFFSET, count);
+        records.putInt(TITLES_END_OFFSET, titlesEnd);
+    }
+
+    private static long grow(long capacity, long required) {
+        long size = capacity;
+        while (size < required) {
+            size *= 2;
+        }
+        return Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static int yearPosition(int index) {
+        return YEARS_HEADER_SIZE + index * YEAR_ENTRY_SIZE;
+    }
+
+    private static long recordPosition(int id) {
+        return HEADER_SIZE + (long) id * RECORD_SIZE;
+    }
+
+    // Оба отображения публикуются вместе, чтобы читатель не увидел запись без её названия
+    private static class Mapping {
+        private final MappedByteBuffer records;
+        private final MappedByteBuffer titles;
+
+        private Mapping(MappedByteBuffer records, MappedByteBuffer titles) {
+            this.records = records;
+            this.titles = titles;
+        }
+    }
+}
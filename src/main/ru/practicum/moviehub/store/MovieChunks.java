@@ -0,0 +1,210 @@
+package ru.practicum.moviehub.store;
+
+import ru.practicum.moviehub.model.Movie;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+// Неизменяемая последовательность фильмов по возрастанию ID, нарезанная на куски до CHUNK_SIZE.
+// Новая версия копирует только куски, которых коснулись изменения, остальные общие с предыдущей
+final class MovieChunks {
+    static final MovieChunks EMPTY = new MovieChunks(new Movie[0][]);
+    private static final int CHUNK_SIZE = 1024;
+
+    private final Movie[][] chunks;
+    // offsets[i] — позиция первого фильма куска i, offsets[chunks.length] — размер
+    private final int[] offsets;
+
+    private MovieChunks(Movie[][] chunks) {
+        this.chunks = chunks;
+        offsets = offsets(chunks);
+    }
+
+    // movies должны идти по возрастанию ID
+    static MovieChunks of(List<Movie> movies) {
+        List<Movie[]> result = new ArrayList<>(movies.size() / CHUNK_SIZE + 1);
+        split(movies, result);
+        return new MovieChunks(result.toArray(Movie[][]::new));
+    }
+
+    int size() {
+        return offsets[chunks.length];
+    }
+
+    // changes: ID -> новый фильм или null, если фильм удалён
+    MovieChunks apply(NavigableMap<Integer, Movie> changes) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+        List<Movie[]> result = new ArrayList<>(chunks.length + 1);
+        Iterator<Map.Entry<Integer, Movie>> pending = changes.entrySet().iterator();
+        Map.Entry<Integer, Movie> next = pending.next();
+        for (int c = 0; c < chunks.length; c++) {
+            // кусок отвечает за ID до первого ID следующего куска, последний — за все остальные
+            long end = c + 1 < chunks.length ? chunks[c + 1][0].getID() : Long.MAX_VALUE;
+            if (next == null || next.getKey() >= end) {
+                result.add(chunks[c]);
+                continue;
+            }
+            List<Map.Entry<Integer, Movie>> local = new ArrayList<>();
+            while (next != null && next.getKey() < end) {
+                local.add(next);
+                next = pending.hasNext() ? pending.next() : null;
+            }
+            split(merge(chunks[c], local), result);
+        }
+        if (chunks.length == 0) {
+            split(merge(new Movie[0], new ArrayList<>(changes.entrySet())), result);
+        }
+        return new MovieChunks(result.toArray(Movie[][]::new));
+    }
+
+    List<Movie> asList() {
+        return new ChunkedList(chunks, offsets);
+    }
+
+    // Не более limit фильмов с ID строго больше afterId
+    List<Movie> after(int afterId, int limit) {
+        int low = 0;
+        int high = chunks.length - 1;
+        // последний кусок, чей первый ID не больше afterId
+        int chunk = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (chunks[middle][0].getID() <= afterId) {
+                chunk = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        int start;
+        if (chunk < 0) {
+            start = 0;
+        } else {
+            Movie[] movies = chunks[chunk];
+            int position = 0;
+            while (position < movies.length && movies[position].getID() <= afterId) {
+                position++;
+            }
+            start = offsets[chunk] + position;
+        }
+        return asList().subList(start, (int) Math.min(size(), (long) start + limit));
+    }
+
+    // Подряд идущие последовательности одним списком без копирования фильмов
+    static List<Movie> concat(Iterable<MovieChunks> parts) {
+        List<Movie[]> all = new ArrayList<>();
+        for (MovieChunks part : parts) {
+            all.addAll(Arrays.asList(part.chunks));
+        }
+        Movie[][] chunks = all.toArray(Movie[][]::new);
+        return new ChunkedList(chunks, offsets(chunks));
+    }
+
+    private static Movie[] merge(Movie[] base, List<Map.Entry<Integer, Movie>> changes) {
+        List<Movie> merged = new ArrayList<>(base.length + changes.size());
+        int i = 0;
+        for (Map.Entry<Integer, Movie> change : changes) {
+            int id = change.getKey();
+            while (i < base.length && base[i].getID() < id) {
+                merged.add(base[i++]);
+            }
+            if (i < base.length && base[i].getID() == id) {
+                i++;
+            }
+            if (change.getValue() != null) {
+                merged.add(change.getValue());
+            }
+        }
+        while (i < base.length) {
+            merged.add(base[i++]);
+        }
+        return merged.toArray(Movie[]::new);
+    }
+
+    private static void split(Movie[] movies, List<Movie[]> result) {
+        if (movies.length <= CHUNK_SIZE) {
+            if (movies.length > 0) {
+                result.add(movies);
+            }
+            return;
+        }
+        for (int from = 0; from < movies.length; from += CHUNK_SIZE) {
+            result.add(Arrays.copyOfRange(movies, from, Math.min(movies.length, from + CHUNK_SIZE)));
+        }
+    }
+
+    private static void split(List<Movie> movies, List<Movie[]> result) {
+        for (int from = 0; from < movies.size(); from += CHUNK_SIZE) {
+            result.add(movies.subList(from, Math.min(movies.size(), from + CHUNK_SIZE)).toArray(Movie[]::new));
+        }
+    }
+
+    private static int[] offsets(Movie[][] chunks) {
+        int[] offsets = new int[chunks.length + 1];
+        for (int i = 0; i < chunks.length; i++) {
+            offsets[i + 1] = offsets[i] + chunks[i].length;
+        }
+        return offsets;
+    }
+
+    private static final class ChunkedList extends AbstractList<Movie> implements RandomAccess {
+        private final Movie[][] chunks;
+        private final int[] offsets;
+
+        private ChunkedList(Movie[][] chunks, int[] offsets) {
+            this.chunks = chunks;
+            this.offsets = offsets;
+        }
+
+        @Override
+        public Movie get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int chunk = Arrays.binarySearch(offsets, index);
+            // среди равных смещений (пустых кусков нет) binarySearch найдёт ровно начало куска
+            chunk = chunk >= 0 ? chunk : -chunk - 2;
+            return chunks[chunk][index - offsets[chunk]];
+        }
+
+        @Override
+        public int size() {
+            return offsets[chunks.length];
+        }
+
+        @Override
+        public Iterator<Movie> iterator() {
+            return new Iterator<>() {
+                private int chunk;
+                private int position;
+
+                @Override
+                public boolean hasNext() {
+                    return chunk < chunks.length;
+                }
+
+                @Override
+                public Movie next() {
+                    if (chunk == chunks.length) {
+                        throw new NoSuchElementException();
+                    }
+                    Movie movie = chunks[chunk][position];
+                    if (++position == chunks[chunk].length) {
+                        chunk++;
+                        position = 0;
+                    }
+                    return movie;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.moviehub.store;
+
+import ru.practicum.moviehub.model.Movie;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Где физически лежат фильмы. MoviesStore отвечает за выдачу ID, индексы и слушателей,
+// а хранилище — только за сами записи. Изменения вызываются под замками MoviesStore.
+public interface MovieStorage extends Closeable {
+    Movie get(int id);
+
+    boolean contains(int id);
+
+    void put(Movie movie);
+
+    Movie remove(int id);
+
+    void clear();
+
+    int size();
+
+    // Фильмы с ID строго больше afterId в порядке возрастания ID
+    Iterable<Movie> moviesAfter(int afterId);
+
+    // ID, с которого можно продолжать выдачу, не пересекаясь с уже выданными
+    int nextId();
+
+    // Фильмы с годом из [from, to] по году, внутри года — по ID. Хранилище вне кучи ведёт для этого
+    // свой индекс: MoviesStore не держит индексов по его фильмам в куче
+    default List<Movie> moviesByYears(int from, int to) {
+        List<Movie> result = new ArrayList<>();
+        for (Movie movie : moviesAfter(-1)) {
+            if (movie.getYear() >= from && movie.getYear() <= to) {
+                result.add(movie);
+            }
+        }
+        result.sort(Comparator.comparingInt(Movie::getYear));
+        return result;
+    }
+
+    // год -> число фильмов этого года; годов без фильмов в карте нет
+    default NavigableMap<Integer, Integer> yearCounts() {
+        NavigableMap<Integer, Integer> counts = new TreeMap<>();
+        for (Movie movie : moviesAfter(-1)) {
+            counts.merge(movie.getYear(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    // Фильмы лежат объектами в куче: MoviesStore может держать списки снимками, не копируя данные
+    default boolean keepsMoviesOnHeap() {
+        return true;
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
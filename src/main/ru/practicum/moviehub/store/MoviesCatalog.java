@@ -0,0 +1,74 @@
+package ru.practicum.moviehub.store;
+
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.NavigableMap;
+
+// Каталог, с которым работает HTTP-слой: один MoviesStore или несколько шардов за ShardedMoviesStore.
+// Списки фильмов упорядочены по ID, выборка по диапазону лет — по году, внутри года по ID
+public interface MoviesCatalog extends Closeable {
+    Movie addNewMovie(String title, int year);
+
+    // Все фильмы получают подряд идущие ID
+    List<Movie> addNewMovies(List<NewMovie> newMovies);
+
+    Movie getMovie(int id);
+
+    boolean deleteMovie(int id);
+
+    // deleted[i] — был ли удалён фильм ids[i]
+    boolean[] deleteMovies(int[] ids);
+
+    List<Movie> getAllMovies();
+
+    // Представление без копирования. MoviesStore в куче отдаёт снимок одной версии,
+    // иначе обход слабо согласован с параллельными изменениями
+    Iterable<Movie> moviesView();
+
+    // Не более limit фильмов с ID строго больше afterId, в порядке ID
+    List<Movie> getMoviesPage(int afterId, int limit);
+
+    List<Movie> getMoviesByYear(int year);
+
+    List<Movie> getMoviesByYearRange(int from, int to);
+
+    // Число фильмов по годам, по возрастанию года, без годов с нулём. Счётчики ведутся при каждом
+    // изменении, поэтому ответ стоит O(числа различных лет), а не обхода каталога
+    NavigableMap<Integer, Integer> getYearCounts();
+
+    // Поиск по словам названия без учёта регистра; последнее слово запроса ищется как префикс.
+    // IllegalArgumentException, если в запросе нет ни одного слова
+    List<Movie> searchByTitle(String query, int limit);
+
+    int titleIndexTokens();
+
+    int size();
+
+    void clear();
+
+    // Случайная метка экземпляра: после рестарта те же номера версий означают другие данные
+    long getEpoch();
+
+    // Растёт при каждом изменении каталога
+    long getVersion();
+
+    default long getYearVersion(int year) {
+        return getYearRangeVersion(year, year);
+    }
+
+    // Версия выборки по годам из [from, to]: меняется, только когда меняются фильмы этих лет
+    long getYearRangeVersion(int from, int to);
+
+    // Время последнего изменения каталога, мс
+    long getLastModified();
+
+    void addListener(MoviesStoreListener listener);
+
+    @Override
+    default void close() throws IOException {
+    }
+}
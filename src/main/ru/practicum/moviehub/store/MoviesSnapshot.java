@@ -0,0 +1,99 @@
+package ru.practicum.moviehub.store;
+
+import ru.practicum.moviehub.model.Movie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Неизменяемое состояние каталога на одну версию: все фильмы и фильмы по годам, упорядоченные по ID.
+// Следующая версия строится применением пачки изменений и делит с предыдущей всё, чего они не коснулись
+final class MoviesSnapshot {
+    static final MoviesSnapshot EMPTY = new MoviesSnapshot(0, MovieChunks.EMPTY, Collections.emptyNavigableMap());
+
+    final long version;
+    private final MovieChunks all;
+    // год -> фильмы этого года; пустых годов нет
+    private final NavigableMap<Integer, MovieChunks> years;
+
+    private MoviesSnapshot(long version, MovieChunks all, NavigableMap<Integer, MovieChunks> years) {
+        this.version = version;
+        this.all = all;
+        this.years = years;
+    }
+
+    // movies должны идти по возрастанию ID
+    static MoviesSnapshot of(long version, Iterable<Movie> movies) {
+        List<Movie> sorted = new ArrayList<>();
+        Map<Integer, List<Movie>> byYear = new HashMap<>();
+        for (Movie movie : movies) {
+            sorted.add(movie);
+            byYear.computeIfAbsent(movie.getYear(), y -> new ArrayList<>()).add(movie);
+        }
+        NavigableMap<Integer, MovieChunks> years = new TreeMap<>();
+        byYear.forEach((year, yearMovies) -> years.put(year, MovieChunks.of(yearMovies)));
+        return new MoviesSnapshot(version, MovieChunks.of(sorted),
+                Collections.unmodifiableNavigableMap(years));
+    }
+
+    // Изменения применяются в порядке списка: для каждого ID важно только последнее
+    MoviesSnapshot apply(long newVersion, List<Change> changes) {
+        NavigableMap<Integer, Movie> allChanges = new TreeMap<>();
+        Map<Integer, NavigableMap<Integer, Movie>> yearChanges = new HashMap<>();
+        for (Change change : changes) {
+            Movie movie = change.deleted ? null : change.movie;
+            allChanges.put(change.movie.getID(), movie);
+            yearChanges.computeIfAbsent(change.movie.getYear(), y -> new TreeMap<>())
+                    .put(change.movie.getID(), movie);
+        }
+        NavigableMap<Integer, MovieChunks> newYears = new TreeMap<>(years);
+        yearChanges.forEach((year, yearChange) -> {
+            MovieChunks updated = years.getOrDefault(year, MovieChunks.EMPTY).apply(yearChange);
+            if (updated.size() == 0) {
+                newYears.remove(year);
+            } else {
+                newYears.put(year, updated);
+            }
+        });
+        return new MoviesSnapshot(newVersion, all.apply(allChanges), Collections.unmodifiableNavigableMap(newYears));
+    }
+
+    List<Movie> all() {
+        return all.asList();
+    }
+
+    int size() {
+        return all.size();
+    }
+
+    List<Movie> page(int afterId, int limit) {
+        return all.after(afterId, limit);
+    }
+
+    List<Movie> byYear(int year) {
+        MovieChunks movies = years.get(year);
+        return movies == null ? List.of() : movies.asList();
+    }
+
+    // По году, внутри года — по ID
+    List<Movie> byYearRange(int from, int to) {
+        if (from > to) {
+            return List.of();
+        }
+        return MovieChunks.concat(years.subMap(from, true, to, true).values());
+    }
+
+    static final class Change {
+        final Movie movie;
+        final boolean deleted;
+
+        Change(Movie movie, boolean deleted) {
+            this.movie = movie;
+            this.deleted = deleted;
+        }
+    }
+}
@@ -1,47 +1,474 @@
 package ru.practicum.moviehub.store;
 
 import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
 
-import java.util.LinkedHashMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
-public class MoviesStore {
-    private final Map<Integer, Movie> movies;
-    private int currentId = 0;
+public class MoviesStore implements MoviesCatalog {
+    private static final int STRIPES = 64;
+    // столько изменений без чтения списков — и снимок строится писателем, чтобы очередь не росла без предела
+    private static final int MAX_PENDING = 1 << 20;
+
+    private final MovieStorage storage;
+    // Для хранилища вне кучи строится при первом поиске: открытие файла не читает весь каталог.
+    // Меняется только под эксклюзивным clearLock, поэтому add/delete видят его неизменным
+    private volatile TitleIndex titleIndex;
+    // год -> число фильмов этого года; годов без фильмов в карте нет
+    private final ConcurrentNavigableMap<Integer, Integer> yearCounts = new ConcurrentSkipListMap<>();
+    private final AtomicInteger currentId = new AtomicInteger();
+    private final int firstId;
+    private final int idLimit;
+    // Версии растут после того, как изменение стало видно читателям: прочитавший версию
+    // до данных увидит всё, что в неё вошло. epoch отличает версии разных запусков
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+    private final AtomicLong version = new AtomicLong();
+    // год -> версия последнего изменения фильмов этого года
+    private final ConcurrentNavigableMap<Integer, Long> yearVersions = new ConcurrentSkipListMap<>();
+    private volatile long clearedVersion;
+    private volatile long lastModified = System.currentTimeMillis();
+    private final Object[] stripes;
+    private final List<MoviesStoreListener> listeners = new CopyOnWriteArrayList<>();
+    // add/delete берут общий замок, clear — эксклюзивный
+    private final ReadWriteLock clearLock = new ReentrantReadWriteLock();
+    // Списки отдаются из неизменяемого снимка последней версии. Снимок строится при первом чтении
+    // после изменений, сразу по всем накопленным; читатели не берут замков, пока версия не сменилась
+    private final boolean snapshots;
+    private volatile MoviesSnapshot snapshot;
+    private final Lock snapshotLock = new ReentrantLock();
+    private final Object pendingLock = new Object();
+    // изменения после snapshot; fromEmpty — после них был clear и строить нужно с пустого снимка
+    private List<MoviesSnapshot.Change> pending = new ArrayList<>();
+    private boolean pendingFromEmpty;
+    private volatile int pendingCount;
 
     public MoviesStore() {
-        movies = new LinkedHashMap<>();
+        this(new HeapMovieStorage());
+    }
+
+    // Хранилище может быть непустым (например, отображённый файл после рестарта). Для хранилища в куче
+    // индексы строятся по уже лежащим в нём фильмам, отображённый файл сам хранит индекс по годам
+    public MoviesStore(MovieStorage storage) {
+        this(storage, 0, Integer.MAX_VALUE);
+    }
+
+    // Новые ID выдаются только из [firstId, idLimit): так шарды делят пространство ID без общего счётчика
+    public MoviesStore(MovieStorage storage, int firstId, int idLimit) {
+        if (firstId < 0 || firstId >= idLimit) {
+            throw new IllegalArgumentException("Некорректный диапазон ID: [" + firstId + ", " + idLimit + ")");
+        }
+        this.storage = storage;
+        this.firstId = firstId;
+        this.idLimit = idLimit;
+        // снимок отображённого файла держал бы в куче весь каталог
+        snapshots = storage.keepsMoviesOnHeap();
+        stripes = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        if (snapshots) {
+            TitleIndex index = new TitleIndex();
+            for (Movie movie : storage.moviesAfter(-1)) {
+                index.add(movie);
+                yearCounts.merge(movie.getYear(), 1, Integer::sum);
+            }
+            titleIndex = index;
+            snapshot = MoviesSnapshot.of(0, storage.moviesAfter(-1));
+        } else {
+            yearCounts.putAll(storage.yearCounts());
+        }
+        currentId.set(Math.max(firstId, storage.nextId()));
     }
 
+    @Override
     public Movie addNewMovie(String title, int year) {
-        Movie newMovie = new Movie(title, year, currentId);
-        movies.put(currentId++, newMovie);
+        Movie newMovie;
+        clearLock.readLock().lock();
+        try {
+            newMovie = new Movie(title, year, allocateIds(1));
+            insert(newMovie);
+        } finally {
+            clearLock.readLock().unlock();
+        }
+        notifyCommitted();
         return newMovie;
     }
 
+    @Override
+    public List<Movie> addNewMovies(List<NewMovie> newMovies) {
+        List<Movie> added = new ArrayList<>(newMovies.size());
+        if (newMovies.isEmpty()) {
+            return added;
+        }
+        clearLock.readLock().lock();
+        try {
+            int first = allocateIds(newMovies.size());
+            for (int i = 0; i < newMovies.size(); i++) {
+                NewMovie newMovie = newMovies.get(i);
+                Movie movie = new Movie(newMovie.getTitle(), newMovie.getYear(), first + i);
+                insert(movie);
+                added.add(movie);
+            }
+        } finally {
+            clearLock.readLock().unlock();
+        }
+        notifyCommitted();
+        return added;
+    }
+
+    // Возвращает в хранилище фильм с уже выданным ID (восстановление после рестарта)
+    public void restoreMovie(Movie movie) {
+        restoreMovies(List.of(movie));
+    }
+
+    // То же для пачки: общий замок и уведомление afterChange — один раз на всю пачку
+    public void restoreMovies(List<Movie> movies) {
+        clearLock.readLock().lock();
+        try {
+            for (Movie movie : movies) {
+                currentId.accumulateAndGet(movie.getID() + 1, Math::max);
+                insert(movie);
+            }
+        } finally {
+            clearLock.readLock().unlock();
+        }
+        notifyCommitted();
+    }
+
+    @Override
     public List<Movie> getAllMovies() {
-        return movies.values().stream().toList();
+        if (snapshots) {
+            return snapshot().all();
+        }
+        List<Movie> result = new ArrayList<>(storage.size());
+        for (Movie movie : storage.moviesAfter(-1)) {
+            result.add(movie);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public Iterable<Movie> moviesView() {
+        if (snapshots) {
+            return snapshot().all();
+        }
+        return storage.moviesAfter(-1);
+    }
+
+    @Override
+    public List<Movie> getMoviesPage(int afterId, int limit) {
+        if (snapshots) {
+            return snapshot().page(afterId, limit);
+        }
+        List<Movie> result = new ArrayList<>(Math.min(limit, 1024));
+        for (Movie movie : storage.moviesAfter(afterId)) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(movie);
+        }
+        return result;
     }
 
+    @Override
     public List<Movie> getMoviesByYear(int year) {
-        return movies.values().stream().filter(movie -> movie.getYear() == year).toList();
+        if (snapshots) {
+            return snapshot().byYear(year);
+        }
+        return storage.moviesByYears(year, year);
     }
 
-    public void deleteMovie(int id) {
-        movies.remove(id);
+    // Фильмы с годом из [from, to], упорядоченные по году, внутри года — по ID
+    @Override
+    public List<Movie> getMoviesByYearRange(int from, int to) {
+        if (snapshots) {
+            return snapshot().byYearRange(from, to);
+        }
+        return storage.moviesByYears(from, to);
     }
 
+    @Override
+    public NavigableMap<Integer, Integer> getYearCounts() {
+        return new TreeMap<>(yearCounts);
+    }
+
+    @Override
+    public List<Movie> searchByTitle(String query, int limit) {
+        TitleIndex index = titleIndex;
+        if (index == null) {
+            index = buildTitleIndex();
+        }
+        return index.search(query, limit, storage);
+    }
+
+    @Override
+    public int titleIndexTokens() {
+        TitleIndex index = titleIndex;
+        return index == null ? 0 : index.tokens();
+    }
+
+    @Override
+    public boolean deleteMovie(int id) {
+        clearLock.readLock().lock();
+        try {
+            if (!remove(id)) {
+                return false;
+            }
+        } finally {
+            clearLock.readLock().unlock();
+        }
+        notifyCommitted();
+        return true;
+    }
+
+    @Override
+    public boolean[] deleteMovies(int[] ids) {
+        boolean[] deleted = new boolean[ids.length];
+        boolean changed = false;
+        clearLock.readLock().lock();
+        try {
+            for (int i = 0; i < ids.length; i++) {
+                deleted[i] = remove(ids[i]);
+                changed |= deleted[i];
+            }
+        } finally {
+            clearLock.readLock().unlock();
+        }
+        if (changed) {
+            notifyCommitted();
+        }
+        return deleted;
+    }
+
+    @Override
     public void clear() {
-        currentId = 0;
-        movies.clear();
+        clearLock.writeLock().lock();
+        try {
+            currentId.set(firstId);
+            storage.clear();
+            if (titleIndex != null) {
+                titleIndex.clear();
+            }
+            yearCounts.clear();
+            yearVersions.clear();
+            lastModified = System.currentTimeMillis();
+            synchronized (pendingLock) {
+                clearedVersion = version.incrementAndGet();
+                pending = new ArrayList<>();
+                pendingFromEmpty = true;
+                pendingCount = 0;
+            }
+            for (MoviesStoreListener listener : listeners) {
+                listener.onCleared();
+            }
+        } finally {
+            clearLock.writeLock().unlock();
+        }
+        notifyCommitted();
+    }
+
+    // Выполняет action, пока ни одно изменение не может начаться или быть в процессе
+    public <T> T withWritesPaused(Supplier<T> action) {
+        clearLock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            clearLock.writeLock().unlock();
+        }
+    }
+
+    // Следующие выдаваемые ID будут не меньше nextId
+    public void reserveIds(int nextId) {
+        currentId.accumulateAndGet(nextId, Math::max);
+    }
+
+    public int getNextId() {
+        return currentId.get();
+    }
+
+    @Override
+    public long getEpoch() {
+        return epoch;
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public long getYearRangeVersion(int from, int to) {
+        long result = clearedVersion;
+        if (from <= to) {
+            for (long yearVersion : yearVersions.subMap(from, true, to, true).values()) {
+                result = Math.max(result, yearVersion);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long getLastModified() {
+        return lastModified;
     }
 
     public boolean containsID(int id) {
-        return movies.containsKey(id);
+        return storage.contains(id);
     }
 
+    @Override
     public Movie getMovie(int id) {
-        return movies.get(id);
+        return storage.get(id);
+    }
+
+    @Override
+    public void addListener(MoviesStoreListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public int size() {
+        return storage.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        storage.close();
+    }
+
+    private int allocateIds(int count) {
+        while (true) {
+            int first = currentId.get();
+            if (first > idLimit - count) {
+                throw new IllegalStateException("Диапазон ID [" + firstId + ", " + idLimit + ") исчерпан");
+            }
+            if (currentId.compareAndSet(first, first + count)) {
+                return first;
+            }
+        }
+    }
+
+    private void insert(Movie movie) {
+        synchronized (stripeFor(movie.getID())) {
+            storage.put(movie);
+            if (titleIndex != null) {
+                titleIndex.add(movie);
+            }
+            yearCounts.merge(movie.getYear(), 1, Integer::sum);
+            markChanged(movie, false);
+            for (MoviesStoreListener listener : listeners) {
+                listener.onMovieAdded(movie);
+            }
+        }
+    }
+
+    private boolean remove(int id) {
+        synchronized (stripeFor(id)) {
+            Movie removed = storage.remove(id);
+            if (removed == null) {
+                return false;
+            }
+            if (titleIndex != null) {
+                titleIndex.remove(removed, storage::contains);
+            }
+            yearCounts.computeIfPresent(removed.getYear(), (year, count) -> count == 1 ? null : count - 1);
+            markChanged(removed, true);
+            for (MoviesStoreListener listener : listeners) {
+                listener.onMovieDeleted(removed);
+            }
+            return true;
+        }
+    }
+
+    // Версия и очередь снимка меняются вместе: снимок версии v содержит ровно изменения до v
+    private void markChanged(Movie movie, boolean deleted) {
+        lastModified = System.currentTimeMillis();
+        long changed;
+        if (snapshots) {
+            synchronized (pendingLock) {
+                changed = version.incrementAndGet();
+                pending.add(new MoviesSnapshot.Change(movie, deleted));
+                pendingCount = pending.size();
+            }
+        } else {
+            changed = version.incrementAndGet();
+        }
+        yearVersions.merge(movie.getYear(), changed, Math::max);
+    }
+
+    private MoviesSnapshot snapshot() {
+        MoviesSnapshot current = snapshot;
+        if (current.version == version.get()) {
+            return current;
+        }
+        snapshotLock.lock();
+        try {
+            current = snapshot;
+            long target;
+            List<MoviesSnapshot.Change> changes;
+            boolean fromEmpty;
+            synchronized (pendingLock) {
+                target = version.get();
+                if (current.version == target) {
+                    return current;
+                }
+                changes = pending;
+                fromEmpty = pendingFromEmpty;
+                pending = new ArrayList<>();
+                pendingFromEmpty = false;
+                pendingCount = 0;
+            }
+            current = (fromEmpty ? MoviesSnapshot.EMPTY : current).apply(target, changes);
+            snapshot = current;
+            return current;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void notifyCommitted() {
+        if (snapshots && pendingCount >= MAX_PENDING) {
+            snapshot();
+        }
+        for (MoviesStoreListener listener : listeners) {
+            listener.afterChange();
+        }
+    }
+
+    // Изменения на время обхода каталога останавливаются, чтобы ни одно не прошло мимо индекса
+    private TitleIndex buildTitleIndex() {
+        clearLock.writeLock().lock();
+        try {
+            if (titleIndex == null) {
+                TitleIndex index = new TitleIndex();
+                for (Movie movie : storage.moviesAfter(-1)) {
+                    index.add(movie);
+                }
+                titleIndex = index;
+            }
+            return titleIndex;
+        } finally {
+            clearLock.writeLock().unlock();
+        }
+    }
+
+    private Object stripeFor(int id) {
+        return stripes[id & (STRIPES - 1)];
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package ru.practicum.moviehub.store;
+
+import ru.practicum.moviehub.model.Movie;
+
+// Вызывается внутри замка на изменяемый ID, поэтому события по одному ID приходят в порядке изменений
+public interface MoviesStoreListener {
+    default void onMovieAdded(Movie movie) {
+    }
+
+    default void onMovieDeleted(Movie movie) {
+    }
+
+    default void onCleared() {
+    }
+
+    // Вызывается в том же потоке уже после снятия замков, например чтобы дождаться записи на диск
+    default void afterChange() {
+    }
+}
@@ -0,0 +1,329 @@
+package ru.practicum.moviehub.store;
+
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Каталог из нескольких MoviesStore в одном процессе. Шард i выдаёт ID из своего диапазона
+// [i * span, (i + 1) * span), поэтому запрос по ID уходит в один шард, а списки в порядке ID
+// получаются склейкой ответов шардов по порядку. Новые фильмы раскладываются по шардам по кругу
+public class ShardedMoviesStore implements MoviesCatalog {
+    private final MoviesStore[] shards;
+    private final int span;
+    // выборки по годам собираются со всех шардов параллельно
+    private final Executor gatherExecutor;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+
+    public ShardedMoviesStore(int shardCount) {
+        this(shardCount, ForkJoinPool.commonPool());
+    }
+
+    public ShardedMoviesStore(int shardCount, Executor gatherExecutor) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Число шардов должно быть положительным");
+        }
+        this.span = Integer.MAX_VALUE / shardCount;
+        this.gatherExecutor = gatherExecutor;
+        shards = new MoviesStore[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            int limit = i == shardCount - 1 ? Integer.MAX_VALUE : (i + 1) * span;
+            shards[i] = new MoviesStore(new HeapMovieStorage(), i * span, limit);
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public MoviesStore shard(int index) {
+        return shards[index];
+    }
+
+    @Override
+    public Movie addNewMovie(String title, int year) {
+        return placeOnShard(shard -> shard.addNewMovie(title, year));
+    }
+
+    // Пакет целиком уходит в один шард, чтобы ID остались подряд идущими
+    @Override
+    public List<Movie> addNewMovies(List<NewMovie> newMovies) {
+        if (newMovies.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return placeOnShard(shard -> shard.addNewMovies(newMovies));
+    }
+
+    @Override
+    public Movie getMovie(int id) {
+        return id < 0 ? null : shardFor(id).getMovie(id);
+    }
+
+    @Override
+    public boolean deleteMovie(int id) {
+        return id >= 0 && shardFor(id).deleteMovie(id);
+    }
+
+    @Override
+    public boolean[] deleteMovies(int[] ids) {
+        boolean[] deleted = new boolean[ids.length];
+        int[] positions = new int[ids.length];
+        int[] shardIds = new int[ids.length];
+        for (int s = 0; s < shards.length; s++) {
+            int count = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] >= 0 && shardIndex(ids[i]) == s) {
+                    positions[count] = i;
+                    shardIds[count++] = ids[i];
+                }
+            }
+            if (count == 0) {
+                continue;
+            }
+            boolean[] shardDeleted = shards[s].deleteMovies(Arrays.copyOf(shardIds, count));
+            for (int i = 0; i < count; i++) {
+                deleted[positions[i]] = shardDeleted[i];
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<Movie> getAllMovies() {
+        List<Movie> result = new ArrayList<>(size());
+        for (MoviesStore shard : shards) {
+            for (Movie movie : shard.moviesView()) {
+                result.add(movie);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public Iterable<Movie> moviesView() {
+        return () -> new Iterator<>() {
+            private int shard;
+            private Iterator<Movie> current = shards[0].moviesView().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (++shard == shards.length) {
+                        return false;
+                    }
+                    current = shards[shard].moviesView().iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public Movie next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    // Шарды до того, которому принадлежит afterId + 1, пропускаются: все их ID меньше
+    @Override
+    public List<Movie> getMoviesPage(int afterId, int limit) {
+        List<Movie> result = new ArrayList<>(Math.min(limit, 1024));
+        int first = afterId < 0 ? 0 : shardIndex(afterId);
+        for (int s = first; s < shards.length && result.size() < limit; s++) {
+            result.addAll(shards[s].getMoviesPage(afterId, limit - result.size()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Movie> getMoviesByYear(int year) {
+        List<Movie> result = new ArrayList<>();
+        for (List<Movie> part : gather(shard -> shard.getMoviesByYear(year))) {
+            result.addAll(part);
+        }
+        return result;
+    }
+
+    // Каждый шард отдаёт фильмы по году, внутри года по ID; списки сливаются с тем же порядком,
+    // а при равном годе меньший ID у шарда с меньшим номером
+    @Override
+    public List<Movie> getMoviesByYearRange(int from, int to) {
+        List<List<Movie>> parts = gather(shard -> shard.getMoviesByYearRange(from, to));
+        int total = 0;
+        for (List<Movie> part : parts) {
+            total += part.size();
+        }
+        List<Movie> result = new ArrayList<>(total);
+        int[] positions = new int[parts.size()];
+        while (result.size() < total) {
+            int best = -1;
+            for (int s = 0; s < parts.size(); s++) {
+                if (positions[s] < parts.get(s).size() && (best < 0
+                        || parts.get(s).get(positions[s]).getYear() < parts.get(best).get(positions[best]).getYear())) {
+                    best = s;
+                }
+            }
+            result.add(parts.get(best).get(positions[best]++));
+        }
+        return result;
+    }
+
+    @Override
+    public NavigableMap<Integer, Integer> getYearCounts() {
+        NavigableMap<Integer, Integer> counts = new TreeMap<>();
+        for (MoviesStore shard : shards) {
+            shard.getYearCounts().forEach((year, count) -> counts.merge(year, count, Integer::sum));
+        }
+        return counts;
+    }
+
+    // Шарды опрашиваются по порядку, пока не наберётся limit совпадений
+    @Override
+    public List<Movie> searchByTitle(String query, int limit) {
+        List<Movie> result = new ArrayList<>(Math.min(limit, 1024));
+        for (int s = 0; s < shards.length && result.size() < limit; s++) {
+            result.addAll(shards[s].searchByTitle(query, limit - result.size()));
+        }
+        return result;
+    }
+
+    // Слово, встречающееся в нескольких шардах, считается в каждом
+    @Override
+    public int titleIndexTokens() {
+        int tokens = 0;
+        for (MoviesStore shard : shards) {
+            tokens += shard.titleIndexTokens();
+        }
+        return tokens;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (MoviesStore shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    // Шарды очищаются по очереди, без общего замка
+    @Override
+    public void clear() {
+        for (MoviesStore shard : shards) {
+            shard.clear();
+        }
+    }
+
+    @Override
+    public long getEpoch() {
+        return epoch;
+    }
+
+    // Версии шардов не убывают, и при любом изменении растёт хотя бы одна, поэтому растёт и сумма
+    @Override
+    public long getVersion() {
+        long version = 0;
+        for (MoviesStore shard : shards) {
+            version += shard.getVersion();
+        }
+        return version;
+    }
+
+    @Override
+    public long getYearRangeVersion(int from, int to) {
+        long version = 0;
+        for (MoviesStore shard : shards) {
+            version += shard.getYearRangeVersion(from, to);
+        }
+        return version;
+    }
+
+    @Override
+    public long getLastModified() {
+        long lastModified = 0;
+        for (MoviesStore shard : shards) {
+            lastModified = Math.max(lastModified, shard.getLastModified());
+        }
+        return lastModified;
+    }
+
+    @Override
+    public void addListener(MoviesStoreListener listener) {
+        for (MoviesStore shard : shards) {
+            shard.addListener(listener);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (MoviesStore shard : shards) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Если диапазон ID шарда исчерпан, фильм уходит в следующий
+    private <T> T placeOnShard(Function<MoviesStore, T> insert) {
+        int start = Math.floorMod(nextShard.getAndIncrement(), shards.length);
+        IllegalStateException exhausted = null;
+        for (int i = 0; i < shards.length; i++) {
+            try {
+                return insert.apply(shards[(start + i) % shards.length]);
+            } catch (IllegalStateException e) {
+                exhausted = e;
+            }
+        }
+        throw exhausted;
+    }
+
+    // Первый шард опрашивается в вызывающем потоке, остальные — в gatherExecutor
+    private List<List<Movie>> gather(Function<MoviesStore, List<Movie>> query) {
+        List<CompletableFuture<List<Movie>>> pending = new ArrayList<>(shards.length - 1);
+        for (int s = 1; s < shards.length; s++) {
+            MoviesStore shard = shards[s];
+            pending.add(CompletableFuture.supplyAsync(() -> query.apply(shard), gatherExecutor));
+        }
+        List<List<Movie>> parts = new ArrayList<>(shards.length);
+        parts.add(query.apply(shards[0]));
+        for (CompletableFuture<List<Movie>> part : pending) {
+            parts.add(part.join());
+        }
+        return parts;
+    }
+
+    private MoviesStore shardFor(int id) {
+        return shards[shardIndex(id)];
+    }
+
+    private int shardIndex(int id) {
+        return Math.min(id / span, shards.length - 1);
+    }
+}
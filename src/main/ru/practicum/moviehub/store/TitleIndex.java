@@ -0,0 +1,321 @@
+package ru.practicum.moviehub.store;
+
+import ru.practicum.moviehub.model.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntPredicate;
+
+// Инвертированный индекс по словам названий: слово -> отсортированный список ID.
+// Слова упорядочены, поэтому тот же индекс отвечает и на поиск по префиксу.
+final class TitleIndex {
+    private final ConcurrentSkipListMap<String, Postings> index = new ConcurrentSkipListMap<>();
+
+    void add(Movie movie) {
+        for (String token : tokenize(movie.getTitle())) {
+            Postings postings;
+            do {
+                postings = index.computeIfAbsent(token, t -> new Postings());
+            } while (!postings.add(movie.getID()));
+        }
+    }
+
+    // alive — есть ли ID в хранилище; удалённый фильм должен быть уже убран оттуда
+    void remove(Movie movie, IntPredicate alive) {
+        for (String token : tokenize(movie.getTitle())) {
+            Postings postings = index.get(token);
+            if (postings == null) {
+                continue;
+            }
+            synchronized (postings) {
+                if (postings.markDeleted(alive)) {
+                    index.remove(token, postings);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        index.clear();
+    }
+
+    int tokens() {
+        return index.size();
+    }
+
+    // Не более limit фильмов, в названии которых есть все слова запроса (последнее — как префикс), по порядку ID
+    List<Movie> search(String query, int limit, MovieStorage storage) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Поисковый запрос должен содержать хотя бы одно слово");
+        }
+        List<Movie> result = new ArrayList<>(Math.min(limit, 1024));
+
+        // Кандидаты берутся из самого короткого списка, остальные слова проверяются по названию
+        IdCursor driver = null;
+        int driverSize = Integer.MAX_VALUE;
+        for (int i = 0; i < terms.size() - 1; i++) {
+            Postings postings = index.get(terms.get(i));
+            if (postings == null) {
+                return result;
+            }
+            int size = postings.size();
+            if (size < driverSize) {
+                driver = new PostingsCursor(postings);
+                driverSize = size;
+            }
+        }
+        // Списки слов префикса сливаются кучей, если это дешевле, чем идти по самому короткому точному списку:
+        // слияние трогает каждый список префикса, а проход по точному списку кончается, когда набралось limit
+        // совпадений — примерно через limit * driverSize / prefixSize кандидатов
+        List<Postings> prefixPostings = new ArrayList<>();
+        long prefixSize = 0;
+        boolean merge = true;
+        for (Postings postings : prefixRange(terms.getLast()).values()) {
+            prefixPostings.add(postings);
+            if (driver == null) {
+                continue;
+            }
+            prefixSize += postings.size();
+            if (prefixSize >= driverSize
+                    || prefixPostings.size() > (long) limit * driverSize / Math.max(1, prefixSize)) {
+                merge = false;
+                break;
+            }
+        }
+        if (prefixPostings.isEmpty()) {
+            return result;
+        }
+        if (merge) {
+            driver = new MergedCursor(prefixPostings);
+        }
+
+        // Единственное слово — сам префикс: каждый ID из его списков подходит, название не перепроверяется
+        boolean single = terms.size() == 1;
+        for (int id = driver.next(); id >= 0 && result.size() < limit; id = driver.next()) {
+            Movie movie = storage.get(id);
+            if (movie != null && (single || matches(movie.getTitle(), terms))) {
+                result.add(movie);
+            }
+        }
+        return result;
+    }
+
+    // Слова — непрерывные последовательности букв и цифр в нижнем регистре, без повторов
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!tokens.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean matches(String title, List<String> terms) {
+        List<String> tokens = tokenize(title);
+        for (int i = 0; i < terms.size() - 1; i++) {
+            if (!tokens.contains(terms.get(i))) {
+                return false;
+            }
+        }
+        String prefix = terms.getLast();
+        for (String token : tokens) {
+            if (token.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ConcurrentNavigableMap<String, Postings> prefixRange(String prefix) {
+        return index.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    // Отсортированные ID. Удаление ленивое: ID остаётся в массиве, пока мёртвых не станет
+    // половина, — тогда список сжимается по хранилищу. Читатели копируют его порциями под тем же замком.
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+        private int deleted;
+        // пустой список убран из индекса, добавлять в него нельзя
+        private boolean retired;
+
+        synchronized boolean add(int id) {
+            if (retired) {
+                return false;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            // ID почти всегда растут; не по порядку приходят только параллельные добавления и восстановление
+            if (size == 0 || ids[size - 1] < id) {
+                ids[size++] = id;
+                return true;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return true;
+            }
+            position = -position - 1;
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+            return true;
+        }
+
+        // true, если живых ID не осталось и список больше не используется
+        synchronized boolean markDeleted(IntPredicate alive) {
+            deleted++;
+            if (deleted * 2 < size) {
+                return false;
+            }
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (alive.test(ids[i])) {
+                    ids[kept++] = ids[i];
+                }
+            }
+            size = kept;
+            deleted = 0;
+            if (ids.length > 16 && size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, Math.max(16, size * 2));
+            }
+            retired = size == 0;
+            return retired;
+        }
+
+        // Копирует в buffer ID, большие afterId; возвращает их число
+        synchronized int read(int afterId, int[] buffer) {
+            int position = Arrays.binarySearch(ids, 0, size, afterId);
+            position = position >= 0 ? position + 1 : -position - 1;
+            int count = Math.min(buffer.length, size - position);
+            System.arraycopy(ids, position, buffer, 0, count);
+            return count;
+        }
+
+        // Первый ID или -1
+        synchronized int first() {
+            return size == 0 ? -1 : ids[0];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+
+    private interface IdCursor {
+        // Следующий ID по возрастанию или -1
+        int next();
+    }
+
+    private static final class PostingsCursor implements IdCursor {
+        private static final int CHUNK = 256;
+
+        private final Postings postings;
+        // буфер появляется при первом next(); первая порция маленькая: курсоров при слиянии префикса много
+        private int[] buffer;
+        private int position;
+        private int length;
+        private int head = -1;
+
+        private PostingsCursor(Postings postings) {
+            this.postings = postings;
+        }
+
+        // Встаёт на первый ID без буфера: до большинства курсоров слияния дело так и не доходит
+        int first() {
+            head = postings.first();
+            return head;
+        }
+
+        @Override
+        public int next() {
+            if (position == length) {
+                if (buffer == null) {
+                    buffer = new int[8];
+                } else if (length == buffer.length && buffer.length < CHUNK) {
+                    buffer = new int[CHUNK];
+                }
+                length = postings.read(head, buffer);
+                position = 0;
+                if (length == 0) {
+                    return -1;
+                }
+            }
+            head = buffer[position++];
+            return head;
+        }
+    }
+
+    // k-путевое слияние списков префикса: двоичная куча курсоров по их текущему ID
+    private static final class MergedCursor implements IdCursor {
+        private final PostingsCursor[] heap;
+        private int size;
+        private int last = -1;
+
+        private MergedCursor(List<Postings> lists) {
+            heap = new PostingsCursor[lists.size()];
+            for (Postings postings : lists) {
+                PostingsCursor cursor = new PostingsCursor(postings);
+                if (cursor.first() >= 0) {
+                    heap[size++] = cursor;
+                }
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        @Override
+        public int next() {
+            while (size > 0) {
+                PostingsCursor top = heap[0];
+                int id = top.head;
+                if (top.next() < 0) {
+                    heap[0] = heap[--size];
+                    heap[size] = null;
+                }
+                siftDown(0);
+                // одно название может дать несколько слов с общим префиксом
+                if (id != last) {
+                    last = id;
+                    return id;
+                }
+            }
+            return -1;
+        }
+
+        private void siftDown(int index) {
+            if (size == 0) {
+                return;
+            }
+            PostingsCursor cursor = heap[index];
+            int half = size / 2;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && heap[child + 1].head < heap[child].head) {
+                    child++;
+                }
+                if (cursor.head <= heap[child].head) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = cursor;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package ru.practicum.moviehub.store.persistence;
+
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.store.MoviesStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Хранение на диске: снимок snapshot-N.bin содержит состояние на момент начала журнала wal-N.log.
+// При старте загружается последний снимок и проигрываются журналы начиная с его поколения.
+public class MoviesPersistence implements Closeable {
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final String WAL_PREFIX = "wal-";
+    private static final String WAL_SUFFIX = ".log";
+
+    private final Path directory;
+    private final MoviesStore store;
+    private final WriteAheadLog wal;
+    private final ScheduledExecutorService scheduler;
+    private long generation;
+    private long recoveryMillis;
+    private int recoveredMovies;
+    private int replayedRecords;
+
+    private MoviesPersistence(Path directory, MoviesStore store, long generation) throws IOException {
+        this.directory = directory;
+        this.store = store;
+        this.generation = generation;
+        this.wal = new WriteAheadLog(walFile(generation));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Восстанавливает пустое хранилище из каталога и начинает журналировать его изменения
+    public static MoviesPersistence open(Path directory, MoviesStore store, int snapshotIntervalSeconds)
+            throws IOException {
+        if (store.size() != 0) {
+            throw new IllegalStateException("Восстанавливать можно только пустое хранилище");
+        }
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+
+        TreeSet<Long> snapshots = generations(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        TreeSet<Long> logs = generations(directory, WAL_PREFIX, WAL_SUFFIX);
+        long base = snapshots.isEmpty() ? 0 : snapshots.last();
+        int movies = 0;
+        if (!snapshots.isEmpty()) {
+            movies = SnapshotFile.load(snapshotFile(directory, base), store);
+        }
+        int records = 0;
+        for (long log : logs.tailSet(base, true)) {
+            records += WriteAheadLog.replay(walFile(directory, log), store);
+        }
+        long generation = logs.isEmpty() ? base : Math.max(base, logs.last());
+
+        MoviesPersistence persistence = new MoviesPersistence(directory, store, generation);
+        persistence.recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        persistence.recoveredMovies = movies;
+        persistence.replayedRecords = records;
+        persistence.deleteOlderThan(base);
+        store.addListener(persistence.wal);
+        if (snapshotIntervalSeconds > 0) {
+            persistence.scheduler.scheduleWithFixedDelay(persistence::scheduledSnapshot,
+                    snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+        System.out.println("Хранилище восстановлено за " + persistence.recoveryMillis + " мс: фильмов в снимке — "
+                + movies + ", записей журнала — " + records);
+        return persistence;
+    }
+
+    // Снимок делается в новом поколении: журнал переключается, пока изменения приостановлены,
+    // а сам файл снимка пишется уже без блокировки хранилища
+    public synchronized void snapshot() throws IOException {
+        long next = generation + 1;
+        Captured captured;
+        try {
+            captured = store.withWritesPaused(() -> {
+                try {
+                    wal.rotate(walFile(next));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return new Captured(store.getAllMovies(), store.getNextId());
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generation = next;
+        SnapshotFile.write(snapshotFile(directory, next), captured.movies, captured.nextId);
+        deleteOlderThan(next);
+    }
+
+    public WriteAheadLog getWal() {
+        return wal;
+    }
+
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    public int getRecoveredMovies() {
+        return recoveredMovies;
+    }
+
+    public int getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        wal.close();
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Не удалось сохранить снимок хранилища: " + e.getMessage());
+        }
+    }
+
+    private void deleteOlderThan(long keep) throws IOException {
+        List<Path> stale = new ArrayList<>();
+        for (long old : generations(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headSet(keep, false)) {
+            stale.add(snapshotFile(directory, old));
+        }
+        for (long old : generations(directory, WAL_PREFIX, WAL_SUFFIX).headSet(keep, false)) {
+            stale.add(walFile(directory, old));
+        }
+        for (Path path : stale) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private Path walFile(long generation) {
+        return walFile(directory, generation);
+    }
+
+    private static Path walFile(Path directory, long generation) {
+        return directory.resolve(WAL_PREFIX + generation + WAL_SUFFIX);
+    }
+
+    private static Path snapshotFile(Path directory, long generation) {
+        return directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX);
+    }
+
+    private static TreeSet<Long> generations(Path directory, String prefix, String suffix) throws IOException {
+        TreeSet<Long> result = new TreeSet<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .forEach(name -> {
+                        try {
+                            result.add(Long.parseLong(name.substring(prefix.length(),
+                                    name.length() - suffix.length())));
+                        } catch (NumberFormatException e) {
+                            // чужой файл с похожим именем — пропускаем
+                        }
+                    });
+        }
+        return result;
+    }
+
+    private static class Captured {
+        private final List<Movie> movies;
+        private final int nextId;
+
+        private Captured(List<Movie> movies, int nextId) {
+            this.movies = movies;
+            this.nextId = nextId;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ru.practicum.moviehub.store.persistence;
+
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.store.MoviesStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Снимок хранилища: [магия][версия формата][следующий ID][число фильмов][фильмы...][CRC32]
+final class SnapshotFile {
+    private static final int MAGIC = 0x4D564853;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private SnapshotFile() {
+    }
+
+    // Пишет во временный файл и атомарно переименовывает, чтобы на диске всегда был целый снимок
+    static void write(Path file, List<Movie> movies, int nextId) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            OutputStream channelStream = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(channelStream, BUFFER_SIZE), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(nextId);
+            out.writeInt(movies.size());
+            for (Movie movie : movies) {
+                byte[] title = movie.getTitle().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(movie.getID());
+                out.writeInt(movie.getYear());
+                out.writeShort(title.length);
+                out.write(title);
+            }
+            out.flush();
+            new DataOutputStream(channelStream).writeInt((int) crc.getValue());
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static int load(Path file, MoviesStore store) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(file), BUFFER_SIZE))) {
+            CRC32 crc = new CRC32();
+            DataInputStream checked = new DataInputStream(new CheckedInputStream(in, crc));
+            if (checked.readInt() != MAGIC || checked.readInt() != FORMAT_VERSION) {
+                throw new IOException("Файл не является снимком хранилища: " + file);
+            }
+            int nextId = checked.readInt();
+            int count = checked.readInt();
+            for (int i = 0; i < count; i++) {
+                int id = checked.readInt();
+                int year = checked.readInt();
+                byte[] title = new byte[checked.readUnsignedShort()];
+                checked.readFully(title);
+                store.restoreMovie(new Movie(new String(title, StandardCharsets.UTF_8), year, id));
+            }
+            if (in.readInt() != (int) crc.getValue()) {
+                throw new IOException("Контрольная сумма снимка не совпадает: " + file);
+            }
+            store.reserveIds(nextId);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package ru.practicum.moviehub.store.persistence;
+
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.store.MoviesStore;
+import ru.practicum.moviehub.store.MoviesStoreListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Журнал изменений: запись = [длина][CRC32][тип][данные]. Изменения копятся в буфере, а отдельный поток
+// пишет накопившееся одним write + force (групповой коммит) и будит всех, кто ждал этой порции.
+public class WriteAheadLog implements MoviesStoreListener, Closeable {
+    static final byte ADD = 1;
+    static final byte DELETE = 2;
+    static final byte CLEAR = 3;
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int READ_CHUNK = 1 << 20;
+
+    private final Object lock = new Object();
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[1]);
+    private final Thread flusher;
+    private FileChannel channel;
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer writing = ByteBuffer.allocate(64 * 1024);
+    private long appended;
+    private long durable;
+    private boolean closed;
+    private IOException failure;
+    private long records;
+    private long syncs;
+    private long bytes;
+
+    public WriteAheadLog(Path file) throws IOException {
+        channel = open(file);
+        flusher = new Thread(this::flushLoop, "wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Применяет записи журнала к хранилищу и обрезает файл после последней целой записи
+    static int replay(Path file, MoviesStore store) throws IOException {
+        return replay(file, store, READ_CHUNK);
+    }
+
+    // Файл читается порциями по chunkSize байт, запись на границе порций переносится в следующую;
+    // журнал может быть больше любого массива
+    static int replay(Path file, MoviesStore store, int chunkSize) throws IOException {
+        int applied = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            ByteBuffer buffer = ByteBuffer.allocate(chunkSize).limit(0);
+            CRC32 crc = new CRC32();
+            long validEnd = 0;
+            while (true) {
+                if (buffer.remaining() < HEADER_SIZE) {
+                    buffer = fill(in, buffer, HEADER_SIZE);
+                    if (buffer.remaining() < HEADER_SIZE) {
+                        break;
+                    }
+                }
+                int length = buffer.getInt(buffer.position());
+                int checksum = buffer.getInt(buffer.position() + Integer.BYTES);
+                // длина, выходящая за конец файла, — оборванная запись
+                if (length <= 0 || length > size - validEnd - HEADER_SIZE) {
+                    break;
+                }
+                if (buffer.remaining() < HEADER_SIZE + length) {
+                    buffer = fill(in, buffer, HEADER_SIZE + length);
+                    if (buffer.remaining() < HEADER_SIZE + length) {
+                        break;
+                    }
+                }
+                buffer.position(buffer.position() + HEADER_SIZE);
+                crc.reset();
+                crc.update(buffer.slice(buffer.position(), length));
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(buffer.slice(buffer.position(), length), store);
+                buffer.position(buffer.position() + length);
+                validEnd += HEADER_SIZE + length;
+                applied++;
+            }
+            if (validEnd < size) {
+                in.truncate(validEnd);
+            }
+        }
+        return applied;
+    }
+
+    // Дочитывает файл за непрочитанным остатком буфера; буфер растёт, если запись в него не помещается
+    private static ByteBuffer fill(FileChannel in, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.capacity() < needed) {
+            ByteBuffer bigger = ByteBuffer.allocate(needed);
+            bigger.put(buffer);
+            buffer = bigger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                break;
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void apply(ByteBuffer record, MoviesStore store) {
+        byte type = record.get();
+        switch (type) {
+            case ADD -> {
+                int id = record.getInt();
+                int year = record.getInt();
+                byte[] title = new byte[record.remaining()];
+                record.get(title);
+                store.restoreMovie(new Movie(new String(title, StandardCharsets.UTF_8), year, id));
+            }
+            case DELETE -> store.deleteMovie(record.getInt());
+            case CLEAR -> store.clear();
+            default -> throw new IllegalStateException("Неизвестный тип записи журнала: " + type);
+        }
+    }
+
+    @Override
+    public void onMovieAdded(Movie movie) {
+        byte[] title = movie.getTitle().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(1 + Integer.BYTES * 2 + title.length);
+        record.put(ADD).putInt(movie.getID()).putInt(movie.getYear()).put(title);
+        append(record.array());
+    }
+
+    @Override
+    public void onMovieDeleted(Movie movie) {
+        append(ByteBuffer.allocate(1 + Integer.BYTES).put(DELETE).putInt(movie.getID()).array());
+    }
+
+    @Override
+    public void onCleared() {
+        append(new byte[]{CLEAR});
+    }
+
+    // Поток, изменивший хранилище, ждёт, пока его запись (и всё, что было до неё) окажется на диске
+    @Override
+    public void afterChange() {
+        long[] target = lastAppended.get();
+        if (target[0] == 0) {
+            return;
+        }
+        awaitDurable(target[0]);
+        target[0] = 0;
+    }
+
+    // Переключает журнал на новый файл. Вызывается, когда изменения хранилища приостановлены
+    void rotate(Path file) throws IOException {
+        FileChannel next = open(file);
+        synchronized (lock) {
+            awaitDurable(appended);
+            channel.close();
+            channel = next;
+        }
+    }
+
+    public long getRecords() {
+        synchronized (lock) {
+            return records;
+        }
+    }
+
+    public long getSyncs() {
+        synchronized (lock) {
+            return syncs;
+        }
+    }
+
+    public long getBytes() {
+        synchronized (lock) {
+            return bytes;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void append(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Журнал закрыт");
+            }
+            int size = HEADER_SIZE + payload.length;
+            if (pending.remaining() < size) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + size));
+                pending.flip();
+                bigger.put(pending);
+                pending = bigger;
+            }
+            pending.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            appended += size;
+            records++;
+            lastAppended.get()[0] = appended;
+            lock.notifyAll();
+        }
+    }
+
+    private void awaitDurable(long position) {
+        synchronized (lock) {
+            while (durable < position && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Ожидание записи журнала прервано", e);
+                }
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Не удалось записать журнал", failure);
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long target;
+            FileChannel out;
+            synchronized (lock) {
+                while (pending.position() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                ByteBuffer swap = writing;
+                writing = pending;
+                pending = swap;
+                target = appended;
+                out = channel;
+            }
+            try {
+                writing.flip();
+                int size = writing.remaining();
+                while (writing.hasRemaining()) {
+                    out.write(writing);
+                }
+                out.force(false);
+                writing.clear();
+                synchronized (lock) {
+                    durable = target;
+                    syncs++;
+                    bytes += size;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+}
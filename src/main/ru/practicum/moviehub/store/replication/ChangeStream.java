@@ -0,0 +1,97 @@
+package ru.practicum.moviehub.store.replication;
+
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.store.MoviesStoreListener;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Упорядоченный поток изменений хранилища с номерами 1, 2, ... События по одному ID приходят в порядке изменений,
+// а clear() — без параллельных изменений, поэтому применение потока по порядку номеров даёт то же состояние.
+// Последние capacity изменений лежат в кольцевом буфере: реплика, отставшая меньше, догоняет с нужного номера
+public class ChangeStream implements MoviesStoreListener {
+    static final byte ADD = 1;
+    static final byte DELETE = 2;
+    static final byte CLEAR = 3;
+
+    // Отличает поток этого запуска: номера после рестарта основного хранилища начинаются заново
+    private final long streamId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    private final Change[] ring;
+    private long head;
+    private int waiting;
+
+    public ChangeStream(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер буфера изменений должен быть положительным");
+        }
+        ring = new Change[capacity];
+    }
+
+    @Override
+    public void onMovieAdded(Movie movie) {
+        append(ADD, movie);
+    }
+
+    @Override
+    public void onMovieDeleted(Movie movie) {
+        append(DELETE, movie);
+    }
+
+    @Override
+    public void onCleared() {
+        append(CLEAR, null);
+    }
+
+    public long getStreamId() {
+        return streamId;
+    }
+
+    // Номер последнего изменения, 0 — изменений не было
+    public synchronized long getHead() {
+        return head;
+    }
+
+    // Копирует в buffer изменения с номерами больше after, если их нет — ждёт до timeoutMillis.
+    // -1, если продолжить с after нельзя: нужные изменения уже вытеснены из буфера
+    synchronized int read(long after, Change[] buffer, long timeoutMillis) throws InterruptedException {
+        if (after == head && timeoutMillis > 0) {
+            waiting++;
+            try {
+                wait(timeoutMillis);
+            } finally {
+                waiting--;
+            }
+        }
+        if (after > head || after < head - ring.length) {
+            return -1;
+        }
+        int count = (int) Math.min(buffer.length, head - after);
+        for (int i = 0; i < count; i++) {
+            buffer[i] = ring[(int) ((after + 1 + i) % ring.length)];
+        }
+        return count;
+    }
+
+    private synchronized void append(byte type, Movie movie) {
+        head++;
+        ring[(int) (head % ring.length)] = new Change(head, System.currentTimeMillis(), type, movie);
+        if (waiting > 0) {
+            notifyAll();
+        }
+    }
+
+    static final class Change {
+        final long sequence;
+        // время изменения на основном узле, по нему считается отставание реплики
+        final long millis;
+        final byte type;
+        // null для CLEAR
+        final Movie movie;
+
+        Change(long sequence, long millis, byte type, Movie movie) {
+            this.sequence = sequence;
+            this.millis = millis;
+            this.type = type;
+            this.movie = movie;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package ru.practicum.moviehub.store.replication;
+
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.store.MoviesStore;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Поддерживает реплику: читает поток изменений с ReplicationServer и применяет его к своему хранилищу пачками —
+// подряд идущие добавления одним restoreMovies, удаления одним deleteMovies. После обрыва переподключается
+// и продолжает с последнего применённого номера
+public class ReplicaClient implements Closeable {
+    private static final int BATCH_SIZE = 1024;
+    private static final long RETRY_MILLIS = 1000;
+
+    private final MoviesStore store;
+    private final String host;
+    private final int port;
+    private final Thread worker;
+    private final List<Movie> pendingAdds = new ArrayList<>();
+    private int[] pendingDeletes = new int[64];
+    private int pendingDeleteCount;
+    private long pendingSequence;
+    private long pendingMillis;
+    private final LongAdder reconnects = new LongAdder();
+    private volatile Socket socket;
+    private volatile boolean closed;
+    private volatile boolean connected;
+    // 0 — поток ещё не известен или снимок не догружен: при подключении нужен новый снимок
+    private volatile long streamId;
+    private volatile long applied;
+    private volatile long appliedMillis;
+    private volatile long primaryHead;
+
+    // Хранилище реплики должно быть пустым и меняться только этим клиентом
+    public ReplicaClient(MoviesStore store, String host, int port) {
+        this.store = store;
+        this.host = host;
+        this.port = port;
+        worker = new Thread(this::run, "replica-client");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    // Хранилище совпадает с каким-то состоянием основного узла: снимок загружен целиком. Во время загрузки
+    // снимка (первой или после переполнения буфера и рестарта основного узла) каталог пуст или неполон
+    public boolean isSynced() {
+        return streamId != 0;
+    }
+
+    // Номер последнего применённого изменения основного узла
+    public long getAppliedSequence() {
+        return applied;
+    }
+
+    // На сколько изменений реплика отстаёт от того, что основной узел сообщил последним
+    public long getLagRecords() {
+        return Math.max(0, primaryHead - applied);
+    }
+
+    // Сколько прошло с момента последнего применённого изменения на основном узле, если есть неприменённые; иначе 0
+    public long getLagMillis() {
+        return applied >= primaryHead ? 0 : Math.max(0, System.currentTimeMillis() - appliedMillis);
+    }
+
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (!closed) {
+            try (Socket current = new Socket(host, port)) {
+                socket = current;
+                current.setTcpNoDelay(true);
+                connected = true;
+                replicate(current);
+            } catch (IOException e) {
+                if (!closed) {
+                    System.out.println("Соединение с основным узлом потеряно: " + e.getMessage());
+                }
+            } finally {
+                connected = false;
+            }
+            if (closed) {
+                return;
+            }
+            reconnects.increment();
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void replicate(Socket current) throws IOException {
+        // неприменённый хвост прошлого подключения придёт заново
+        pendingAdds.clear();
+        pendingDeleteCount = 0;
+        DataOutputStream out = new DataOutputStream(current.getOutputStream());
+        out.writeLong(streamId);
+        out.writeLong(applied);
+        out.flush();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(current.getInputStream(), 64 * 1024));
+        ReplicationProtocol.Frame frame = new ReplicationProtocol.Frame();
+        long snapshotStream = 0;
+        while (!closed) {
+            frame.read(in);
+            switch (frame.type) {
+                case ReplicationProtocol.ADD -> {
+                    flushDeletes();
+                    pendingAdds.add(frame.movie);
+                }
+                case ReplicationProtocol.DELETE -> {
+                    flushAdds();
+                    if (pendingDeleteCount == pendingDeletes.length) {
+                        pendingDeletes = Arrays.copyOf(pendingDeletes, pendingDeleteCount * 2);
+                    }
+                    pendingDeletes[pendingDeleteCount++] = frame.id;
+                }
+                case ReplicationProtocol.CLEAR -> {
+                    flushAdds();
+                    flushDeletes();
+                    store.clear();
+                }
+                case ReplicationProtocol.SNAPSHOT -> {
+                    flushAdds();
+                    flushDeletes();
+                    // пока снимок не догружен, продолжить с этого места после обрыва нельзя
+                    streamId = 0;
+                    applied = 0;
+                    snapshotStream = frame.streamId;
+                    store.clear();
+                }
+                case ReplicationProtocol.SNAPSHOT_END -> {
+                    flushAdds();
+                    streamId = snapshotStream;
+                }
+                case ReplicationProtocol.HEARTBEAT -> primaryHead = frame.sequence;
+                default -> {
+                }
+            }
+            if (frame.type != ReplicationProtocol.HEARTBEAT) {
+                pendingSequence = frame.sequence;
+                pendingMillis = frame.millis;
+            }
+            // Пачка применяется, когда набралась, когда основной узел закончил свою пачку или когда данных больше нет
+            if (pendingAdds.size() + pendingDeleteCount >= BATCH_SIZE
+                    || frame.type == ReplicationProtocol.HEARTBEAT || in.available() == 0) {
+                flushAdds();
+                flushDeletes();
+                if (streamId != 0) {
+                    applied = pendingSequence;
+                    appliedMillis = pendingMillis;
+                }
+            }
+        }
+    }
+
+    private void flushAdds() {
+        if (!pendingAdds.isEmpty()) {
+            store.restoreMovies(pendingAdds);
+            pendingAdds.clear();
+        }
+    }
+
+    private void flushDeletes() {
+        if (pendingDeleteCount > 0) {
+            store.deleteMovies(Arrays.copyOf(pendingDeletes, pendingDeleteCount));
+            pendingDeleteCount = 0;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.practicum.moviehub.store.replication;
+
+import ru.practicum.moviehub.model.Movie;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Реплика, подключившись, шлёт идентификатор потока и номер последнего применённого изменения (два long).
+// Дальше основной узел шлёт кадры [длина остатка][тип][номер][время, мс][данные]:
+// ADD — id, год и название в UTF-8; DELETE — id; CLEAR — без данных;
+// SNAPSHOT — идентификатор потока, за ним ADD всех фильмов с номером снимка и SNAPSHOT_END;
+// HEARTBEAT — номер последнего изменения на основном узле, отправляется после каждой пачки и при простое
+final class ReplicationProtocol {
+    static final byte ADD = ChangeStream.ADD;
+    static final byte DELETE = ChangeStream.DELETE;
+    static final byte CLEAR = ChangeStream.CLEAR;
+    static final byte SNAPSHOT = 4;
+    static final byte SNAPSHOT_END = 5;
+    static final byte HEARTBEAT = 6;
+
+    private static final int HEADER_SIZE = 1 + Long.BYTES * 2;
+    // защита от мусора в потоке: название фильма столько не занимает
+    private static final int MAX_FRAME_SIZE = 1 << 20;
+
+    private ReplicationProtocol() {
+    }
+
+    static void writeChange(DataOutputStream out, ChangeStream.Change change) throws IOException {
+        switch (change.type) {
+            case ADD -> writeMovie(out, change.sequence, change.millis, change.movie);
+            case DELETE -> {
+                writeHeader(out, DELETE, change.sequence, change.millis, Integer.BYTES);
+                out.writeInt(change.movie.getID());
+            }
+            default -> writeHeader(out, change.type, change.sequence, change.millis, 0);
+        }
+    }
+
+    static void writeMovie(DataOutputStream out, long sequence, long millis, Movie movie) throws IOException {
+        byte[] title = movie.getTitle().getBytes(StandardCharsets.UTF_8);
+        writeHeader(out, ADD, sequence, millis, Integer.BYTES * 2 + title.length);
+        out.writeInt(movie.getID());
+        out.writeInt(movie.getYear());
+        out.write(title);
+    }
+
+    static void writeSnapshot(DataOutputStream out, long sequence, long streamId) throws IOException {
+        writeHeader(out, SNAPSHOT, sequence, System.currentTimeMillis(), Long.BYTES);
+        out.writeLong(streamId);
+    }
+
+    static void writeHeader(DataOutputStream out, byte type, long sequence, long millis, int payload)
+            throws IOException {
+        out.writeInt(HEADER_SIZE + payload);
+        out.writeByte(type);
+        out.writeLong(sequence);
+        out.writeLong(millis);
+    }
+
+    static final class Frame {
+        byte type;
+        long sequence;
+        long millis;
+        // ADD
+        Movie movie;
+        // DELETE
+        int id;
+        // SNAPSHOT
+        long streamId;
+
+        // Читает следующий кадр в этот же объект
+        void read(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            if (length < HEADER_SIZE || length > MAX_FRAME_SIZE) {
+                throw new IOException("Некорректная длина кадра репликации: " + length);
+            }
+            type = in.readByte();
+            sequence = in.readLong();
+            millis = in.readLong();
+            int payload = length - HEADER_SIZE;
+            movie = null;
+            switch (type) {
+                case ADD -> {
+                    if (payload < Integer.BYTES * 2) {
+                        throw new IOException("Слишком короткий кадр ADD: " + length);
+                    }
+                    int movieId = in.readInt();
+                    int year = in.readInt();
+                    byte[] title = new byte[payload - Integer.BYTES * 2];
+                    in.readFully(title);
+                    movie = new Movie(new String(title, StandardCharsets.UTF_8), year, movieId);
+                }
+                case DELETE -> id = in.readInt();
+                case SNAPSHOT -> streamId = in.readLong();
+                case CLEAR, SNAPSHOT_END, HEARTBEAT -> in.skipNBytes(payload);
+                default -> throw new IOException("Неизвестный тип кадра репликации: " + type);
+            }
+        }
+    }
+}
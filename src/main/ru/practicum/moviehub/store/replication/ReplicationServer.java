@@ -0,0 +1,136 @@
+package ru.practicum.moviehub.store.replication;
+
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.store.MoviesStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Раздаёт поток изменений репликам через сокет на loopback, по потоку на реплику. Реплика называет поток
+// и последний применённый номер; если с него можно продолжить, ей досылаются изменения, иначе — снимок
+public class ReplicationServer implements Closeable {
+    private static final int BATCH_SIZE = 1024;
+    private static final long HEARTBEAT_MILLIS = 1000;
+
+    private final MoviesStore store;
+    private final ChangeStream changes;
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+    private final Set<Socket> replicas = ConcurrentHashMap.newKeySet();
+    private final LongAdder snapshots = new LongAdder();
+    private volatile boolean closed;
+
+    // port 0 — любой свободный порт
+    public ReplicationServer(MoviesStore store, ChangeStream changes, int port) throws IOException {
+        this.store = store;
+        this.changes = changes;
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getReplicas() {
+        return replicas.size();
+    }
+
+    // Сколько раз репликам пришлось отправить снимок вместо досылки изменений
+    public long getSnapshots() {
+        return snapshots.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket replica : replicas) {
+            replica.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread sender = new Thread(() -> serve(socket), "replication-sender");
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.out.println("Ошибка приёма подключения реплики: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        replicas.add(socket);
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            long streamId = in.readLong();
+            long position = in.readLong();
+            if (streamId != changes.getStreamId()) {
+                position = sendSnapshot(out);
+            }
+            ChangeStream.Change[] batch = new ChangeStream.Change[BATCH_SIZE];
+            while (!closed) {
+                int count = changes.read(position, batch, HEARTBEAT_MILLIS);
+                if (count < 0) {
+                    position = sendSnapshot(out);
+                    continue;
+                }
+                for (int i = 0; i < count; i++) {
+                    ReplicationProtocol.writeChange(out, batch[i]);
+                    position = batch[i].sequence;
+                    batch[i] = null;
+                }
+                ReplicationProtocol.writeHeader(out, ReplicationProtocol.HEARTBEAT, changes.getHead(),
+                        System.currentTimeMillis(), 0);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // реплика отключилась; при переподключении она продолжит со своего номера
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            replicas.remove(socket);
+        }
+    }
+
+    // Снимок берётся, пока изменения приостановлены: номер снимка точно соответствует его содержимому
+    private long sendSnapshot(DataOutputStream out) throws IOException {
+        snapshots.increment();
+        long[] sequence = new long[1];
+        List<Movie> movies = store.withWritesPaused(() -> {
+            sequence[0] = changes.getHead();
+            return store.getAllMovies();
+        });
+        long millis = System.currentTimeMillis();
+        ReplicationProtocol.writeSnapshot(out, sequence[0], changes.getStreamId());
+        for (Movie movie : movies) {
+            ReplicationProtocol.writeMovie(out, sequence[0], millis, movie);
+        }
+        ReplicationProtocol.writeHeader(out, ReplicationProtocol.SNAPSHOT_END, sequence[0], millis, 0);
+        out.flush();
+        return sequence[0];
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.moviehub.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.moviehub.http.compression.EncodedBody;
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.store.MoviesStore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class MovieJsonCacheTest {
+    private static final EncodedBody BODY = new EncodedBody(new byte[]{1, 2, 3});
+
+    @Test
+    void get_returnsCachedBodyAndCountsHits() {
+        MovieJsonCache cache = new MovieJsonCache(16);
+        Movie movie = new Movie("Movie", 2000, 0);
+
+        assertNull(cache.get(movie));
+        cache.put(movie, BODY);
+        assertSame(BODY, cache.get(movie));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void entriesAreInvalidatedByStoreChanges() {
+        MoviesStore store = new MoviesStore();
+        MovieJsonCache cache = new MovieJsonCache(16);
+        store.addListener(cache);
+
+        Movie movie = store.addNewMovie("Movie", 2000);
+        cache.put(movie, BODY);
+        store.deleteMovie(movie.getID());
+        assertEquals(0, cache.size());
+
+        Movie other = store.addNewMovie("Other", 2001);
+        cache.put(other, BODY);
+        store.clear();
+        assertEquals(0, cache.size());
+
+        Movie reused = store.addNewMovie("Reused", 2002);
+        cache.put(movie, BODY);
+        assertNull(cache.get(reused), "Запись для другого объекта с тем же ID не должна отдаваться");
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedEntries() {
+        MovieJsonCache cache = new MovieJsonCache(16);
+        for (int i = 0; i < 64; i++) {
+            cache.put(new Movie("Movie", 2000, i), BODY);
+        }
+
+        assertEquals(16, cache.size());
+        assertEquals(48, cache.getEvictions());
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.moviehub.codec;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MovieBinaryCodecTest {
+    @Test
+    void movies_roundTrip() {
+        List<Movie> movies = List.of(
+                new Movie("Harry Potter", 2001, 0),
+                new Movie("Сталкер", 1979, 300),
+                new Movie("Emoji 🎬 и \uD800 одиночный суррогат", -5, Integer.MAX_VALUE),
+                new Movie("", 2000, 1));
+
+        List<Movie> decoded = MovieBinaryCodec.decodeMovies(MovieBinaryCodec.encode(movies));
+
+        assertEquals(4, decoded.size());
+        assertEquals(movies.get(0), decoded.get(0));
+        assertEquals(movies.get(1), decoded.get(1));
+        assertEquals(new String(movies.get(2).getTitle().getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8),
+                decoded.get(2).getTitle());
+        assertEquals(-5, decoded.get(2).getYear());
+        assertEquals(movies.get(3), decoded.get(3));
+    }
+
+    @Test
+    void newMovie_isCompactAndRejectsGarbage() {
+        byte[] body = MovieBinaryCodec.encode(new NewMovie("Alien", 1979));
+        // длина, год (2 байта), длина названия, 5 байт названия
+        assertEquals(9, body.length);
+
+        NewMovie decoded = MovieBinaryCodec.decodeNewMovie(body);
+        assertEquals("Alien", decoded.getTitle());
+        assertEquals(1979, decoded.getYear());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> MovieBinaryCodec.decodeNewMovie(Arrays.copyOf(body, body.length - 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> MovieBinaryCodec.decodeNewMovie(Arrays.copyOf(body, body.length + 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> MovieBinaryCodec.decodeNewMovie(new byte[]{(byte) 0xff, (byte) 0xff, (byte) 0xff}));
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.moviehub.codec;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import ru.practicum.moviehub.api.BatchItemResult;
+import ru.practicum.moviehub.api.ErrorResponse;
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MovieJsonCodecTest {
+    private static final Gson gson = new Gson();
+
+    @Test
+    void encode_isReadableByGson() {
+        Movie movie = new Movie("\"Кавычки\" \\ перевод\nстроки, 🎬 и \u0001", -1, Integer.MIN_VALUE);
+
+        String json = new String(MovieJsonCodec.encode(movie), StandardCharsets.UTF_8);
+        Movie decoded = gson.fromJson(json, Movie.class);
+        assertEquals(movie, decoded);
+
+        ErrorResponse error = ErrorResponse.of("Ошибка", "первая", "вторая");
+        ErrorResponse decodedError = gson.fromJson(
+                new String(MovieJsonCodec.encode(error), StandardCharsets.UTF_8), ErrorResponse.class);
+        assertEquals("Ошибка", decodedError.getErrorName());
+        assertArrayEquals(error.getErrorDetails(), decodedError.getErrorDetails());
+    }
+
+    @Test
+    void encode_matchesGsonFieldLayout() {
+        List<Movie> movies = List.of(new Movie("Harry Potter", 2001, 0), new Movie("Alien", 1979, 12));
+        assertEquals(gson.toJson(movies), new String(MovieJsonCodec.encode(movies), StandardCharsets.UTF_8));
+
+        JsonOutput out = new JsonOutput(16);
+        MovieJsonCodec.write(out, BatchItemResult.deleted(3, 7));
+        assertEquals(gson.toJson(BatchItemResult.deleted(3, 7)), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void streamingOutput_reusesBufferWithoutLeakingPreviousResponse() throws Exception {
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        try (JsonOutput out = new JsonOutput(first)) {
+            out.string("x".repeat(20_000));
+        }
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        try (JsonOutput out = new JsonOutput(second)) {
+            MovieJsonCodec.write(out, new Movie("Alien", 1979, 12));
+        }
+        ByteArrayOutputStream third = new ByteArrayOutputStream();
+        try (JsonOutput out = new JsonOutput(third)) {
+            out.raw('[').raw(']');
+        }
+
+        assertEquals(20_002, first.size());
+        assertEquals(gson.toJson(new Movie("Alien", 1979, 12)), second.toString(StandardCharsets.UTF_8));
+        assertEquals("[]", third.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decodeNewMovie_readsFieldsInOnePass() {
+        NewMovie movie = decode("{ \"extra\": {\"a\": [1, true, null, \"x\"]}, \"year\": \"1979\","
+                + " \"title\": \"\\u0421\\u0442\\u0430\\u043b\\u043a\\u0435\\u0440 \\\"1\\\"\" }");
+        assertEquals("Сталкер \"1\"", movie.getTitle());
+        assertEquals(1979, movie.getYear());
+
+        assertEquals("Фильм", decode("{\"title\":\"Фильм\",\"year\":-20}").getTitle());
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"title\":\"Фильм\"}"));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"title\":null,\"year\":2000}"));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"title\":\"Фильм\",\"year\":2000.5}"));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"title\":\"Фильм\",\"year\":2000} x"));
+        assertThrows(IllegalArgumentException.class, () -> decode("[1, 2]"));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"title\":\"Фил"));
+        assertThrows(IllegalArgumentException.class, () -> decode("[".repeat(100)));
+    }
+
+    @Test
+    void forEachElement_decodesMoviesFromTheirRanges() {
+        byte[] body = ("[ {\"title\":\"Alien\",\"year\":1979}, 5 ,{\"title\":\"Heat\",\"year\":1995.5},"
+                + "{\"x\":[1e10,-0.5]} ]").getBytes(StandardCharsets.UTF_8);
+        List<String> decoded = new ArrayList<>();
+        MovieJsonCodec.forEachElement(body, (offset, length) -> {
+            try {
+                decoded.add(MovieJsonCodec.decodeNewMovie(body, offset, length).getTitle());
+            } catch (IllegalArgumentException e) {
+                decoded.add("!" + new String(body, offset, length, StandardCharsets.UTF_8));
+            }
+        });
+        assertEquals(List.of("Alien", "!5", "!{\"title\":\"Heat\",\"year\":1995.5}", "!{\"x\":[1e10,-0.5]}"), decoded);
+
+        assertThrows(IllegalArgumentException.class, () -> elements("{\"title\":\"Alien\",\"year\":1979}"));
+        assertThrows(IllegalArgumentException.class, () -> elements("[1,]"));
+        assertThrows(IllegalArgumentException.class, () -> elements("[1-2]"));
+        assertThrows(IllegalArgumentException.class, () -> elements("[01]"));
+        assertThrows(IllegalArgumentException.class, () -> elements("[{\"title\":Alien}]"));
+
+        byte[] line = "x{\"title\":\"Alien\",\"year\":1979}x".getBytes(StandardCharsets.UTF_8);
+        assertEquals("Alien", MovieJsonCodec.decodeNewMovie(line, 1, line.length - 2).getTitle());
+        assertTrue(MovieJsonCodec.isValue(line, 1, line.length - 2));
+        assertFalse(MovieJsonCodec.isValue(line, 0, line.length));
+    }
+
+    private static void elements(String json) {
+        MovieJsonCodec.forEachElement(json.getBytes(StandardCharsets.UTF_8), (offset, length) -> {
+        });
+    }
+
+    private static NewMovie decode(String json) {
+        return MovieJsonCodec.decodeNewMovie(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -5,19 +5,33 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.practicum.moviehub.AppArguments;
+import ru.practicum.moviehub.api.BatchItemResult;
 import ru.practicum.moviehub.api.ErrorResponse;
+import ru.practicum.moviehub.api.MovieStats;
+import ru.practicum.moviehub.codec.MovieBinaryCodec;
 import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
 import ru.practicum.moviehub.store.MoviesStore;
 
+import java.io.ByteArrayInputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MoviesApiTest {
@@ -232,6 +246,432 @@ public class MoviesApiTest {
         assertEquals("Некорректный параметр запроса — 'year' или неправильная структура параметра", error2.getErrorDetails()[0]);
     }
 
+    @Test
+    void getMoviesByYearRange() throws Exception {
+        addMovie(MOVIE_1, HEADER, CT_JSON);
+        addMovie(MOVIE_2, HEADER, CT_JSON);
+
+        HttpResponse<String> resp1 = getMovieOrMovies("?from=2000&to=2004");
+        List<Movie> movies = gson.fromJson(resp1.body().trim(), new ListOfMoviesTypeToken().getType());
+        assertEquals(200, resp1.statusCode());
+        assertEquals(1, movies.size());
+        assertEquals("Harry Potter", movies.getFirst().getTitle());
+
+        HttpResponse<String> resp2 = getMovieOrMovies("?from=2001");
+        List<Movie> movies2 = gson.fromJson(resp2.body().trim(), new ListOfMoviesTypeToken().getType());
+        assertEquals(200, resp2.statusCode());
+        assertEquals(2, movies2.size());
+
+        HttpResponse<String> resp3 = getMovieOrMovies("?from=2010&to=2000");
+        ErrorResponse error = gson.fromJson(resp3.body().trim(), ErrorResponse.class);
+        assertEquals(400, resp3.statusCode());
+        assertEquals("Значение from не должно превышать to", error.getErrorDetails()[0]);
+
+        HttpResponse<String> resp4 = getMovieOrMovies("?year=2001&from=2000");
+        assertEquals(400, resp4.statusCode());
+    }
+
+    @Test
+    void searchMoviesByTitle() throws Exception {
+        addMovie(MOVIE_1, HEADER, CT_JSON);
+        addMovie(MOVIE_2, HEADER, CT_JSON);
+
+        HttpResponse<String> resp1 = getMovieOrMovies("?q=harry%20pot");
+        List<Movie> movies = gson.fromJson(resp1.body().trim(), new ListOfMoviesTypeToken().getType());
+        assertEquals(200, resp1.statusCode());
+        assertEquals(2, movies.size());
+
+        HttpResponse<String> resp2 = getMovieOrMovies("?q=potter+2&limit=5");
+        List<Movie> movies2 = gson.fromJson(resp2.body().trim(), new ListOfMoviesTypeToken().getType());
+        assertEquals(1, movies2.size());
+        assertEquals("Harry Potter 2", movies2.getFirst().getTitle());
+
+        assertEquals(400, getMovieOrMovies("?q=harry&year=2001").statusCode());
+        assertEquals(400, getMovieOrMovies("?q=%21%21").statusCode());
+    }
+
+    @Test
+    void getStats_countsByYearAndDecade() throws Exception {
+        HttpResponse<String> empty = getMovieOrMovies("/stats");
+        assertEquals(200, empty.statusCode());
+        assertEquals("{\"total\":0,\"byYear\":{},\"byDecade\":{}}", empty.body());
+
+        addMovie(MOVIE_1, HEADER, CT_JSON);
+        addMovie(MOVIE_2, HEADER, CT_JSON);
+        addMovie("{\"title\":\"Matrix\",\"year\":1999}", HEADER, CT_JSON);
+        addMovie("{\"title\":\"Shrek\",\"year\":2001}", HEADER, CT_JSON);
+        deleteMovie("/0");
+
+        HttpResponse<String> resp = getMovieOrMovies("/stats");
+        assertEquals(200, resp.statusCode());
+        MovieStats stats = gson.fromJson(resp.body(), MovieStats.class);
+        assertEquals(3, stats.getTotal());
+        assertEquals(1999, stats.getMinYear());
+        assertEquals(2005, stats.getMaxYear());
+        assertEquals(Map.of(1999, 1, 2001, 1, 2005, 1), stats.getByYear());
+        assertEquals(Map.of(1990, 1, 2000, 2), stats.getByDecade());
+
+        String etag = resp.headers().firstValue("ETag").orElseThrow();
+        assertEquals(304, getIfNoneMatch("/stats", etag).statusCode());
+    }
+
+    @Test
+    void getMovies_withMatchingEtag_returnsNotModified() throws Exception {
+        addMovie(MOVIE_1, HEADER, CT_JSON);
+
+        HttpResponse<String> all = getMovieOrMovies("");
+        HttpResponse<String> year = getMovieOrMovies("?year=2001");
+        String allTag = all.headers().firstValue("ETag").orElseThrow();
+        String yearTag = year.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> resp1 = getIfNoneMatch("", allTag);
+        assertEquals(304, resp1.statusCode());
+        assertEquals("", resp1.body());
+
+        addMovie(MOVIE_2, HEADER, CT_JSON);
+        assertEquals(200, getIfNoneMatch("", allTag).statusCode(), "Каталог изменился");
+        assertEquals(304, getIfNoneMatch("?year=2001", yearTag).statusCode(),
+                "Фильмы 2001 года не менялись");
+        assertEquals(304, getIfNoneMatch("?year=2001", "\"other\", " + yearTag).statusCode());
+    }
+
+    @Test
+    void getMovies_withAcceptEncoding_returnsGzip() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            addMovie(MOVIE_1, HEADER, CT_JSON);
+        }
+        String plain = getMovieOrMovies("").body();
+
+        HttpRequest getReq = HttpRequest.newBuilder()
+                .uri(URI.create(BASE + "/movies"))
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+        HttpResponse<byte[]> resp = client.send(getReq, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, resp.statusCode());
+        assertEquals("gzip", resp.headers().firstValue("Content-Encoding").orElse(""));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(resp.body()))) {
+            assertEquals(plain, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertTrue(resp.body().length < plain.length() / 4);
+
+        HttpResponse<String> small = getMovieOrMovies("/0");
+        assertTrue(small.headers().firstValue("Content-Encoding").isEmpty(), "Короткие ответы не сжимаются");
+    }
+
+    @Test
+    void notModified_keepsVaryAndSeparatesRepresentations() throws Exception {
+        addMovie(MOVIE_1, HEADER, CT_JSON);
+        HttpResponse<String> json = getMovieOrMovies("");
+        String jsonTag = json.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> notModified = getIfNoneMatch("", jsonTag);
+        assertEquals(304, notModified.statusCode());
+        assertEquals(Set.of("Accept", "Accept-Encoding"), Set.copyOf(json.headers().allValues("Vary")));
+        assertEquals(Set.copyOf(json.headers().allValues("Vary")), Set.copyOf(notModified.headers().allValues("Vary")),
+                "У 304 тот же Vary, что у 200");
+
+        HttpRequest binary = HttpRequest.newBuilder()
+                .uri(URI.create(BASE + "/movies"))
+                .header("Accept", MovieBinaryCodec.MEDIA_TYPE)
+                .header("If-None-Match", jsonTag)
+                .GET()
+                .build();
+        HttpResponse<byte[]> binaryResp = client.send(binary, HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, binaryResp.statusCode(), "Тег JSON не подходит к двоичному представлению");
+        String binaryTag = binaryResp.headers().firstValue("ETag").orElseThrow();
+        assertNotEquals(jsonTag, binaryTag);
+        assertEquals(304, client.send(HttpRequest.newBuilder(binary, (name, value) -> !name.equals("If-None-Match"))
+                        .header("If-None-Match", binaryTag).build(), HttpResponse.BodyHandlers.ofByteArray())
+                .statusCode());
+    }
+
+    @Test
+    void binaryFormat_forPostAndGet() throws Exception {
+        HttpRequest postReq = HttpRequest.newBuilder()
+                .uri(URI.create(BASE + "/movies"))
+                .header(HEADER, MovieBinaryCodec.MEDIA_TYPE)
+                .header("Accept", MovieBinaryCodec.MEDIA_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(MovieBinaryCodec.encode(new NewMovie("Сталкер", 1979))))
+                .build();
+        HttpResponse<byte[]> created = client.send(postReq, HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(201, created.statusCode());
+        assertEquals(MovieBinaryCodec.MEDIA_TYPE, created.headers().firstValue(HEADER).orElse(""));
+        assertEquals(new Movie("Сталкер", 1979, 0), MovieBinaryCodec.decodeMovies(created.body()).getFirst());
+        addMovie(MOVIE_1, HEADER, CT_JSON);
+
+        HttpRequest getReq = HttpRequest.newBuilder()
+                .uri(URI.create(BASE + "/movies"))
+                .header("Accept", MovieBinaryCodec.MEDIA_TYPE + ", application/json;q=0.5")
+                .GET()
+                .build();
+        List<Movie> movies = MovieBinaryCodec.decodeMovies(
+                client.send(getReq, HttpResponse.BodyHandlers.ofByteArray()).body());
+        assertEquals(2, movies.size());
+        assertEquals("Harry Potter", movies.get(1).getTitle());
+
+        assertEquals(CT_JSON, getMovieOrMovies("").headers().firstValue(HEADER).orElse(""),
+                "Без Accept ответ остаётся в JSON");
+    }
+
+    @Test
+    void getMoviesWithCursorPagination() throws Exception {
+        addMovie(MOVIE_1, HEADER, CT_JSON);
+        addMovie(MOVIE_2, HEADER, CT_JSON);
+        addMovie(MOVIE_1, HEADER, CT_JSON);
+
+        HttpResponse<String> resp1 = getMovieOrMovies("?limit=2");
+        List<Movie> page1 = gson.fromJson(resp1.body().trim(), new ListOfMoviesTypeToken().getType());
+        assertEquals(200, resp1.statusCode());
+        assertEquals(2, page1.size());
+        String cursor = resp1.headers().firstValue("X-Next-Cursor").orElse("");
+        assertEquals("1", cursor);
+
+        HttpResponse<String> resp2 = getMovieOrMovies("?limit=2&cursor=" + cursor);
+        List<Movie> page2 = gson.fromJson(resp2.body().trim(), new ListOfMoviesTypeToken().getType());
+        assertEquals(1, page2.size());
+        assertEquals(2, page2.getFirst().getID());
+        assertTrue(resp2.headers().firstValue("X-Next-Cursor").isEmpty(),
+                "На последней странице курсора быть не должно");
+
+        HttpResponse<String> resp3 = getMovieOrMovies("?limit=0");
+        assertEquals(400, resp3.statusCode());
+    }
+
+    @Test
+    void batchAddAndDelete() throws Exception {
+        String batch = "[" + MOVIE_1 + "," + INCORRECT_MOVIE + "," + MOVIE_2 + "]";
+        HttpResponse<String> resp1 = sendBatch("POST", batch, CT_JSON);
+        assertEquals(200, resp1.statusCode());
+        BatchItemResult[] added = gson.fromJson(resp1.body(), BatchItemResult[].class);
+        assertEquals(3, added.length);
+        assertEquals(201, added[0].getStatus());
+        assertEquals(0, added[0].getMovie().getID());
+        assertEquals(422, added[1].getStatus());
+        assertEquals("Название не должно быть пустым", added[1].getError().getErrorDetails()[1]);
+        assertEquals(201, added[2].getStatus());
+        assertEquals(1, added[2].getMovie().getID());
+
+        HttpResponse<String> resp2 = sendBatch("POST", MOVIE_1 + "\n{oops\n", "application/x-ndjson");
+        BatchItemResult[] ndjson = gson.fromJson(resp2.body(), BatchItemResult[].class);
+        assertEquals(201, ndjson[0].getStatus());
+        assertEquals(2, ndjson[0].getMovie().getID());
+        assertEquals(400, ndjson[1].getStatus());
+
+        HttpResponse<String> resp3 = sendBatch("DELETE", "[0, 7, \"x\", 2]", CT_JSON);
+        BatchItemResult[] deleted = gson.fromJson(resp3.body(), BatchItemResult[].class);
+        assertEquals(204, deleted[0].getStatus());
+        assertEquals(404, deleted[1].getStatus());
+        assertEquals(400, deleted[2].getStatus());
+        assertEquals(204, deleted[3].getStatus());
+
+        List<Movie> movies = gson.fromJson(getMovieOrMovies("").body(), new ListOfMoviesTypeToken().getType());
+        assertEquals(1, movies.size());
+        assertEquals("Harry Potter 2", movies.getFirst().getTitle());
+
+        assertEquals(400, sendBatch("POST", MOVIE_1, CT_JSON).statusCode());
+    }
+
+    @Test
+    void batch_unknownSubPath_isBadRequestLikeOtherRoutes() throws Exception {
+        HttpResponse<String> resp = getMovieOrMovies("/batch/x");
+        assertEquals(400, resp.statusCode());
+        assertEquals("Неверный запрос", gson.fromJson(resp.body(), ErrorResponse.class).getErrorName());
+    }
+
+    @Test
+    void batchDelete_rejectsIdsThatAreNotExactIntegers() throws Exception {
+        addMovie(MOVIE_1, HEADER, CT_JSON);
+        addMovie(MOVIE_2, HEADER, CT_JSON);
+
+        HttpResponse<String> resp = sendBatch("DELETE", "[1.9, 4294967297, \"1\", [1], 1.0]", CT_JSON);
+        assertEquals(200, resp.statusCode());
+        BatchItemResult[] results = gson.fromJson(resp.body(), BatchItemResult[].class);
+        assertEquals(5, results.length);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(400, results[i].getStatus(), "Элемент " + i + " не является целым ID");
+        }
+        assertEquals(204, results[4].getStatus(), "1.0 — точное целое");
+        assertEquals(200, getMovieOrMovies("/0").statusCode());
+    }
+
+    @Test
+    void batchAndSinglePost_rejectTheSameMovies() throws Exception {
+        String[] invalid = {
+                "{\"title\":123,\"year\":1999}",
+                "{\"title\":\"Harry Potter\",\"year\":1999.5}",
+                "{\"title\":\"Harry Potter\",\"year\":2e3}",
+                "{\"title\":true,\"year\":2001}",
+                "{\"title\":null,\"year\":2001}",
+                "{\"title\":Harry,\"year\":2001}",
+                "{\"title\":\"Harry Potter\",\"year\":[2001]}"
+        };
+        for (String body : invalid) {
+            assertEquals(422, addMovie(body, HEADER, CT_JSON).statusCode(), "POST /movies: " + body);
+
+            HttpResponse<String> ndjson = sendBatch("POST", body, "application/x-ndjson");
+            BatchItemResult[] results = gson.fromJson(ndjson.body(), BatchItemResult[].class);
+            assertTrue(results[0].getStatus() >= 400, "NDJSON: " + body);
+
+            HttpResponse<String> array = sendBatch("POST", "[" + body + "]", CT_JSON);
+            assertTrue(array.statusCode() == 400
+                    || gson.fromJson(array.body(), BatchItemResult[].class)[0].getStatus() == 422, "JSON: " + body);
+        }
+        assertEquals("[]", getMovieOrMovies("").body().trim(), "Ни один невалидный фильм не должен сохраниться");
+
+        String stringYear = "{\"title\":\"Harry Potter\",\"year\":\"2001\"}";
+        assertEquals(201, addMovie(stringYear, HEADER, CT_JSON).statusCode());
+        BatchItemResult[] accepted = gson.fromJson(sendBatch("POST", "[" + stringYear + "]", CT_JSON).body(),
+                BatchItemResult[].class);
+        assertEquals(201, accepted[0].getStatus());
+    }
+
+    @Test
+    void metricsEndpoint_countsRequests() throws Exception {
+        addMovie(MOVIE_1, HEADER, CT_JSON);
+        getMovieOrMovies("/0");
+        getMovieOrMovies("/42");
+
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(BASE + "/metrics")).GET().build();
+        HttpResponse<String> resp = client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        assertEquals(200, resp.statusCode());
+        String body = resp.body();
+        assertTrue(body.contains("moviehub_requests_total{method=\"GET\",route=\"/movies/{id}\",status=\"404\"}"));
+        assertTrue(body.contains("moviehub_request_duration_seconds_count{method=\"POST\",route=\"/movies\"}"));
+        assertTrue(body.contains("moviehub_store_movies 1"));
+    }
+
+    @Test
+    void metricsEndpoint_countsStatsUnderItsOwnRoute() throws Exception {
+        String stats = "moviehub_requests_total{method=\"GET\",route=\"/movies/stats\",status=\"200\"}";
+        String byId = "moviehub_requests_total{method=\"GET\",route=\"/movies/{id}\",status=\"200\"}";
+        String before = getMetrics();
+
+        assertEquals(200, getMovieOrMovies("/stats").statusCode());
+
+        String after = getMetrics();
+        assertEquals(metricValue(before, stats) + 1, metricValue(after, stats));
+        assertEquals(metricValue(before, byId), metricValue(after, byId),
+                "Запрос статистики не должен считаться запросом фильма по id");
+    }
+
+    @Test
+    void rateLimit_rejectsWithRetryAfter() throws Exception {
+        MoviesServer limited = new MoviesServer(new MoviesStore(), SOCKET_NUMBER + 1,
+                new ServerConfig().rateLimit(1).rateBurst(2));
+        limited.start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:" + (SOCKET_NUMBER + 1) + "/movies")).GET().build();
+            assertEquals(200, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+            assertEquals(200, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+            HttpResponse<String> resp = client.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(429, resp.statusCode(), "Третий запрос подряд превышает запас");
+            assertEquals("1", resp.headers().firstValue("Retry-After").orElse(""));
+            assertEquals("Слишком много запросов",
+                    gson.fromJson(resp.body(), ErrorResponse.class).getErrorName());
+
+            HttpRequest metrics = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:" + (SOCKET_NUMBER + 1) + "/metrics")).GET().build();
+            String body = client.send(metrics, HttpResponse.BodyHandlers.ofString()).body();
+            assertTrue(body.contains("moviehub_rate_limited_total 1"));
+        } finally {
+            limited.stop();
+        }
+    }
+
+    @Test
+    void virtualThreads_withMaxInFlight_serveConcurrentRequests() throws Exception {
+        MoviesStore store = new MoviesStore();
+        MoviesServer bounded = new MoviesServer(store, SOCKET_NUMBER + 3, new ServerConfig()
+                .executorMode(ServerConfig.ExecutorMode.VIRTUAL).maxInFlight(2).backlog(64));
+        bounded.start();
+        try {
+            String base = "http://localhost:" + (SOCKET_NUMBER + 3) + "/movies";
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                HttpRequest post = HttpRequest.newBuilder().uri(URI.create(base)).header(HEADER, CT_JSON)
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"Movie " + i + "\",\"year\":2001}"))
+                        .build();
+                responses.add(client.sendAsync(post, HttpResponse.BodyHandlers.ofString()));
+                responses.add(client.sendAsync(HttpRequest.newBuilder().uri(URI.create(base)).GET().build(),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                int status = response.get().statusCode();
+                assertTrue(status == 200 || status == 201, "Лишние запросы должны ждать, а не отклоняться: " + status);
+            }
+            assertEquals(20, store.size());
+        } finally {
+            bounded.stop();
+        }
+    }
+
+    @Test
+    void maxInFlight_withDispatcher_isRejected() {
+        AppArguments args = AppArguments.parse(new String[]{"--executor=dispatcher", "--max-in-flight=4"});
+        assertThrows(IllegalArgumentException.class, () -> ServerConfig.fromArgs(args));
+    }
+
+    @Test
+    void replica_returnsUnavailableUntilSnapshotLoaded() throws Exception {
+        AtomicBoolean synced = new AtomicBoolean();
+        MoviesServer replica = new MoviesServer(new MoviesStore(), SOCKET_NUMBER + 4,
+                new ServerConfig().readOnly(true).replicaSynced(synced::get));
+        replica.start();
+        try {
+            String base = "http://localhost:" + (SOCKET_NUMBER + 4);
+            HttpRequest get = HttpRequest.newBuilder().uri(URI.create(base + "/movies")).GET().build();
+            HttpResponse<String> resp = client.send(get, HttpResponse.BodyHandlers.ofString());
+            assertEquals(503, resp.statusCode(), "Пустой каталог во время загрузки снимка отдавать нельзя");
+            assertEquals("1", resp.headers().firstValue("Retry-After").orElse(""));
+            HttpRequest metrics = HttpRequest.newBuilder().uri(URI.create(base + "/metrics")).GET().build();
+            assertEquals(200, client.send(metrics, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+            synced.set(true);
+            assertEquals(200, client.send(get, HttpResponse.BodyHandlers.ofString()).statusCode());
+        } finally {
+            replica.stop();
+        }
+    }
+
+    @Test
+    void readOnlyServer_rejectsWrites() throws Exception {
+        MoviesStore store = new MoviesStore();
+        store.addNewMovie("Harry Potter", 2001);
+        MoviesServer replica = new MoviesServer(store, SOCKET_NUMBER + 2, new ServerConfig().readOnly(true));
+        replica.start();
+        try {
+            String base = "http://localhost:" + (SOCKET_NUMBER + 2);
+            HttpRequest post = HttpRequest.newBuilder().uri(URI.create(base + "/movies"))
+                    .header(HEADER, CT_JSON).POST(HttpRequest.BodyPublishers.ofString(MOVIE_2)).build();
+            HttpResponse<String> resp = client.send(post, HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, resp.statusCode(), "Реплика не должна принимать изменения");
+            assertEquals("GET, HEAD", resp.headers().firstValue("Allow").orElse(""));
+
+            HttpRequest delete = HttpRequest.newBuilder().uri(URI.create(base + "/movies/batch"))
+                    .header(HEADER, CT_JSON).method("DELETE", HttpRequest.BodyPublishers.ofString("[0]")).build();
+            assertEquals(405, client.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+            HttpRequest get = HttpRequest.newBuilder().uri(URI.create(base + "/movies/0")).GET().build();
+            assertEquals(200, client.send(get, HttpResponse.BodyHandlers.ofString()).statusCode());
+            assertEquals(1, store.size());
+        } finally {
+            replica.stop();
+        }
+    }
+
+    private HttpResponse<String> sendBatch(String method, String body, String contentType) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE + "/movies/batch"))
+                .header(HEADER, contentType)
+                .method(method, HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
     private HttpResponse<String> addMovie(String movieJson, String header, String headerValue) throws Exception {
         HttpRequest postReq = HttpRequest.newBuilder()
                 .uri(URI.create(BASE + "/movies"))
@@ -241,6 +681,21 @@ public class MoviesApiTest {
         return client.send(postReq, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
     }
 
+    private String getMetrics() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(BASE + "/metrics")).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).body();
+    }
+
+    // Значение серии из текста /metrics; серии, которой ещё нет, соответствует 0
+    private static long metricValue(String metrics, String series) {
+        for (String line : metrics.split("\n")) {
+            if (line.startsWith(series + " ")) {
+                return Long.parseLong(line.substring(series.length() + 1).trim());
+            }
+        }
+        return 0;
+    }
+
     private HttpResponse<String> getMovieOrMovies(String movieId) throws Exception {
         HttpRequest getReq = HttpRequest.newBuilder()
                 .uri(URI.create(BASE + "/movies" + movieId))
@@ -249,6 +704,15 @@ public class MoviesApiTest {
         return client.send(getReq, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
     }
 
+    private HttpResponse<String> getIfNoneMatch(String query, String etag) throws Exception {
+        HttpRequest getReq = HttpRequest.newBuilder()
+                .uri(URI.create(BASE + "/movies" + query))
+                .header("If-None-Match", etag)
+                .GET()
+                .build();
+        return client.send(getReq, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
     private HttpResponse<String> deleteMovie(String movieId) throws Exception {
         HttpRequest getReq = HttpRequest.newBuilder()
                 .uri(URI.create(BASE + "/movies" + movieId))
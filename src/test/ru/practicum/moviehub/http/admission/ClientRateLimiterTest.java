@@ -0,0 +1,66 @@
+package ru.practicum.moviehub.http.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClientRateLimiterTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(-5 * SECOND);
+    private final ClientRateLimiter limiter = new ClientRateLimiter(10, 3, now::get);
+
+    @Test
+    void acquire_allowsBurstThenSteadyRate() throws Exception {
+        InetAddress client = InetAddress.getByName("10.0.0.1");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.acquire(client), "Запас из трёх запросов должен пропускаться сразу");
+        }
+        long wait = limiter.acquire(client);
+        assertEquals(SECOND / 10, wait, "Следующий токен появляется через интервал темпа");
+
+        now.addAndGet(wait);
+        assertEquals(0, limiter.acquire(client));
+        assertTrue(limiter.acquire(client) > 0, "Без ожидания новый токен не появляется");
+
+        now.addAndGet(SECOND);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.acquire(client), "За секунду корзина наполняется не выше запаса");
+        }
+        assertTrue(limiter.acquire(client) > 0);
+    }
+
+    @Test
+    void acquire_keepsSeparateBucketsPerClient() throws Exception {
+        InetAddress first = InetAddress.getByName("10.0.0.1");
+        InetAddress second = InetAddress.getByName("10.0.0.2");
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire(first);
+        }
+        assertTrue(limiter.acquire(first) > 0);
+        assertEquals(0, limiter.acquire(second), "Лимит одного клиента не должен задевать другого");
+        assertEquals(2, limiter.clients());
+    }
+
+    @Test
+    void sweep_runsAtMostOncePerIntervalAndDropsFullBuckets() throws Exception {
+        ClientRateLimiter small = new ClientRateLimiter(10, 3, now::get, 2);
+        small.acquire(InetAddress.getByName("10.0.0.1"));
+        small.acquire(InetAddress.getByName("10.0.0.2"));
+        // корзины ещё не полные, обход ничего не удаляет
+        small.acquire(InetAddress.getByName("10.0.0.3"));
+        assertEquals(3, small.clients());
+
+        now.addAndGet(SECOND / 2);
+        small.acquire(InetAddress.getByName("10.0.0.4"));
+        assertEquals(4, small.clients(), "Повторный обход раньше интервала не запускается");
+
+        now.addAndGet(SECOND);
+        small.acquire(InetAddress.getByName("10.0.0.5"));
+        assertEquals(1, small.clients(), "Через интервал полные корзины выбрасываются");
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.moviehub.http.compression;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResponseCompressionTest {
+    private final ResponseCompression compression = new ResponseCompression(16);
+
+    @Test
+    void negotiate_respectsQualityValues() {
+        assertEquals(ContentEncoding.GZIP, compression.negotiate("gzip, deflate, br"));
+        assertEquals(ContentEncoding.DEFLATE, compression.negotiate("gzip;q=0.5, deflate"));
+        assertEquals(ContentEncoding.DEFLATE, compression.negotiate("gzip;q=0, *"));
+        assertEquals(ContentEncoding.IDENTITY, compression.negotiate("br, identity"));
+        assertEquals(ContentEncoding.IDENTITY, compression.negotiate(null));
+        assertEquals(ContentEncoding.IDENTITY, ResponseCompression.DISABLED.negotiate("gzip"));
+    }
+
+    @Test
+    void compress_roundTripsWithReusedDeflaters() throws IOException {
+        byte[] body = "[{\"title\":\"Movie\",\"year\":2000}]".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        for (int i = 0; i < 3; i++) {
+            byte[] gzip = compression.compress(body, ContentEncoding.GZIP);
+            byte[] deflate = compression.compress(body, ContentEncoding.DEFLATE);
+            assertTrue(gzip.length < body.length / 10);
+            assertArrayEquals(body, readAll(new GZIPInputStream(new ByteArrayInputStream(gzip))));
+            assertArrayEquals(body, readAll(new InflaterInputStream(new ByteArrayInputStream(deflate))));
+        }
+        assertEquals(6, compression.getCompressions());
+        assertEquals(6L * body.length, compression.getBytesIn());
+    }
+
+    @Test
+    void encodedBody_compressesOnce() {
+        EncodedBody body = new EncodedBody("{\"title\":\"Movie\",\"year\":2000}".getBytes(StandardCharsets.UTF_8));
+
+        byte[] first = body.variant(ContentEncoding.GZIP, compression);
+        assertSame(first, body.variant(ContentEncoding.GZIP, compression));
+        assertSame(body.getIdentity(), body.variant(ContentEncoding.IDENTITY, compression));
+        assertEquals(1, compression.getCompressions());
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package ru.practicum.moviehub.http.engine;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.moviehub.http.MoviesServer;
+import ru.practicum.moviehub.http.ServerConfig;
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.store.MoviesStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NioServerEngineTest {
+    private static final int PORT = 8090;
+    private static final String BASE = "http://localhost:" + PORT;
+    private static final Gson gson = new Gson();
+    private static MoviesStore store;
+    private static MoviesServer server;
+    private static HttpClient client;
+
+    @BeforeAll
+    static void beforeAll() {
+        store = new MoviesStore();
+        server = new MoviesServer(store, PORT, new ServerConfig()
+                .engine(ServerConfig.Engine.NIO)
+                .executorMode(ServerConfig.ExecutorMode.FIXED)
+                .threads(2)
+                .keepAliveMillis(500)
+                .bufferSize(1024));
+        client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        server.start();
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        server.clearStorage();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        server.stop();
+    }
+
+    @Test
+    void addGetAndDeleteMovie() throws Exception {
+        HttpRequest post = HttpRequest.newBuilder().uri(URI.create(BASE + "/movies"))
+                .header("Content-Type", "application/json; charset=UTF-8")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"Harry Potter\",\"year\":2001}"))
+                .build();
+        HttpResponse<String> created = client.send(post, HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, created.statusCode());
+        int id = gson.fromJson(created.body(), Movie.class).getID();
+
+        HttpResponse<String> found = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE + "/movies/" + id)).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, found.statusCode());
+        assertEquals("Harry Potter", gson.fromJson(found.body(), Movie.class).getTitle());
+
+        HttpResponse<String> deleted = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE + "/movies/" + id)).DELETE().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(204, deleted.statusCode());
+        HttpResponse<String> missing = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE + "/movies/" + id)).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, missing.statusCode());
+    }
+
+    @Test
+    void getMovies_largerThanBuffer_isSentInChunks() throws Exception {
+        for (int i = 0; i < 2000; i++) {
+            store.addNewMovie("Movie number " + i, 1900 + i % 100);
+        }
+        HttpResponse<String> resp = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(BASE + "/movies")).GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, resp.statusCode());
+        assertEquals(2000, gson.fromJson(resp.body(), Movie[].class).length);
+    }
+
+    @Test
+    void pipelinedRequests_areAnsweredInOrder() throws Exception {
+        store.addNewMovie("First", 2001);
+        store.addNewMovie("Second", 2002);
+        try (Socket socket = new Socket("localhost", PORT)) {
+            socket.setSoTimeout(2000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /movies/0 HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    + "GET /movies/1 HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            InputStream in = socket.getInputStream();
+
+            String first = readResponse(in);
+            String second = readResponse(in);
+            assertTrue(first.startsWith("HTTP/1.1 200"), first);
+            assertTrue(first.contains("\"First\""), first);
+            assertTrue(second.contains("\"Second\""), second);
+        }
+    }
+
+    @Test
+    void idleConnection_isClosedAfterKeepAlive() throws Exception {
+        try (Socket socket = new Socket("localhost", PORT)) {
+            socket.setSoTimeout(3000);
+            socket.getOutputStream().write("GET /movies/0 HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            InputStream in = socket.getInputStream();
+            assertTrue(readResponse(in).startsWith("HTTP/1.1 404"));
+
+            assertEquals(-1, in.read(), "Сервер должен закрыть простаивающее соединение");
+        }
+    }
+
+    @Test
+    void malformedRequest_returnsBadRequestAndCloses() throws Exception {
+        try (Socket socket = new Socket("localhost", PORT)) {
+            socket.setSoTimeout(2000);
+            socket.getOutputStream().write("NONSENSE\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            InputStream in = socket.getInputStream();
+
+            String response = readResponse(in);
+            assertTrue(response.startsWith("HTTP/1.1 400"), response);
+            assertTrue(response.contains("Connection: close"), response);
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void maxInFlight_slowReadersDoNotBlockSelector() throws Exception {
+        // ответ в несколько мегабайт не помещается в буферы сокетов и застревает у сервера
+        MoviesStore large = new MoviesStore();
+        String padding = "x".repeat(100);
+        for (int i = 0; i < 60000; i++) {
+            large.addNewMovie("Movie number " + i + " " + padding, 1900 + i % 100);
+        }
+        int port = PORT + 1;
+        MoviesServer bounded = new MoviesServer(large, port, new ServerConfig()
+                .engine(ServerConfig.Engine.NIO)
+                .executorMode(ServerConfig.ExecutorMode.FIXED)
+                .threads(2)
+                .maxInFlight(1)
+                .idleTimeoutMillis(300)
+                .bufferSize(1024));
+        bounded.start();
+        List<Socket> slow = new ArrayList<>();
+        try {
+            // клиенты просят весь список и не читают ответ: обработчик упирается в highWater
+            for (int i = 0; i < 3; i++) {
+                Socket socket = new Socket();
+                socket.setReceiveBufferSize(4096);
+                socket.connect(new InetSocketAddress("localhost", port));
+                socket.getOutputStream().write("GET /movies HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                        .getBytes(StandardCharsets.ISO_8859_1));
+                slow.add(socket);
+            }
+
+            HttpResponse<String> resp = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:" + port + "/movies/0"))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, resp.statusCode(), "Запрос должен дождаться места, пока медленные клиенты отключаются");
+            assertEquals("Movie number 0 " + padding, gson.fromJson(resp.body(), Movie.class).getTitle());
+        } finally {
+            for (Socket socket : slow) {
+                socket.close();
+            }
+            bounded.stop();
+        }
+    }
+
+    @Test
+    void dispatcherMode_slowReaderDoesNotBufferWholeResponse() throws Exception {
+        int port = PORT + 2;
+        AtomicReference<String> handlerThread = new AtomicReference<>();
+        AtomicBoolean written = new AtomicBoolean();
+        NioServerEngine engine = new NioServerEngine(port, new ServerConfig()
+                .engine(ServerConfig.Engine.NIO)
+                .executorMode(ServerConfig.ExecutorMode.DISPATCHER)
+                .idleTimeoutMillis(300)
+                .bufferSize(1024), null);
+        engine.createContext("/big", exchange -> {
+            handlerThread.set(Thread.currentThread().getName());
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                byte[] chunk = new byte[64 * 1024];
+                for (int i = 0; i < 128; i++) {
+                    out.write(chunk);
+                }
+                written.set(true);
+            }
+        }, List.of());
+        engine.createContext("/small", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        }, List.of());
+        engine.start();
+        try (Socket slow = new Socket()) {
+            slow.setReceiveBufferSize(4096);
+            slow.connect(new InetSocketAddress("localhost", port));
+            slow.getOutputStream().write("GET /big HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    .getBytes(StandardCharsets.ISO_8859_1));
+
+            // обработчик один, поэтому второй запрос выполнится только после того, как первый сдастся
+            HttpResponse<Void> resp = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:" + port + "/small"))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET().build(), HttpResponse.BodyHandlers.discarding());
+            assertEquals(204, resp.statusCode());
+            assertNotEquals("nio-selector", handlerThread.get());
+            assertFalse(written.get(), "Ответ непрочитавшему клиенту не должен целиком копиться в памяти");
+        } finally {
+            engine.stop(1);
+        }
+    }
+
+    // Заголовки и тело по Content-Length; ответы с телом chunked в этих тестах не читаются
+    private static String readResponse(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        while (!head.toString(StandardCharsets.ISO_8859_1).endsWith("\r\n\r\n")) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Соединение закрыто до конца заголовков");
+            }
+            head.write(b);
+        }
+        String text = head.toString(StandardCharsets.ISO_8859_1);
+        int length = 0;
+        for (String line : text.split("\r\n")) {
+            if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                length = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        return text + new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
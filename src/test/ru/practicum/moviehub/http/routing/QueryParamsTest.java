@@ -0,0 +1,54 @@
+package ru.practicum.moviehub.http.routing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QueryParamsTest {
+    @Test
+    void parse_readsValuesInPlace() {
+        QueryParams query = QueryParams.parse("from=1990&to=2005&title=%D0%90+b");
+
+        assertFalse(query.isMalformed());
+        assertEquals(3, query.size());
+        assertEquals(1990, query.getInt("from", 0));
+        assertEquals(2005, query.getInt("to", 0));
+        assertEquals(7, query.getInt("limit", 7));
+        assertEquals("А b", query.get("title"));
+        assertNull(query.get("year"));
+        assertTrue(query.namesIn("from", "to", "title"));
+        assertFalse(query.namesIn("from", "to"));
+        assertThrows(NumberFormatException.class, () -> query.getInt("title", 0));
+    }
+
+    @Test
+    void parse_marksBrokenPairsAsMalformed() {
+        assertTrue(QueryParams.parse("year").isMalformed());
+        assertTrue(QueryParams.parse("year=").isMalformed());
+        assertTrue(QueryParams.parse("=2000").isMalformed());
+        assertTrue(QueryParams.parse("year=2000=1").isMalformed());
+        assertFalse(QueryParams.parse("year=2000&").isMalformed());
+        assertTrue(QueryParams.parse(null).isEmpty());
+    }
+
+    @Test
+    void router_matchesLiteralAndParamSegments() {
+        Router router = new Router()
+                .get("/movies", (ex, match) -> {
+                })
+                .delete("/movies/{id}", (ex, match) -> {
+                });
+
+        assertTrue(router.matches("GET", "/movies"));
+        assertTrue(router.matches("GET", "/movies/"));
+        assertTrue(router.matches("DELETE", "/movies/5"));
+        assertFalse(router.matches("GET", "/movies/5"));
+        assertFalse(router.matches("DELETE", "/movies//"));
+        assertFalse(router.matches("GET", "/moviesX"));
+        assertFalse(router.matches("DELETE", "/movies/5/x"));
+    }
+}
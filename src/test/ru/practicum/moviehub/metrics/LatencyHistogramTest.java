@@ -0,0 +1,35 @@
+package ru.practicum.moviehub.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    void percentile_staysWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertWithin(5_000_000, histogram.percentile(0.5));
+        assertWithin(9_900_000, histogram.percentile(0.99));
+        assertWithin(10_000_000, histogram.percentile(1.0));
+    }
+
+    @Test
+    void bucketBounds_coverEveryValue() {
+        for (long value = 0; value < 100_000; value += 7) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value <= LatencyHistogram.upperBound(bucket));
+            assertTrue(bucket == 0 || value > LatencyHistogram.upperBound(bucket - 1));
+        }
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 16,
+                "Ожидалось около " + expected + ", получено " + actual);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.moviehub.store;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.moviehub.model.Movie;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MappedMovieStorageTest {
+    @Test
+    void reopen_keepsMoviesWithoutReload() throws Exception {
+        Path directory = Files.createTempDirectory("mapped-movies");
+        MoviesStore store = new MoviesStore(MappedMovieStorage.open(directory));
+        store.addNewMovie("Сталкер", 1979);
+        Movie deleted = store.addNewMovie("Солярис", 1972);
+        store.addNewMovie("Зеркало", 1975);
+        store.deleteMovie(deleted.getID());
+        store.close();
+
+        MoviesStore reopened = new MoviesStore(MappedMovieStorage.open(directory));
+        assertEquals(2, reopened.size());
+        assertEquals(List.of("Сталкер", "Зеркало"),
+                reopened.getAllMovies().stream().map(Movie::getTitle).toList());
+        assertNull(reopened.getMovie(deleted.getID()));
+        assertEquals("Зеркало", reopened.getMoviesByYear(1975).getFirst().getTitle());
+        assertEquals(3, reopened.addNewMovie("Андрей Рублёв", 1966).getID());
+        reopened.close();
+    }
+
+    @Test
+    void reopen_servesYearsFromMappedIndexWithoutScan() throws Exception {
+        Path directory = Files.createTempDirectory("mapped-movies");
+        MoviesStore store = new MoviesStore(MappedMovieStorage.open(directory));
+        store.addNewMovie("Сталкер", 1979);
+        store.addNewMovie("Солярис", 1972);
+        Movie deleted = store.addNewMovie("Иваново детство", 1979);
+        store.addNewMovie("Зеркало", 1975);
+        store.addNewMovie("Ностальгия", 1979);
+        store.deleteMovie(deleted.getID());
+        // старый ID встаёт в середину списка года, а не в хвост
+        store.restoreMovie(new Movie("Жертвоприношение", 1979, deleted.getID()));
+        store.close();
+
+        MoviesStore reopened = new MoviesStore(MappedMovieStorage.open(directory));
+        assertEquals(0, reopened.titleIndexTokens());
+        assertEquals(List.of(0, 2, 4), ids(reopened.getMoviesByYear(1979)));
+        assertEquals(List.of(1, 3, 0, 2, 4), ids(reopened.getMoviesByYearRange(1900, 2000)));
+        assertEquals(Map.of(1972, 1, 1975, 1, 1979, 3), reopened.getYearCounts());
+        assertEquals(List.of(1), ids(reopened.searchByTitle("сол", 10)));
+        reopened.deleteMovie(0);
+        assertEquals(List.of(2, 4), ids(reopened.getMoviesByYear(1979)));
+        reopened.close();
+
+        // без years.dat индекс по годам восстанавливается по записям
+        Files.delete(directory.resolve("years.dat"));
+        MoviesStore rebuilt = new MoviesStore(MappedMovieStorage.open(directory));
+        assertEquals(List.of(1, 3, 2, 4), ids(rebuilt.getMoviesByYearRange(1972, 1979)));
+        assertEquals(Map.of(1972, 1, 1975, 1, 1979, 2), rebuilt.getYearCounts());
+        rebuilt.clear();
+        assertEquals(List.of(), rebuilt.getMoviesByYear(1979));
+        rebuilt.addNewMovie("Сталкер", 1979);
+        assertEquals(List.of(0), ids(rebuilt.getMoviesByYear(1979)));
+        rebuilt.close();
+    }
+
+    @Test
+    void put_growsFilesBeyondInitialMapping() throws Exception {
+        MappedMovieStorage storage = MappedMovieStorage.open(Files.createTempDirectory("mapped-movies"));
+        String title = "x".repeat(100);
+        int movies = 70_000;
+        for (int id = 0; id < movies; id++) {
+            storage.put(new Movie(title, 1700 + id % 300, id));
+        }
+
+        assertEquals(movies, storage.size());
+        assertEquals(title, storage.get(movies - 1).getTitle());
+        assertEquals(300, storage.yearCounts().size());
+        List<Movie> byYears = storage.moviesByYears(1850, 1850);
+        assertEquals(movies / 300, byYears.size());
+        assertEquals(150, byYears.getFirst().getID());
+        storage.clear();
+        assertFalse(storage.contains(0));
+        assertEquals(0, storage.nextId());
+        storage.close();
+    }
+
+    private static List<Integer> ids(List<Movie> movies) {
+        return movies.stream().map(Movie::getID).toList();
+    }
+}
@@ -0,0 +1,223 @@
+package ru.practicum.moviehub.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.moviehub.model.Movie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MoviesStoreTest {
+    private MoviesStore store;
+
+    @BeforeEach
+    void beforeEach() {
+        store = new MoviesStore();
+    }
+
+    @Test
+    void addNewMovie_concurrently_allocatesUniqueIdsInOrder() throws Exception {
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    store.addNewMovie("Movie", 2000);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<Movie> movies = store.getAllMovies();
+        assertEquals(threads * perThread, movies.size());
+        for (int i = 0; i < movies.size(); i++) {
+            assertEquals(i, movies.get(i).getID(), "Фильмы должны идти в порядке добавления");
+        }
+    }
+
+    @Test
+    void deleteMovie_returnsFalseForMissingId() {
+        Movie movie = store.addNewMovie("Movie", 2000);
+
+        assertTrue(store.deleteMovie(movie.getID()));
+        assertEquals(false, store.deleteMovie(movie.getID()));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void yearIndex_followsAddDeleteAndClear() {
+        Movie first = store.addNewMovie("First", 2001);
+        store.addNewMovie("Second", 2005);
+        Movie third = store.addNewMovie("Third", 2001);
+        store.addNewMovie("Fourth", 1999);
+
+        assertEquals(List.of(first, third), store.getMoviesByYear(2001));
+
+        store.deleteMovie(first.getID());
+        assertEquals(List.of(third), store.getMoviesByYear(2001));
+
+        List<Movie> range = store.getMoviesByYearRange(2000, 2005);
+        assertEquals(2, range.size());
+        assertEquals("Third", range.get(0).getTitle());
+        assertEquals("Second", range.get(1).getTitle());
+
+        store.clear();
+        assertTrue(store.getMoviesByYear(2001).isEmpty());
+        assertTrue(store.getMoviesByYearRange(1888, 2100).isEmpty());
+    }
+
+    @Test
+    void yearCounts_followAddDeleteAndClear() {
+        Movie first = store.addNewMovie("First", 2001);
+        store.addNewMovie("Second", 2001);
+        Movie third = store.addNewMovie("Third", 1999);
+        assertEquals(Map.of(1999, 1, 2001, 2), store.getYearCounts());
+
+        store.deleteMovie(first.getID());
+        store.deleteMovie(third.getID());
+        assertEquals(Map.of(2001, 1), store.getYearCounts(), "Год без фильмов пропадает из счётчиков");
+
+        store.clear();
+        assertTrue(store.getYearCounts().isEmpty());
+    }
+
+    @Test
+    void searchByTitle_matchesTokensAndLastPrefix() {
+        Movie first = store.addNewMovie("Star Wars: A New Hope", 1977);
+        Movie second = store.addNewMovie("Starship Troopers", 1997);
+        Movie third = store.addNewMovie("Звёздные войны", 1980);
+        store.addNewMovie("Alien", 1979);
+
+        assertEquals(List.of(first, second), store.searchByTitle("STAR", 10));
+        assertEquals(List.of(first), store.searchByTitle("star wa", 10));
+        assertEquals(List.of(first), store.searchByTitle("hope new", 10));
+        assertEquals(List.of(third), store.searchByTitle("звёздные", 10));
+        assertEquals(List.of(first), store.searchByTitle("star", 1));
+        assertTrue(store.searchByTitle("wars star trek", 10).isEmpty());
+
+        store.deleteMovie(first.getID());
+        assertEquals(List.of(second), store.searchByTitle("star", 10));
+        assertTrue(store.searchByTitle("hope", 10).isEmpty());
+
+        store.clear();
+        assertTrue(store.searchByTitle("starship", 10).isEmpty());
+        assertEquals(0, store.titleIndexTokens());
+    }
+
+    @Test
+    void searchByTitle_afterManyDeletesKeepsSurvivors() {
+        for (int i = 0; i < 100; i++) {
+            store.addNewMovie("Movie " + i, 2000);
+        }
+        for (int i = 0; i < 100; i++) {
+            if (i % 10 != 0) {
+                store.deleteMovie(i);
+            }
+        }
+
+        List<Movie> found = store.searchByTitle("movie", 100);
+        assertEquals(10, found.size());
+        for (int i = 0; i < found.size(); i++) {
+            assertEquals(i * 10, found.get(i).getID());
+        }
+        assertEquals(List.of(store.getMovie(50)), store.searchByTitle("movie 5", 100));
+    }
+
+    @Test
+    void searchByTitle_mergesPrefixWithManyDistinctTokens() {
+        for (int i = 0; i < 6000; i++) {
+            store.addNewMovie("Film x" + i, 2000);
+        }
+        store.deleteMovie(1);
+
+        List<Movie> found = store.searchByTitle("x", 5);
+        assertEquals(List.of(0, 2, 3, 4, 5), found.stream().map(Movie::getID).toList());
+        assertEquals(found, store.searchByTitle("film x", 5), "Плотный префикс дешевле проверить по списку film");
+
+        List<Movie> narrow = store.searchByTitle("x599", 100);
+        assertEquals(List.of(599, 5990, 5991, 5992, 5993, 5994, 5995, 5996, 5997, 5998, 5999),
+                narrow.stream().map(Movie::getID).toList());
+        assertEquals(List.of(store.getMovie(5999)), store.searchByTitle("film x5999", 100));
+    }
+
+    @Test
+    void versions_changeOnlyForAffectedYears() {
+        Movie movie = store.addNewMovie("First", 2001);
+        long version = store.getVersion();
+        long year2001 = store.getYearVersion(2001);
+
+        store.addNewMovie("Second", 2005);
+        assertTrue(store.getVersion() > version);
+        assertEquals(year2001, store.getYearVersion(2001));
+        assertTrue(store.getYearRangeVersion(2000, 2010) > year2001);
+
+        store.deleteMovie(movie.getID());
+        assertTrue(store.getYearVersion(2001) > year2001);
+
+        long beforeClear = store.getYearVersion(1990);
+        store.clear();
+        assertTrue(store.getYearVersion(1990) > beforeClear);
+    }
+
+    @Test
+    void lists_followChangesAcrossChunks() {
+        List<Movie> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            expected.add(store.addNewMovie("Movie " + i, 2000 + i % 3));
+        }
+        List<Movie> before = store.getAllMovies();
+        for (int id = 0; id < 5000; id += 7) {
+            store.deleteMovie(id);
+        }
+        expected.removeIf(movie -> movie.getID() % 7 == 0);
+        expected.add(store.addNewMovie("Last", 2001));
+
+        assertEquals(5000, before.size(), "Полученный ранее список не меняется");
+        assertEquals(expected, store.getAllMovies());
+        assertEquals(expected.stream().filter(movie -> movie.getYear() == 2001).toList(),
+                store.getMoviesByYear(2001));
+        assertEquals(expected.subList(1000, 1100), store.getMoviesPage(expected.get(999).getID(), 100));
+        assertEquals(expected.size(), store.getMoviesByYearRange(2000, 2002).size());
+
+        store.clear();
+        Movie afterClear = store.addNewMovie("Again", 2000);
+        assertEquals(List.of(afterClear), store.getAllMovies());
+    }
+
+    @Test
+    void getAllMovies_duringWritesReturnsConsistentVersions() throws Exception {
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                Movie movie = store.addNewMovie("Movie " + i, 2000);
+                if (i % 2 == 0) {
+                    store.deleteMovie(movie.getID());
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            long version = store.getVersion();
+            List<Movie> movies = store.getAllMovies();
+            // на каждые три версии писатель оставляет один фильм
+            assertTrue(movies.size() >= version / 3, "Снимок не старше прочитанной версии");
+            int previous = -1;
+            for (Movie movie : movies) {
+                assertTrue(movie.getID() > previous);
+                // чётный фильм может быть только последним: добавлен, но ещё не удалён
+                assertTrue(movie.getID() % 2 == 1 || movie == movies.getLast(), "Удалённые фильмы не видны");
+                previous = movie.getID();
+            }
+        }
+        writer.join();
+        assertEquals(10000, store.getAllMovies().size());
+    }
+}
@@ -0,0 +1,114 @@
+package ru.practicum.moviehub.store;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShardedMoviesStoreTest {
+    private final ShardedMoviesStore store = new ShardedMoviesStore(3, Runnable::run);
+
+    @Test
+    void addNewMovie_spreadsMoviesOverDisjointRanges() {
+        List<Movie> added = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            added.add(store.addNewMovie("Movie " + i, 2000 + i % 3));
+        }
+        for (int s = 0; s < store.shardCount(); s++) {
+            assertEquals(3, store.shard(s).size(), "Фильмы должны раскладываться по шардам поровну");
+        }
+        for (Movie movie : added) {
+            assertEquals(movie, store.getMovie(movie.getID()));
+        }
+
+        List<Movie> all = store.getAllMovies();
+        assertEquals(9, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getID() < all.get(i).getID(), "Список должен идти по возрастанию ID");
+        }
+        List<Movie> viewed = new ArrayList<>();
+        store.moviesView().forEach(viewed::add);
+        assertEquals(all, viewed);
+
+        assertEquals(all.subList(2, 6), store.getMoviesPage(all.get(1).getID(), 4));
+        assertEquals(all.subList(7, 9), store.getMoviesPage(all.get(6).getID(), 100));
+    }
+
+    @Test
+    void yearQueries_mergeShardsInOrder() {
+        int[] years = {2005, 2001, 2003, 2001, 2005, 2002};
+        for (int year : years) {
+            store.addNewMovie("Movie", year);
+        }
+
+        List<Movie> byYear = store.getMoviesByYear(2001);
+        assertEquals(2, byYear.size());
+        assertTrue(byYear.get(0).getID() < byYear.get(1).getID());
+
+        List<Movie> range = store.getMoviesByYearRange(2001, 2005);
+        assertEquals(years.length, range.size());
+        for (int i = 1; i < range.size(); i++) {
+            Movie previous = range.get(i - 1);
+            Movie current = range.get(i);
+            assertTrue(previous.getYear() < current.getYear()
+                    || previous.getYear() == current.getYear() && previous.getID() < current.getID(),
+                    "Выборка должна идти по году, внутри года — по ID");
+        }
+        assertEquals(Map.of(2001, 2, 2002, 1, 2003, 1, 2005, 2), store.getYearCounts());
+    }
+
+    @Test
+    void deleteMovies_routesEachIdToItsShard() {
+        List<Movie> batch = store.addNewMovies(List.of(new NewMovie("A", 2000), new NewMovie("B", 2001)));
+        assertEquals(batch.get(0).getID() + 1, batch.get(1).getID(), "ID пакета должны идти подряд");
+        Movie other = store.addNewMovie("C", 2002);
+
+        long version = store.getVersion();
+        boolean[] deleted = store.deleteMovies(new int[]{other.getID(), -1, batch.get(1).getID(), other.getID()});
+        assertArrayEquals(new boolean[]{true, false, true, false}, deleted);
+        assertTrue(store.getVersion() > version);
+        assertNull(store.getMovie(other.getID()));
+        assertFalse(store.deleteMovie(other.getID()));
+        assertEquals(List.of(batch.get(0)), store.getAllMovies());
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertEquals(0, store.addNewMovie("D", 2003).getID() % (Integer.MAX_VALUE / 3),
+                "После clear шард снова выдаёт ID с начала своего диапазона");
+    }
+
+    @Test
+    void searchByTitle_collectsUpToLimitAcrossShards() {
+        for (int i = 0; i < 6; i++) {
+            store.addNewMovie("Star Wars " + i, 1977 + i);
+        }
+        store.addNewMovie("Alien", 1979);
+
+        List<Movie> found = store.searchByTitle("star", 4);
+        assertEquals(4, found.size());
+        for (int i = 1; i < found.size(); i++) {
+            assertTrue(found.get(i - 1).getID() < found.get(i).getID());
+        }
+        assertEquals(6, store.searchByTitle("wars", 100).size());
+        assertThrows(IllegalArgumentException.class, () -> store.searchByTitle("  ", 10));
+    }
+
+    @Test
+    void shardRange_isEnforced() {
+        MoviesStore shard = new MoviesStore(new HeapMovieStorage(), 10, 12);
+        assertEquals(10, shard.addNewMovie("A", 2000).getID());
+        assertEquals(11, shard.addNewMovie("B", 2000).getID());
+        assertThrows(IllegalStateException.class, () -> shard.addNewMovie("C", 2000));
+        assertThrows(IllegalStateException.class, () -> shard.addNewMovies(List.of(new NewMovie("D", 2000))));
+    }
+}
@@ -0,0 +1,100 @@
+package ru.practicum.moviehub.store.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.store.MoviesStore;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MoviesPersistenceTest {
+    private Path directory;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        directory = Files.createTempDirectory("movies-persistence");
+    }
+
+    @Test
+    void reopen_replaysJournalAndKeepsIdsMonotonic() throws Exception {
+        MoviesStore store = new MoviesStore();
+        MoviesPersistence persistence = MoviesPersistence.open(directory, store, 0);
+        store.addNewMovie("Первый", 2001);
+        Movie second = store.addNewMovie("Второй", 2005);
+        store.deleteMovie(second.getID());
+        persistence.close();
+
+        MoviesStore restored = new MoviesStore();
+        MoviesPersistence reopened = MoviesPersistence.open(directory, restored, 0);
+        assertEquals(3, reopened.getReplayedRecords());
+        assertEquals(List.of("Первый"), restored.getAllMovies().stream().map(Movie::getTitle).toList());
+        assertEquals(2, restored.addNewMovie("Третий", 2010).getID(), "Удалённый ID не должен выдаваться снова");
+        reopened.close();
+    }
+
+    @Test
+    void reopen_loadsSnapshotAndJournalTail() throws Exception {
+        MoviesStore store = new MoviesStore();
+        MoviesPersistence persistence = MoviesPersistence.open(directory, store, 0);
+        for (int i = 0; i < 100; i++) {
+            store.addNewMovie("Movie " + i, 2000);
+        }
+        persistence.snapshot();
+        store.deleteMovie(0);
+        store.addNewMovie("После снимка", 2020);
+        persistence.close();
+
+        MoviesStore restored = new MoviesStore();
+        MoviesPersistence reopened = MoviesPersistence.open(directory, restored, 0);
+        assertEquals(100, reopened.getRecoveredMovies());
+        assertEquals(2, reopened.getReplayedRecords());
+        assertEquals(100, restored.size());
+        assertEquals("После снимка", restored.getMovie(100).getTitle());
+        reopened.close();
+    }
+
+    @Test
+    void reopen_dropsTornRecordAtTheEnd() throws Exception {
+        MoviesStore store = new MoviesStore();
+        MoviesPersistence persistence = MoviesPersistence.open(directory, store, 0);
+        store.addNewMovie("Целый", 2001);
+        persistence.close();
+        Files.write(directory.resolve("wal-0.log"), new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        MoviesStore restored = new MoviesStore();
+        MoviesPersistence reopened = MoviesPersistence.open(directory, restored, 0);
+        assertEquals(1, restored.size());
+        restored.addNewMovie("Следующий", 2002);
+        reopened.close();
+
+        MoviesStore again = new MoviesStore();
+        MoviesPersistence last = MoviesPersistence.open(directory, again, 0);
+        assertEquals(2, again.size());
+        last.close();
+    }
+
+    @Test
+    void replay_readsJournalInChunksSmallerThanRecords() throws Exception {
+        MoviesStore store = new MoviesStore();
+        MoviesPersistence persistence = MoviesPersistence.open(directory, store, 0);
+        for (int i = 0; i < 200; i++) {
+            store.addNewMovie("Фильм с довольно длинным названием номер " + i, 2000 + i % 20);
+        }
+        store.deleteMovie(7);
+        persistence.close();
+        Path wal = directory.resolve("wal-0.log");
+        long size = Files.size(wal);
+        Files.write(wal, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        MoviesStore restored = new MoviesStore();
+        assertEquals(201, WriteAheadLog.replay(wal, restored, 16));
+        assertEquals(199, restored.size());
+        assertEquals("Фильм с довольно длинным названием номер 199", restored.getMovie(199).getTitle());
+        assertEquals(size, Files.size(wal), "Обрезаться должна только оборванная запись");
+    }
+}
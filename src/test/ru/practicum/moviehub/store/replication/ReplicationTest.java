@@ -0,0 +1,121 @@
+package ru.practicum.moviehub.store.replication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.moviehub.model.Movie;
+import ru.practicum.moviehub.model.NewMovie;
+import ru.practicum.moviehub.store.MoviesStore;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReplicationTest {
+    private final MoviesStore primary = new MoviesStore();
+    private ReplicationServer server;
+    private ReplicaClient client;
+
+    @AfterEach
+    void afterEach() throws IOException {
+        if (client != null) {
+            client.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void replica_receivesSnapshotThenChanges() throws Exception {
+        ChangeStream changes = start(100);
+        primary.addNewMovie("Сталкер", 1979);
+        Movie deleted = primary.addNewMovie("Солярис", 1972);
+        primary.deleteMovie(deleted.getID());
+
+        MoviesStore replica = new MoviesStore();
+        client = new ReplicaClient(replica, "localhost", server.getPort());
+        awaitCaughtUp(changes);
+        assertEquals(primary.getAllMovies(), replica.getAllMovies());
+        assertTrue(client.isSynced(), "После снимка реплика согласована с основным узлом");
+
+        primary.addNewMovies(List.of(new NewMovie("Зеркало", 1974), new NewMovie("Андрей Рублёв", 1966)));
+        primary.deleteMovie(0);
+        awaitCaughtUp(changes);
+        assertEquals(primary.getAllMovies(), replica.getAllMovies());
+        assertEquals(primary.getMoviesByYearRange(1960, 1980), replica.getMoviesByYearRange(1960, 1980));
+        assertEquals(0, client.getLagRecords());
+        assertEquals(1, server.getSnapshots(), "Подключённой реплике снимок больше не нужен");
+
+        primary.clear();
+        primary.addNewMovie("Иваново детство", 1962);
+        awaitCaughtUp(changes);
+        assertEquals(primary.getAllMovies(), replica.getAllMovies());
+    }
+
+    @Test
+    void replica_catchesUpFromSequenceAfterReconnect() throws Exception {
+        ChangeStream changes = start(100);
+        primary.addNewMovie("Сталкер", 1979);
+        MoviesStore replica = new MoviesStore();
+        client = new ReplicaClient(replica, "localhost", server.getPort());
+        awaitCaughtUp(changes);
+
+        // Основной узел недоступен, пока на нём идут изменения; реплика переподключается сама
+        int port = server.getPort();
+        server.close();
+        await(() -> !client.isConnected());
+        for (int i = 0; i < 10; i++) {
+            primary.addNewMovie("Фильм " + i, 2000 + i);
+        }
+        primary.deleteMovie(3);
+        server = new ReplicationServer(primary, changes, port);
+        awaitCaughtUp(changes);
+
+        assertEquals(primary.getAllMovies(), replica.getAllMovies());
+        assertEquals(0, server.getSnapshots(), "Отставание меньше буфера догоняется без снимка");
+        assertTrue(client.getReconnects() >= 1);
+    }
+
+    @Test
+    void replica_fallsBackToSnapshotWhenBufferOverflowed() throws Exception {
+        ChangeStream changes = start(4);
+        MoviesStore replica = new MoviesStore();
+        client = new ReplicaClient(replica, "localhost", server.getPort());
+        awaitCaughtUp(changes);
+
+        int port = server.getPort();
+        server.close();
+        await(() -> !client.isConnected());
+        for (int i = 0; i < 10; i++) {
+            primary.addNewMovie("Фильм " + i, 2000 + i);
+        }
+        server = new ReplicationServer(primary, changes, port);
+        awaitCaughtUp(changes);
+
+        assertEquals(primary.getAllMovies(), replica.getAllMovies());
+        assertEquals(1, server.getSnapshots());
+    }
+
+    private ChangeStream start(int capacity) throws IOException {
+        ChangeStream changes = new ChangeStream(capacity);
+        primary.addListener(changes);
+        server = new ReplicationServer(primary, changes, 0);
+        return changes;
+    }
+
+    private void awaitCaughtUp(ChangeStream changes) throws InterruptedException {
+        await(() -> client.isConnected() && client.getAppliedSequence() == changes.getHead()
+                && client.getLagRecords() == 0);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Реплика не догнала основной узел за 10 секунд");
+            Thread.sleep(10);
+        }
+    }
+}